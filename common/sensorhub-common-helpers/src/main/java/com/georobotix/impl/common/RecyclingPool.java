@@ -0,0 +1,96 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.common;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable records, such as scratch {@code DataBlock}s, returned explicitly by their owner.
+ * <p>
+ * A record goes back to the pool only when {@link #recycle(Object)} is called, so it must only be used for records
+ * whose last user is known. Records handed to {@code eventHandler.publish} or to a process output must never be
+ * recycled: subscribers, storage and {@code getLatestRecord()} callers keep references to them and never tell
+ * when they are done, so reusing them would rewrite observations already published.
+ * <p>
+ * In steady state the owner cycles through as many records as it holds at once and allocates nothing. At most
+ * {@code capacity} free records are kept, extra recycled records are left to the garbage collector.
+ * <pre>{@code
+ * pool = new RecyclingPool<>(4, dataRecord::createDataBlock);
+ * ...
+ * DataBlock scratch = pool.acquire();
+ * ... fill and use the data block ...
+ * pool.recycle(scratch);
+ * }</pre>
+ *
+ * @param <T> Type of the pooled records.
+ */
+public class RecyclingPool<T> {
+    private final Supplier<T> factory;
+    private final int capacity;
+    private final ArrayDeque<T> free;
+
+    private long created;
+    private long reused;
+
+    /**
+     * @param capacity Maximum number of free records kept for reuse.
+     * @param factory Creates the records when the pool has none to reuse.
+     */
+    public RecyclingPool(int capacity, Supplier<T> factory) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity must not be negative");
+
+        this.factory = factory;
+        this.capacity = capacity;
+        this.free = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * @return A recycled record, or a new one if none is available. Recycled records keep their previous content.
+     */
+    public synchronized T acquire() {
+        T record = free.pollFirst();
+        if (record != null) {
+            reused++;
+            return record;
+        }
+
+        created++;
+        return factory.get();
+    }
+
+    /**
+     * Returns a record to the pool so that it can be reused by the next {@link #acquire()}.
+     * The caller must be the last user of the record and must not use it afterwards.
+     *
+     * @param record Record taken from {@link #acquire()} and no longer used by anyone.
+     */
+    public synchronized void recycle(T record) {
+        if (free.size() < capacity)
+            free.addLast(record);
+    }
+
+    /**
+     * @return The number of records created by the factory.
+     */
+    public synchronized long getCreatedRecords() {
+        return created;
+    }
+
+    /**
+     * @return The number of records handed out again instead of being created.
+     */
+    public synchronized long getReusedRecords() {
+        return reused;
+    }
+}
@@ -0,0 +1,72 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RecyclingPoolTest {
+    @Test
+    public void recycledRecordsAreReused() {
+        RecyclingPool<int[]> pool = new RecyclingPool<>(8, () -> new int[1]);
+        int[] record = pool.acquire();
+        pool.recycle(record);
+
+        assertSame(record, pool.acquire());
+        assertEquals(1, pool.getCreatedRecords());
+        assertEquals(1, pool.getReusedRecords());
+    }
+
+    @Test
+    public void recordsInUseAreNeverHandedOut() {
+        RecyclingPool<int[]> pool = new RecyclingPool<>(8, () -> new int[1]);
+        List<int[]> inUse = new ArrayList<>();
+        for (int k = 0; k < 4; k++)
+            inUse.add(pool.acquire());
+
+        // Nothing was recycled, whatever the number of records acquired since
+        int[] record = pool.acquire();
+        for (int[] other : inUse)
+            assertNotSame(other, record);
+        assertEquals(0, pool.getReusedRecords());
+    }
+
+    @Test
+    public void steadyStateCyclesThroughRecordsHeldAtOnce() {
+        RecyclingPool<int[]> pool = new RecyclingPool<>(4, () -> new int[1]);
+        for (int k = 0; k < 1000; k++) {
+            int[] first = pool.acquire();
+            int[] second = pool.acquire();
+            pool.recycle(first);
+            pool.recycle(second);
+        }
+
+        assertEquals(2, pool.getCreatedRecords());
+        assertEquals(1998, pool.getReusedRecords());
+    }
+
+    @Test
+    public void zeroCapacityNeverReuses() {
+        RecyclingPool<int[]> pool = new RecyclingPool<>(0, () -> new int[1]);
+        int[] record = pool.acquire();
+        pool.recycle(record);
+
+        assertNotSame(record, pool.acquire());
+        assertEquals(0, pool.getReusedRecords());
+    }
+}
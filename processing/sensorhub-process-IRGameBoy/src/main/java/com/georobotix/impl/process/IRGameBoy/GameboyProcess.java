@@ -194,7 +194,13 @@ public class GameboyProcess extends ExecutableProcessImpl {
         // Get input Image! (from sensor driver)
 
         DataBlock inputDataBlock = inputData.getComponent(frame).getData();
-        DataBlock outputDataBlock = inputDataBlock.clone();
+
+        // Cloning the input would copy the input image only to replace it, create a new block instead.
+        // The block is published with the output, so it must not be reused for the next frames.
+        DataBlock outputDataBlock = dataRecordOutput.createDataBlock();
+        outputDataBlock.setDoubleValue(0, inputDataBlock.getDoubleValue(0));
+        outputDataBlock.setIntValue(1, inputDataBlock.getIntValue(1));
+        outputDataBlock.setIntValue(2, inputDataBlock.getIntValue(2));
 
         // Processing the image
         AbstractDataBlock frameDataIn = ((DataBlockMixed) inputDataBlock).getUnderlyingObject()[3];
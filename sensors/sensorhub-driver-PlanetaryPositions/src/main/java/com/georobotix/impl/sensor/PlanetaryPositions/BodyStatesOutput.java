@@ -0,0 +1,218 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import com.georobotix.impl.sensor.helpers.AsyncPublisher;
+import com.georobotix.impl.sensor.helpers.MonitoredOutput;
+import com.georobotix.impl.sensor.helpers.PublishStatistics;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import net.opengis.swe.v20.DataEncoding;
+import net.opengis.swe.v20.DataRecord;
+import org.sensorhub.api.data.DataEvent;
+import org.sensorhub.impl.sensor.AbstractSensorOutput;
+import org.vast.data.AbstractDataBlock;
+import org.vast.data.DataBlockMixed;
+import org.vast.swe.SWEHelper;
+
+/**
+ * Output publishing the heliocentric state of many bodies as a single observation per tick.
+ * <p>
+ * Bodies are published in a fixed size array, in the order of the {@link OrbitCatalog} or of the configured
+ * planet list they come from. Each element carries the name of its body.
+ */
+public class BodyStatesOutput extends AbstractSensorOutput<PlanetPositionSensor> implements MonitoredOutput {
+    static final String SENSOR_OUTPUT_NAME = "BodyStates";
+    static final String SENSOR_OUTPUT_LABEL = "Body States Output";
+    static final String SENSOR_OUTPUT_DESCRIPTION = "Current heliocentric positions and velocities of a set of bodies.";
+
+    private static final int STATE_SIZE = 7;
+
+    private final PublishStatistics publishStats = new PublishStatistics();
+    private final Object processingLock = new Object();
+
+    // Publish queue, only when asynchronous publishing is configured
+    private volatile AsyncPublisher<DataEvent> publisher;
+
+    private final String[] names;
+    private final int numBodies;
+    private DataRecord dataRecord;
+    private DataEncoding dataEncoding;
+
+    /**
+     * Creates a new output for the sensor driver.
+     *
+     * @param parentSensor Sensor driver providing this output.
+     * @param names Names of the bodies published in each record.
+     */
+    BodyStatesOutput(PlanetPositionSensor parentSensor, String[] names) {
+        super(SENSOR_OUTPUT_NAME, parentSensor);
+        this.names = names;
+        this.numBodies = names.length;
+    }
+
+    /**
+     * Initializes the data structure for the output, defining the fields, their ordering, and data types.
+     */
+    void doInit() {
+        // Get an instance of SWE Factory suitable to build components
+        SWEHelper sweFactory = new SWEHelper();
+
+        // Create the data record description
+        dataRecord = sweFactory.createRecord()
+                .name(SENSOR_OUTPUT_NAME)
+                .label(SENSOR_OUTPUT_LABEL)
+                .description(SENSOR_OUTPUT_DESCRIPTION)
+                // Time of the observation
+                .addField("sampleTime", sweFactory.createTime()
+                        .asSamplingTimeIsoUTC()
+                        .label("Sample Time"))
+                .addField("numBodies", sweFactory.createCount()
+                        .label("Number of Bodies"))
+                .addField("bodies", sweFactory.createArray()
+                        .label("Body States")
+                        .description("Heliocentric state of each body, in catalog or configuration order.")
+                        .withFixedSize(numBodies)
+                        .withElement("state", sweFactory.createRecord()
+                                .addField("name", sweFactory.createText()
+                                        .label("Body Name"))
+                                .addField("x", sweFactory.createQuantity()
+                                        .label("Position i Component")
+                                        .uom("AU"))
+                                .addField("y", sweFactory.createQuantity()
+                                        .label("Position j Component")
+                                        .uom("AU"))
+                                .addField("z", sweFactory.createQuantity()
+                                        .label("Position k Component")
+                                        .uom("AU"))
+                                .addField("vx", sweFactory.createQuantity()
+                                        .label("Velocity i Component")
+                                        .uom("AU/TU"))
+                                .addField("vy", sweFactory.createQuantity()
+                                        .label("Velocity j Component")
+                                        .uom("AU/TU"))
+                                .addField("vz", sweFactory.createQuantity()
+                                        .label("Velocity k Component")
+                                        .uom("AU/TU"))
+                                .build()))
+                .build();
+
+        dataEncoding = sweFactory.newTextEncoding(",", "\n");
+    }
+
+    @Override
+    public DataComponent getRecordDescription() {
+        return dataRecord;
+    }
+
+    @Override
+    public DataEncoding getRecommendedEncoding() {
+        return dataEncoding;
+    }
+
+    @Override
+    public double getAverageSamplingPeriod() {
+        return publishStats.getAverageSamplingPeriod();
+    }
+
+    @Override
+    public PublishStatistics getPublishStatistics() {
+        return publishStats;
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        AsyncPublisher<DataEvent> p = publisher;
+        return p != null ? p.getDroppedRecords() : 0;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        AsyncPublisher<DataEvent> p = publisher;
+        return p != null ? p.getQueueDepth() : 0;
+    }
+
+    /**
+     * @return The publish queue, or {@code null} when records are published synchronously.
+     */
+    public AsyncPublisher<DataEvent> getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Starts the publish queue when asynchronous publishing is configured.
+     */
+    void start() {
+        Config config = parentSensor.getConfiguration();
+        if (config.asyncPublishing) {
+            publisher = new AsyncPublisher<>(parentSensor.getUniqueIdentifier() + "/" + getName(),
+                    config.publishQueueSize, config.publishQueuePolicy, this::dispatch);
+            publisher.start();
+        }
+    }
+
+    /**
+     * Publishes the records still queued and stops the publish queue.
+     */
+    void stop() {
+        AsyncPublisher<DataEvent> p = publisher;
+        if (p != null)
+            p.stop();
+    }
+
+    /**
+     * Sets the data for the output and publishes it.
+     */
+    public void setData(long timestamp, double[] x, double[] y, double[] z, double[] vx, double[] vy, double[] vz) {
+        synchronized (processingLock) {
+            long startNanos = System.nanoTime();
+            DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
+
+            // Populate the data block
+            dataBlock.setDoubleValue(0, timestamp / 1000d);
+            dataBlock.setIntValue(1, numBodies);
+
+            // Write the states straight into the array block rather than through the record's flat index
+            AbstractDataBlock states = ((DataBlockMixed) dataBlock).getUnderlyingObject()[2];
+            for (int k = 0, index = 0; k < numBodies; k++, index += STATE_SIZE) {
+                states.setStringValue(index, names[k]);
+                states.setDoubleValue(index + 1, x[k]);
+                states.setDoubleValue(index + 2, y[k]);
+                states.setDoubleValue(index + 3, z[k]);
+                states.setDoubleValue(index + 4, vx[k]);
+                states.setDoubleValue(index + 5, vy[k]);
+                states.setDoubleValue(index + 6, vz[k]);
+            }
+
+            // Publish the data block
+            latestRecord = dataBlock;
+            latestRecordTime = timestamp;
+            publish(new DataEvent(latestRecordTime, BodyStatesOutput.this, dataBlock), startNanos);
+        }
+    }
+
+    /**
+     * Publishes an event right away, or queues it when asynchronous publishing is configured.
+     */
+    private void publish(DataEvent event, long startNanos) {
+        AsyncPublisher<DataEvent> p = publisher;
+        if (p != null && p.isRunning())
+            p.submit(event, startNanos);
+        else
+            dispatch(event, startNanos);
+    }
+
+    private void dispatch(DataEvent event, long startNanos) {
+        eventHandler.publish(event);
+        publishStats.recordPublish(startNanos);
+    }
+}
@@ -0,0 +1,283 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ephemeris made of piecewise Chebyshev polynomials, in the style of the JPL DE files.
+ * <p>
+ * The time span is cut into intervals of equal length, and the position of each body over each interval is
+ * fitted with a Chebyshev series. Velocity is the derivative of that series. The coefficients are stored in a
+ * compact binary file which is memory-mapped when opened, so there is nothing to parse at startup and a lookup
+ * at any time of the span is a single polynomial evaluation.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * int    magic ('CHEB')
+ * int    version
+ * int    number of bodies
+ * int    degree of the polynomials
+ * int    number of intervals
+ * double start of the first interval [TU since J2000]
+ * double length of the intervals [TU]
+ * body names, each as a short length followed by UTF-8 bytes, zero padded to a multiple of 8 bytes
+ * double coefficients[body][interval][component x,y,z][degree + 1]
+ * </pre>
+ */
+public class ChebyshevEphemeris {
+    private static final int MAGIC = 0x43484542;
+    private static final int VERSION = 1;
+
+    // The fitted samples are solved much tighter than the sensor loop does, since differentiating the fit
+    // to get velocities amplifies any noise in them
+    private static final double FIT_TOLERANCE = 1e-12;
+
+    private final String[] names;
+    private final int degree;
+    private final int numIntervals;
+    private final double startTime;
+    private final double intervalLength;
+    private final DoubleBuffer coefficients;
+
+    private ChebyshevEphemeris(String[] names, int degree, int numIntervals, double startTime,
+                               double intervalLength, DoubleBuffer coefficients) {
+        this.names = names;
+        this.degree = degree;
+        this.numIntervals = numIntervals;
+        this.startTime = startTime;
+        this.intervalLength = intervalLength;
+        this.coefficients = coefficients;
+    }
+
+    /**
+     * Fits the orbits over the given time span and writes the resulting ephemeris file.
+     * The file is written next to its destination first and then moved in place.
+     *
+     * @param path Path of the ephemeris file.
+     * @param names Names of the bodies.
+     * @param orbits Orbit of each body, in the same order as the names.
+     * @param startTime Start of the time span [TU since J2000].
+     * @param endTime End of the time span [TU since J2000].
+     * @param intervalLength Length of each interval [TU].
+     * @param degree Degree of the Chebyshev polynomials.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, String[] names, OrbitModel[] orbits, double startTime, double endTime,
+                             double intervalLength, int degree) throws IOException {
+        int numIntervals = (int) Math.ceil((endTime - startTime) / intervalLength);
+        int numNodes = degree + 1;
+
+        // Chebyshev-Gauss nodes, and the cosine terms of the discrete Chebyshev transform
+        double[] nodes = new double[numNodes];
+        double[][] cosines = new double[numNodes][numNodes];
+        for (int j = 0; j < numNodes; j++) {
+            nodes[j] = Math.cos(Math.PI * (j + 0.5) / numNodes);
+            for (int k = 0; k < numNodes; k++)
+                cosines[k][j] = Math.cos(Math.PI * k * (j + 0.5) / numNodes);
+        }
+
+        Path tmpFile = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(names.length);
+            out.writeInt(degree);
+            out.writeInt(numIntervals);
+            out.writeDouble(startTime);
+            out.writeDouble(intervalLength);
+
+            int headerSize = 36;
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+                headerSize += 2 + bytes.length;
+            }
+            for (; headerSize % Double.BYTES != 0; headerSize++)
+                out.writeByte(0);
+
+            double[] r = new double[3];
+            double[] v = new double[3];
+            double[][] samples = new double[3][numNodes];
+            for (OrbitModel orbit : orbits) {
+                // Samples are solved in chronological order, each warm started from the previous one.
+                // The chain starts from the epoch, where the universal anomaly is zero, and walks to the start.
+                double chi = orbit.propagate(0, 0, FIT_TOLERANCE, r, v);
+                double previousTime = 0;
+                for (int step = 1; step <= Math.ceil(Math.abs(startTime) / intervalLength); step++) {
+                    double time = Math.signum(startTime) * Math.min(step * intervalLength, Math.abs(startTime));
+                    double rMag = Math.sqrt(r[0] * r[0] + r[1] * r[1] + r[2] * r[2]);
+                    chi = orbit.propagate(time, orbit.nextGuess(chi, rMag, time - previousTime), FIT_TOLERANCE, r, v);
+                    previousTime = time;
+                }
+
+                for (int n = 0; n < numIntervals; n++) {
+                    double intervalStart = startTime + n * intervalLength;
+                    for (int j = numNodes - 1; j >= 0; j--) {
+                        double time = intervalStart + (nodes[j] + 1) * intervalLength / 2;
+                        double rMag = Math.sqrt(r[0] * r[0] + r[1] * r[1] + r[2] * r[2]);
+                        chi = orbit.propagate(time, orbit.nextGuess(chi, rMag, time - previousTime), FIT_TOLERANCE, r, v);
+                        previousTime = time;
+                        samples[0][j] = r[0];
+                        samples[1][j] = r[1];
+                        samples[2][j] = r[2];
+                    }
+
+                    for (int c = 0; c < 3; c++) {
+                        for (int k = 0; k < numNodes; k++) {
+                            double sum = 0;
+                            for (int j = 0; j < numNodes; j++)
+                                sum += samples[c][j] * cosines[k][j];
+                            out.writeDouble((k == 0 ? 1.0 : 2.0) * sum / numNodes);
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memory-maps an ephemeris file.
+     *
+     * @param path Path of the ephemeris file.
+     * @return The ephemeris backed by the mapped file.
+     * @throws IOException if the file cannot be mapped or is not an ephemeris file.
+     */
+    public static ChebyshevEphemeris open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC)
+            throw new IOException("Not an ephemeris file: " + path);
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported ephemeris file version " + version + ": " + path);
+
+        int numBodies = buffer.getInt();
+        int degree = buffer.getInt();
+        int numIntervals = buffer.getInt();
+        double startTime = buffer.getDouble();
+        double intervalLength = buffer.getDouble();
+
+        String[] names = new String[numBodies];
+        for (int b = 0; b < numBodies; b++) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+            names[b] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position((buffer.position() + Double.BYTES - 1) / Double.BYTES * Double.BYTES);
+
+        ByteBuffer data = buffer.slice();
+        long expectedSize = (long) numBodies * numIntervals * 3 * (degree + 1) * Double.BYTES;
+        if (data.remaining() != expectedSize)
+            throw new IOException("Truncated ephemeris file: " + path);
+
+        return new ChebyshevEphemeris(names, degree, numIntervals, startTime, intervalLength, data.asDoubleBuffer());
+    }
+
+    /**
+     * Evaluates the position and velocity of a body. No objects are allocated.
+     *
+     * @param body Index of the body, see {@link #indexOf(String)}.
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @param rOut Array receiving the position vector [AU].
+     * @param vOut Array receiving the velocity vector [AU/TU].
+     * @return {@code false} if the time is outside of the span covered by the ephemeris.
+     */
+    public boolean evaluate(int body, double time, double[] rOut, double[] vOut) {
+        double offset = (time - startTime) / intervalLength;
+        if (offset < 0 || offset > numIntervals)
+            return false;
+
+        int interval = Math.min((int) offset, numIntervals - 1);
+        double tau = 2 * (offset - interval) - 1;
+
+        int numCoefs = degree + 1;
+        int base = (body * numIntervals + interval) * 3 * numCoefs;
+
+        // Forward recurrence on T_k and its derivative
+        double t0 = 1, t1 = tau;
+        double dt0 = 0, dt1 = 1;
+        double x = coefficients.get(base), y = coefficients.get(base + numCoefs), z = coefficients.get(base + 2 * numCoefs);
+        double vx = 0, vy = 0, vz = 0;
+        for (int k = 1; k < numCoefs; k++) {
+            double tk, dtk;
+            if (k == 1) {
+                tk = t1;
+                dtk = dt1;
+            }
+            else {
+                tk = 2 * tau * t1 - t0;
+                dtk = 2 * t1 + 2 * tau * dt1 - dt0;
+                t0 = t1;
+                t1 = tk;
+                dt0 = dt1;
+                dt1 = dtk;
+            }
+
+            double cx = coefficients.get(base + k);
+            double cy = coefficients.get(base + numCoefs + k);
+            double cz = coefficients.get(base + 2 * numCoefs + k);
+            x += cx * tk;
+            y += cy * tk;
+            z += cz * tk;
+            vx += cx * dtk;
+            vy += cy * dtk;
+            vz += cz * dtk;
+        }
+
+        // d(tau)/dt = 2 / intervalLength
+        double scale = 2 / intervalLength;
+        rOut[0] = x;
+        rOut[1] = y;
+        rOut[2] = z;
+        vOut[0] = vx * scale;
+        vOut[1] = vy * scale;
+        vOut[2] = vz * scale;
+        return true;
+    }
+
+    /**
+     * @param name Name of a body, case insensitive.
+     * @return The index of the body in this ephemeris, or -1 if it is not included.
+     */
+    public int indexOf(String name) {
+        for (int b = 0; b < names.length; b++) {
+            if (names[b].equalsIgnoreCase(name))
+                return b;
+        }
+        return -1;
+    }
+
+    public double getStartTime() {
+        return startTime;
+    }
+
+    public double getEndTime() {
+        return startTime + numIntervals * intervalLength;
+    }
+}
@@ -11,9 +11,14 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.georobotix.impl.sensor.PlanetaryPositions;
 
+import com.georobotix.impl.sensor.helpers.AsyncPublisher;
+import com.georobotix.impl.sensor.helpers.PeriodicAcquisition;
 import org.sensorhub.api.config.DisplayInfo;
 import org.sensorhub.api.sensor.SensorConfig;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration settings for the {@link PlanetPositionSensor} driver exposed via the OpenSensorHub Admin panel.
  * <p>
@@ -41,4 +46,143 @@ public class Config extends SensorConfig {
     @DisplayInfo.Required
     @DisplayInfo(desc = "Name of the planet that you want to get observations for.")
     public String planetNameConfig;
+
+    /**
+     * Optional list of planets published together by this sensor.
+     */
+    @DisplayInfo(label = "Planet Names", desc = "Planets to publish together in a single output, or 'all' for every "
+            + "known planet. When set, the planet name is ignored.")
+    public List<String> planetNames = new ArrayList<>();
+
+    /**
+     * Time between two samples.
+     */
+    @DisplayInfo(label = "Sampling Period", desc = "Time between two samples in milliseconds.")
+    public int samplingPeriod = 100;
+
+    /**
+     * What to do when computing a sample takes longer than the sampling period.
+     */
+    @DisplayInfo(label = "Overrun Policy", desc = "SKIP drops the samples whose time has passed, "
+            + "CATCH_UP computes them late, back to back. Not used with the shared scheduler.")
+    public PeriodicAcquisition.OverrunPolicy overrunPolicy = PeriodicAcquisition.OverrunPolicy.SKIP;
+
+    /**
+     * Whether the planet output recommends a binary encoding rather than text.
+     */
+    @DisplayInfo(label = "Binary Encoding", desc = "Encode the planet output as raw big-endian doubles, with the planet "
+            + "identified by its index, instead of comma-separated text. Text remains available on request.")
+    public boolean binaryEncoding = false;
+
+    /**
+     * Minimum change of position since the last published sample for a new sample to be published.
+     */
+    @DisplayInfo(label = "Position Dead-Band", desc = "Publish a sample only when the position moved by more than "
+            + "this distance in AU since the last published sample. 0 disables the position check.")
+    public double positionDeadBand = 0;
+
+    /**
+     * Minimum change of velocity since the last published sample for a new sample to be published.
+     */
+    @DisplayInfo(label = "Velocity Dead-Band", desc = "Publish a sample only when the velocity changed by more than "
+            + "this amount in AU/TU since the last published sample. 0 disables the velocity check.")
+    public double velocityDeadBand = 0;
+
+    /**
+     * Maximum time without publishing when a dead-band is set.
+     */
+    @DisplayInfo(label = "Max Silence Period", desc = "Maximum time in milliseconds between two published samples "
+            + "when a dead-band is set.")
+    public int maxSilencePeriod = 60000;
+
+    /**
+     * Whether the sensor is driven by the node-wide {@link EphemerisScheduler} rather than its own thread.
+     */
+    @DisplayInfo(label = "Use Shared Scheduler", desc = "Compute samples on the scheduler thread shared by all planet "
+            + "sensors, time-aligned with the other planets, instead of on a dedicated thread.")
+    public boolean useSharedScheduler = true;
+
+    /**
+     * Whether missing samples since the last stored one are generated when the sensor starts.
+     */
+    @DisplayInfo(label = "Backfill On Start", desc = "Generate the samples missed while the sensor was stopped "
+            + "and store them in the sensor database when it starts.")
+    public boolean backfillOnStart = false;
+
+    /**
+     * Number of samples computed and committed together when backfilling.
+     */
+    @DisplayInfo(label = "Backfill Chunk Size", desc = "Number of samples computed and committed together when backfilling.")
+    public int backfillChunkSize = 10000;
+
+    /**
+     * Optional catalog of orbital elements. When set, the sensor runs in catalog mode and propagates
+     * every body of the catalog instead of a single planet.
+     */
+    @DisplayInfo(label = "Catalog File", desc = "Optional CSV file of J2000 orbital elements (name,a,e,i,RAAN,omega,theta). "
+            + "When set, every body of the catalog is propagated and the planet name is ignored.")
+    @DisplayInfo.FieldType(DisplayInfo.FieldType.Type.FILESYSTEM_PATH)
+    public String catalogFile;
+
+    /**
+     * Number of worker threads used to propagate the catalog.
+     */
+    @DisplayInfo(label = "Catalog Parallelism", desc = "Number of threads propagating the catalog. "
+            + "0 uses the common fork/join pool, 1 propagates on the acquisition thread.")
+    public int catalogParallelism = 0;
+
+    /**
+     * Optional Chebyshev ephemeris file. It is generated for all planets on first use and memory-mapped afterwards.
+     */
+    @DisplayInfo(label = "Ephemeris File", desc = "Optional Chebyshev ephemeris file. When set, positions are evaluated "
+            + "from the ephemeris within its time span. The file is generated if it does not exist.")
+    @DisplayInfo.FieldType(DisplayInfo.FieldType.Type.FILESYSTEM_PATH)
+    public String ephemerisFile;
+
+    @DisplayInfo(label = "Ephemeris Start Year", desc = "First year covered when generating the ephemeris file.")
+    public int ephemerisStartYear = 1950;
+
+    @DisplayInfo(label = "Ephemeris End Year", desc = "Last year covered when generating the ephemeris file.")
+    public int ephemerisEndYear = 2050;
+
+    @DisplayInfo(label = "Ephemeris Interval", desc = "Length of each polynomial interval in days when generating the ephemeris file.")
+    public double ephemerisIntervalDays = 8;
+
+    @DisplayInfo(label = "Ephemeris Degree", desc = "Degree of the Chebyshev polynomials when generating the ephemeris file.")
+    public int ephemerisDegree = 12;
+
+    /**
+     * Whether the acquisition loop runs on a virtual thread.
+     */
+    @DisplayInfo(label = "Use Virtual Threads", desc = "Run the acquisition loop on a virtual thread when the runtime "
+            + "supports them (Java 21 or later), otherwise on a platform thread.")
+    public boolean useVirtualThreads = false;
+
+    /**
+     * Time between two reports of the health outputs.
+     */
+    @DisplayInfo(label = "Health Report Period", desc = "Time between two reports of the publish rate, latency "
+            + "and drop counters of each output, and of the deadline misses and jitter of the acquisition loop, "
+            + "in seconds. 0 disables the health outputs.")
+    public int healthReportPeriod = 0;
+
+    /**
+     * Whether records are published from a dispatcher thread rather than the acquisition thread.
+     */
+    @DisplayInfo(label = "Asynchronous Publishing", desc = "Queue records and publish them from a separate thread, "
+            + "so that slow subscribers such as storage do not stall acquisition.")
+    public boolean asyncPublishing = false;
+
+    /**
+     * What to do when the publish queue is full.
+     */
+    @DisplayInfo(label = "Publish Queue Policy", desc = "BLOCK waits for room, DROP_OLDEST discards the oldest "
+            + "queued record, LATEST_ONLY only keeps the most recent record.")
+    public AsyncPublisher.Policy publishQueuePolicy = AsyncPublisher.Policy.DROP_OLDEST;
+
+    /**
+     * Maximum number of queued records.
+     */
+    @DisplayInfo(label = "Publish Queue Size", desc = "Maximum number of records waiting to be published.")
+    public int publishQueueSize = 16;
 }
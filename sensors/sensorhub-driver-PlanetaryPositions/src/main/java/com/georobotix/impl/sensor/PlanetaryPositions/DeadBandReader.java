@@ -0,0 +1,142 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import net.opengis.swe.v20.DataBlock;
+import org.sensorhub.api.common.SensorHubException;
+import org.sensorhub.api.data.IObsData;
+import org.sensorhub.api.database.IObsSystemDatabase;
+import org.sensorhub.api.datastore.obs.DataStreamKey;
+import org.sensorhub.api.datastore.obs.ObsFilter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the samples of a time range back from the database of the sensor, reconstructing those dropped by the
+ * dead-band of {@link PlanetPositionOutput}.
+ * <p>
+ * Stored samples are read from one maximum silence period before the range to one after it, so that both stored
+ * neighbours of every sampling epoch in the range are found. Epochs between two stored samples are interpolated
+ * with {@link HermiteInterpolator}, epochs before the first or after the last stored sample are left out.
+ */
+class DeadBandReader {
+    private final PlanetPositionSensor sensor;
+
+    /**
+     * @param sensor Sensor whose samples are read.
+     */
+    DeadBandReader(PlanetPositionSensor sensor) {
+        this.sensor = sensor;
+    }
+
+    /**
+     * Reads the samples of a time range.
+     *
+     * @param start Time of the first sample.
+     * @param end Time after which no sample is returned.
+     * @param period Time between samples [ms].
+     * @return The stored and reconstructed samples of the range, in chronological order.
+     * @throws SensorHubException if the sensor has no database or no datastream to read from.
+     */
+    List<DataBlock> read(Instant start, Instant end, long period) throws SensorHubException {
+        String uid = sensor.getUniqueIdentifier();
+        IObsSystemDatabase db = sensor.getParentHub().getSystemDriverRegistry().getDatabase(uid);
+        if (db == null)
+            throw new SensorHubException("No database is configured for " + uid);
+
+        DataStreamKey dsKey = db.getDataStreamStore().getLatestVersionKey(uid, PlanetPositionOutput.SENSOR_OUTPUT_NAME);
+        if (dsKey == null)
+            throw new SensorHubException("No datastream is registered for output " + PlanetPositionOutput.SENSOR_OUTPUT_NAME);
+
+        long margin = sensor.getConfiguration().maxSilencePeriod;
+        ObsFilter filter = new ObsFilter.Builder()
+                .withDataStreams(dsKey.getInternalID())
+                .withPhenomenonTimeDuring(start.minusMillis(margin), end.plusMillis(margin))
+                .build();
+
+        List<DataBlock> stored;
+        try (Stream<IObsData> obs = db.getObservationStore().select(filter)) {
+            stored = obs.sorted(Comparator.comparing(IObsData::getPhenomenonTime))
+                    .map(IObsData::getResult)
+                    .collect(Collectors.toList());
+        }
+
+        return fillGaps(stored, start.toEpochMilli(), end.toEpochMilli(), period);
+    }
+
+    /**
+     * Adds the samples missing between stored ones.
+     *
+     * @param stored Stored samples in chronological order.
+     * @param first Time of the first sample to return [ms since the Unix epoch].
+     * @param last Time after which no sample is returned [ms since the Unix epoch].
+     * @param period Time between samples [ms], stored samples fall on multiples of it from each other.
+     * @return The stored and reconstructed samples between first and last, in chronological order.
+     */
+    static List<DataBlock> fillGaps(List<DataBlock> stored, long first, long last, long period) {
+        List<DataBlock> samples = new ArrayList<>();
+        double[] r0 = new double[3], v0 = new double[3];
+        double[] r1 = new double[3], v1 = new double[3];
+        double[] r = new double[3], v = new double[3];
+
+        for (int k = 0; k < stored.size(); k++) {
+            DataBlock before = stored.get(k);
+            long t0 = timeOf(before);
+            if (t0 > last)
+                break;
+            if (t0 >= first)
+                samples.add(before);
+            if (k == stored.size() - 1)
+                break;
+
+            DataBlock after = stored.get(k + 1);
+            long t1 = timeOf(after);
+            if (t1 - t0 <= period || t1 < first)
+                continue;
+
+            readState(before, r0, v0);
+            readState(after, r1, v1);
+
+            // Skip the epochs before the range without walking through them
+            long t = t0 + Math.max(1, (first - t0 + period - 1) / period) * period;
+            for (; t < t1 && t <= last; t += period) {
+                HermiteInterpolator.interpolate(t0, r0, v0, t1, r1, v1, t, r, v);
+
+                // Copy of the sample before, so that the body field is kept whatever the encoding
+                DataBlock sample = before.clone();
+                sample.setDoubleValue(0, t / 1000d);
+                for (int c = 0; c < 3; c++) {
+                    sample.setDoubleValue(2 + c, r[c]);
+                    sample.setDoubleValue(5 + c, v[c]);
+                }
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    private static long timeOf(DataBlock dataBlock) {
+        return Math.round(dataBlock.getDoubleValue(0) * 1000);
+    }
+
+    private static void readState(DataBlock dataBlock, double[] r, double[] v) {
+        for (int c = 0; c < 3; c++) {
+            r[c] = dataBlock.getDoubleValue(2 + c);
+            v[c] = dataBlock.getDoubleValue(5 + c);
+        }
+    }
+}
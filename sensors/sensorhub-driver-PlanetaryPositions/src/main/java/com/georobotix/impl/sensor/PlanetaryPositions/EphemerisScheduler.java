@@ -0,0 +1,157 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide scheduler driving every planet sensor from a single thread.
+ * <p>
+ * Listeners registered with the same period are called one after the other with the same sample time, so all
+ * bodies are computed at exactly the same epoch. Ticks are aligned on multiples of the period since the Unix
+ * epoch, which also keeps listeners with different periods aligned whenever their ticks coincide. Ticks delayed
+ * by a stall are run back to back afterwards, each with the epoch it was due at, so every epoch gets a sample.
+ * <p>
+ * The scheduler thread is started with the first registration and stopped when the last listener unregisters.
+ */
+public final class EphemerisScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(EphemerisScheduler.class);
+    private static final EphemerisScheduler INSTANCE = new EphemerisScheduler();
+
+    /**
+     * Callback computing and publishing a sample for a given time.
+     */
+    public interface Listener {
+        /**
+         * @param sampleTime Time of the sample in ms since the Unix epoch, the same for all listeners of a tick.
+         */
+        void onTick(long sampleTime);
+    }
+
+    private final Map<Long, TickGroup> groups = new HashMap<>();
+    private ScheduledExecutorService executor;
+
+    private EphemerisScheduler() {
+    }
+
+    public static EphemerisScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a listener to be called at a fixed period.
+     *
+     * @param period Time between two ticks [ms].
+     * @param listener Listener to call on each tick.
+     */
+    public synchronized void register(long period, Listener listener) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "EphemerisScheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        TickGroup group = groups.get(period);
+        if (group == null) {
+            long now = System.currentTimeMillis();
+            long initialDelay = period - now % period;
+            group = new TickGroup(period, now + initialDelay);
+            group.future = executor.scheduleAtFixedRate(group, initialDelay, period, TimeUnit.MILLISECONDS);
+            groups.put(period, group);
+        }
+        group.listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener. Does nothing if the listener is not registered.
+     *
+     * @param listener Listener to remove.
+     */
+    public synchronized void unregister(Listener listener) {
+        groups.values().removeIf(group -> {
+            group.listeners.remove(listener);
+            if (group.listeners.isEmpty()) {
+                group.future.cancel(false);
+                return true;
+            }
+            return false;
+        });
+
+        if (groups.isEmpty() && executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return The number of registered listeners.
+     */
+    public synchronized int getNumListeners() {
+        int count = 0;
+        for (TickGroup group : groups.values())
+            count += group.listeners.size();
+        return count;
+    }
+
+    private static class TickGroup implements Runnable {
+        private final long period;
+        private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        private ScheduledFuture<?> future;
+        private long firstSampleTime;
+        private long runs;
+        private long lastSampleTime = Long.MIN_VALUE;
+
+        TickGroup(long period, long firstSampleTime) {
+            this.period = period;
+            this.firstSampleTime = firstSampleTime;
+        }
+
+        @Override
+        public void run() {
+            // Run n of the fixed rate schedule is due n periods after the first one. Using its due epoch rather than
+            // the wall clock keeps early or late wake-ups on the grid, and gives ticks caught up after a stall the
+            // epochs they were due at.
+            long sampleTime = firstSampleTime + runs++ * period;
+            long now = System.currentTimeMillis();
+            if (sampleTime > now) {
+                // The wall clock was set back or drifted from the scheduler clock, resync on the last epoch reached
+                long resynced = now / period * period;
+                firstSampleTime = resynced - (runs - 1) * period;
+                if (resynced <= lastSampleTime)
+                    return;
+                sampleTime = resynced;
+            }
+            lastSampleTime = sampleTime;
+
+            for (Listener listener : listeners) {
+                // An exception escaping the task would cancel all further ticks of the group
+                try {
+                    listener.onTick(sampleTime);
+                } catch (RuntimeException e) {
+                    logger.error("Error while computing ephemeris sample", e);
+                }
+            }
+        }
+    }
+}
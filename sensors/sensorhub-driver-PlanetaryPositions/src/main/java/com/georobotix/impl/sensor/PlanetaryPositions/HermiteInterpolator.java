@@ -0,0 +1,60 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+/**
+ * Reconstructs the samples skipped by a dead-band output from the two published samples around them.
+ * <p>
+ * Published samples carry both position and velocity, so the position between them is interpolated with a
+ * cubic Hermite polynomial matching both at each end, and the velocity is the derivative of that polynomial.
+ */
+public final class HermiteInterpolator {
+    private HermiteInterpolator() {
+    }
+
+    /**
+     * Interpolates the state at a time between two published samples.
+     *
+     * @param t0 Time of the sample before [ms since the Unix epoch].
+     * @param r0 Position of the sample before [AU].
+     * @param v0 Velocity of the sample before [AU/TU].
+     * @param t1 Time of the sample after [ms since the Unix epoch].
+     * @param r1 Position of the sample after [AU].
+     * @param v1 Velocity of the sample after [AU/TU].
+     * @param t Time to interpolate at, between t0 and t1 [ms since the Unix epoch].
+     * @param rOut Array receiving the interpolated position [AU].
+     * @param vOut Array receiving the interpolated velocity [AU/TU].
+     */
+    public static void interpolate(long t0, double[] r0, double[] v0, long t1, double[] r1, double[] v1,
+                                   long t, double[] rOut, double[] vOut) {
+        // Velocities are per TU, so the interval is expressed in TU too
+        double h = Planet.durationToTimeUnits(t1 - t0);
+        double s = (double) (t - t0) / (t1 - t0);
+        double s2 = s * s;
+        double s3 = s2 * s;
+
+        // Hermite basis functions and their derivatives with respect to s
+        double h00 = 2 * s3 - 3 * s2 + 1;
+        double h10 = s3 - 2 * s2 + s;
+        double h01 = -2 * s3 + 3 * s2;
+        double h11 = s3 - s2;
+        double dh00 = 6 * s2 - 6 * s;
+        double dh10 = 3 * s2 - 4 * s + 1;
+        double dh01 = -6 * s2 + 6 * s;
+        double dh11 = 3 * s2 - 2 * s;
+
+        for (int c = 0; c < 3; c++) {
+            rOut[c] = h00 * r0[c] + h10 * h * v0[c] + h01 * r1[c] + h11 * h * v1[c];
+            vOut[c] = (dh00 * r0[c] + dh01 * r1[c]) / h + dh10 * v0[c] + dh11 * v1[c];
+        }
+    }
+}
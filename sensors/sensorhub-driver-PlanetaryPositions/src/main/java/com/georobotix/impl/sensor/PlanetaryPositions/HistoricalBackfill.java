@@ -0,0 +1,190 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import net.opengis.swe.v20.DataBlock;
+import org.sensorhub.api.common.BigId;
+import org.sensorhub.api.common.SensorHubException;
+import org.sensorhub.api.data.ObsData;
+import org.sensorhub.api.database.IObsSystemDatabase;
+import org.sensorhub.api.datastore.obs.DataStreamKey;
+import org.sensorhub.api.datastore.obs.IObsStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Generates the samples of a past time range and inserts them straight into the database of the sensor.
+ * <p>
+ * The range is cut into chunks of consecutive samples which are computed in parallel, each with a single
+ * warm-started batch propagation (or ephemeris lookups when the range is covered). Chunks are then inserted
+ * in chronological order and the database is committed once per chunk. No {@code DataEvent} is published for
+ * backfilled samples.
+ */
+class HistoricalBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalBackfill.class);
+
+    /**
+     * Destination of the backfilled samples.
+     */
+    interface Sink {
+        /**
+         * Stores and commits a chunk of samples.
+         *
+         * @param dataBlocks Samples of the chunk, in chronological order.
+         */
+        void store(DataBlock[] dataBlocks);
+    }
+
+    private final PlanetPositionSensor sensor;
+    private final int chunkSize;
+    private volatile boolean cancelled;
+
+    /**
+     * @param sensor Sensor to generate samples for.
+     * @param chunkSize Number of samples computed and committed together.
+     */
+    HistoricalBackfill(PlanetPositionSensor sensor, int chunkSize) {
+        this.sensor = sensor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Generates and stores the samples of a time range.
+     *
+     * @param start Time of the first sample.
+     * @param end Time after which no sample is generated.
+     * @param period Time between samples [ms].
+     * @return The number of samples stored.
+     * @throws SensorHubException if the sensor has no database or no datastream to write to.
+     */
+    long run(Instant start, Instant end, long period) throws SensorHubException {
+        String uid = sensor.getUniqueIdentifier();
+        IObsSystemDatabase db = sensor.getParentHub().getSystemDriverRegistry().getDatabase(uid);
+        if (db == null)
+            throw new SensorHubException("No database is configured for " + uid);
+
+        DataStreamKey dsKey = db.getDataStreamStore().getLatestVersionKey(uid, PlanetPositionOutput.SENSOR_OUTPUT_NAME);
+        if (dsKey == null)
+            throw new SensorHubException("No datastream is registered for output " + PlanetPositionOutput.SENSOR_OUTPUT_NAME);
+        BigId dataStreamId = dsKey.getInternalID();
+        IObsStore obsStore = db.getObservationStore();
+
+        return run(start, end, period, dataBlocks -> {
+            for (DataBlock dataBlock : dataBlocks) {
+                long timestamp = Math.round(dataBlock.getDoubleValue(0) * 1000);
+                obsStore.add(new ObsData.Builder()
+                        .withDataStream(dataStreamId)
+                        .withPhenomenonTime(Instant.ofEpochMilli(timestamp))
+                        .withResult(dataBlock)
+                        .build());
+            }
+            db.commit();
+        });
+    }
+
+    /**
+     * Generates the samples of a time range and hands them over chunk by chunk.
+     *
+     * @param start Time of the first sample.
+     * @param end Time after which no sample is generated.
+     * @param period Time between samples [ms].
+     * @param sink Destination of the chunks, called in chronological order from the calling thread.
+     * @return The number of samples stored.
+     */
+    long run(Instant start, Instant end, long period, Sink sink) {
+        long first = start.toEpochMilli();
+        long last = end.toEpochMilli();
+        if (last < first)
+            return 0;
+
+        long numSamples = (last - first) / period + 1;
+        long numChunks = (numSamples + chunkSize - 1) / chunkSize;
+        logger.info("Backfilling {} samples from {} to {}", numSamples, start, end);
+
+        // Workers only renew this block, they never touch the record structure
+        DataBlock template = sensor.output.getRecordDescription().createDataBlock();
+
+        // Keep about one chunk in flight per worker so memory stays bounded whatever the range
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int window = Math.max(1, pool.getParallelism());
+        long stored = 0;
+
+        for (long chunk = 0; chunk < numChunks && !cancelled; chunk += window) {
+            List<CompletableFuture<DataBlock[]>> futures = new ArrayList<>(window);
+            for (long c = chunk; c < Math.min(chunk + window, numChunks); c++) {
+                long chunkStart = first + c * chunkSize * period;
+                int count = (int) Math.min(chunkSize, numSamples - c * chunkSize);
+                futures.add(CompletableFuture.supplyAsync(() -> computeChunk(template, chunkStart, count, period), pool));
+            }
+
+            for (CompletableFuture<DataBlock[]> future : futures) {
+                DataBlock[] dataBlocks = future.join();
+                sink.store(dataBlocks);
+                stored += dataBlocks.length;
+            }
+        }
+
+        logger.info("Backfill stored {} samples", stored);
+        return stored;
+    }
+
+    /**
+     * Asks a running backfill to stop after the chunks in flight.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    private DataBlock[] computeChunk(DataBlock template, long chunkStart, int count, long period) {
+        long[] timestamps = new long[count];
+        for (int k = 0; k < count; k++)
+            timestamps[k] = chunkStart + k * period;
+
+        double[] x = new double[count], y = new double[count], z = new double[count];
+        double[] vx = new double[count], vy = new double[count], vz = new double[count];
+
+        ChebyshevEphemeris ephemeris = sensor.ephemeris;
+        int body = sensor.ephemerisBody;
+        if (body >= 0 && Planet.toTimeUnits(timestamps[0]) >= ephemeris.getStartTime()
+                && Planet.toTimeUnits(timestamps[count - 1]) <= ephemeris.getEndTime()) {
+            double[] r = new double[3];
+            double[] v = new double[3];
+            for (int k = 0; k < count; k++) {
+                ephemeris.evaluate(body, Planet.toTimeUnits(timestamps[k]), r, v);
+                x[k] = r[0];
+                y[k] = r[1];
+                z[k] = r[2];
+                vx[k] = v[0];
+                vy[k] = v[1];
+                vz[k] = v[2];
+            }
+        }
+        else {
+            sensor.sensorPlanet.propagate(timestamps, x, y, z, vx, vy, vz);
+        }
+
+        String planetName = sensor.sensorPlanet.getPlanetName();
+        DataBlock[] dataBlocks = new DataBlock[count];
+        for (int k = 0; k < count; k++) {
+            dataBlocks[k] = template.renew();
+            sensor.output.fillDataBlock(dataBlocks[k], timestamps[k], planetName,
+                    x[k], y[k], z[k], vx[k], vy[k], vz[k]);
+        }
+        return dataBlocks;
+    }
+}
@@ -0,0 +1,249 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Catalog of heliocentric orbits propagated together, for small-body workloads with thousands of entries.
+ * <p>
+ * The epoch invariant terms of every body are kept in primitive struct-of-arrays form, and so are the
+ * propagated states. Propagation splits the catalog into ranges processed in parallel on a fork/join pool,
+ * and each body warm starts from the universal anomaly it converged to on the previous call.
+ * <p>
+ * A catalog file is a CSV file with one body per line and the columns
+ * {@code name, a [AU], e, i [deg], RAAN [deg], omega [deg], theta [deg]}, i.e. the same J2000 elements used by
+ * {@link Planet}. Empty lines, lines starting with {@code #} and a header line starting with {@code name} are
+ * ignored.
+ */
+public class OrbitCatalog {
+    private static final double MU = 1;
+    private static final int MIN_RANGE_SIZE = 1024;
+
+    private final int size;
+    private final String[] names;
+
+    // Epoch invariant terms
+    private final double[] r0x, r0y, r0z;
+    private final double[] v0x, v0y, v0z;
+    private final double[] r0Mag;
+    private final double[] sigma0;
+    private final double[] alpha;
+
+    // Propagated states
+    private final double[] x, y, z;
+    private final double[] vx, vy, vz;
+    private final double[] chi;
+    private double lastTime = Double.NaN;
+
+    /**
+     * Creates a catalog from J2000 orbital elements. All arrays must have the same length.
+     */
+    public OrbitCatalog(String[] names, double[] a, double[] e, double[] i, double[] raan, double[] omega,
+                        double[] theta) {
+        this.size = names.length;
+        this.names = names.clone();
+
+        r0x = new double[size];
+        r0y = new double[size];
+        r0z = new double[size];
+        v0x = new double[size];
+        v0y = new double[size];
+        v0z = new double[size];
+        r0Mag = new double[size];
+        sigma0 = new double[size];
+        alpha = new double[size];
+
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        vx = new double[size];
+        vy = new double[size];
+        vz = new double[size];
+        chi = new double[size];
+
+        double sqrtMu = Math.sqrt(MU);
+        double[] r = new double[3];
+        double[] v = new double[3];
+        for (int k = 0; k < size; k++) {
+            OrbitModel.elementsToState(MU, a[k], e[k], i[k], raan[k], omega[k], theta[k], r, v);
+            r0x[k] = r[0];
+            r0y[k] = r[1];
+            r0z[k] = r[2];
+            v0x[k] = v[0];
+            v0y[k] = v[1];
+            v0z[k] = v[2];
+
+            r0Mag[k] = Math.sqrt(r[0] * r[0] + r[1] * r[1] + r[2] * r[2]);
+            double v2 = v[0] * v[0] + v[1] * v[1] + v[2] * v[2];
+            sigma0[k] = (r[0] * v[0] + r[1] * v[1] + r[2] * v[2]) / sqrtMu;
+            alpha[k] = 2.0 / r0Mag[k] - v2 / MU; // vis-viva
+        }
+    }
+
+    /**
+     * Loads a catalog from a CSV file, see the class description for the expected format.
+     *
+     * @param path Path of the catalog file.
+     * @return The loaded catalog.
+     * @throws IOException if the file cannot be read or a line cannot be parsed.
+     */
+    public static OrbitCatalog load(Path path) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<double[]> elements = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.toLowerCase().startsWith("name"))
+                    continue;
+
+                String[] tokens = line.split(",");
+                if (tokens.length != 7)
+                    throw new IOException("Expected 7 columns at line " + lineNumber + " of " + path);
+
+                double[] values = new double[6];
+                try {
+                    for (int k = 0; k < 6; k++)
+                        values[k] = Double.parseDouble(tokens[k + 1].trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid orbital element at line " + lineNumber + " of " + path, e);
+                }
+                names.add(tokens[0].trim());
+                elements.add(values);
+            }
+        }
+
+        int n = names.size();
+        double[][] columns = new double[6][n];
+        for (int k = 0; k < n; k++) {
+            double[] values = elements.get(k);
+            for (int c = 0; c < 6; c++)
+                columns[c][k] = values[c];
+        }
+
+        return new OrbitCatalog(names.toArray(new String[0]),
+                columns[0], columns[1], columns[2], columns[3], columns[4], columns[5]);
+    }
+
+    /**
+     * Propagates every body of the catalog to the given time.
+     *
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @param pool Pool to run the propagation on, or {@code null} to run it on the calling thread.
+     */
+    public void propagate(double time, ForkJoinPool pool) {
+        if (pool == null || size <= MIN_RANGE_SIZE)
+            propagateRange(0, size, time);
+        else
+            pool.invoke(new PropagationTask(0, size, time));
+
+        lastTime = time;
+    }
+
+    private void propagateRange(int from, int to, double time) {
+        final double sqrtMu = Math.sqrt(MU);
+        final boolean warmStart = !Double.isNaN(lastTime);
+        final double dt = time - lastTime;
+        double[] r = new double[3];
+        double[] v = new double[3];
+
+        for (int k = from; k < to; k++) {
+            double guess;
+            if (warmStart) {
+                double rMag = Math.sqrt(x[k] * x[k] + y[k] * y[k] + z[k] * z[k]);
+                guess = chi[k] + sqrtMu * dt / rMag;
+            }
+            else {
+                guess = sqrtMu * time * alpha[k];
+            }
+
+            chi[k] = OrbitModel.propagate(time, guess,
+                    r0x[k], r0y[k], r0z[k], v0x[k], v0y[k], v0z[k],
+                    r0Mag[k], sigma0[k], alpha[k], sqrtMu, OrbitModel.TOLERANCE, r, v);
+
+            x[k] = r[0];
+            y[k] = r[1];
+            z[k] = r[2];
+            vx[k] = v[0];
+            vy[k] = v[1];
+            vz[k] = v[2];
+        }
+    }
+
+    private class PropagationTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final double time;
+
+        PropagationTask(int from, int to, double time) {
+            this.from = from;
+            this.to = to;
+            this.time = time;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_RANGE_SIZE) {
+                propagateRange(from, to, time);
+            }
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PropagationTask(from, mid, time), new PropagationTask(mid, to, time));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    // Propagated states, valid after a call to propagate()
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getY() {
+        return y;
+    }
+
+    public double[] getZ() {
+        return z;
+    }
+
+    public double[] getVx() {
+        return vx;
+    }
+
+    public double[] getVy() {
+        return vy;
+    }
+
+    public double[] getVz() {
+        return vz;
+    }
+}
@@ -0,0 +1,272 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+/**
+ * Immutable two-body orbit built from the J2000 state vectors of a body.
+ * <p>
+ * Every quantity that does not depend on the propagation time is computed once in the constructor,
+ * so {@link #propagate(double, double[], double[])} only pays for the universal variable iteration.
+ */
+public final class OrbitModel {
+    // Universal variable solver settings
+    static final double TOLERANCE = Math.pow(10, -7);
+    static final int MAX_ITERATIONS = 10;
+
+    final double mu;
+    final double sqrtMu;
+
+    // State vectors at the J2000 epoch in the IJK reference frame
+    final double r0x, r0y, r0z;
+    final double v0x, v0y, v0z;
+
+    // Epoch invariant quantities
+    final double r0Mag;
+    final double v0Mag;
+    final double r0DotV0;
+    final double hx, hy, hz; // Angular momentum vector
+    final double ex, ey, ez; // Eccentricity vector
+    final double eccentricity;
+    final double semiMajorAxis; // AU
+    final double meanMotion; // rad/TU
+
+    // Terms of the universal Kepler equation that only depend on the epoch state
+    final double alpha; // 1/a
+    final double sigma0; // r0.v0 / sqrt(mu)
+
+    /**
+     * Creates the orbit model for a body.
+     *
+     * @param mu Gravitational parameter of the central body [AU^3/TU^2].
+     * @param r0 Position vector at the J2000 epoch [AU].
+     * @param v0 Velocity vector at the J2000 epoch [AU/TU].
+     */
+    public OrbitModel(double mu, double[] r0, double[] v0) {
+        this.mu = mu;
+        this.sqrtMu = Math.sqrt(mu);
+
+        this.r0x = r0[0];
+        this.r0y = r0[1];
+        this.r0z = r0[2];
+        this.v0x = v0[0];
+        this.v0y = v0[1];
+        this.v0z = v0[2];
+
+        this.r0Mag = Math.sqrt(r0x * r0x + r0y * r0y + r0z * r0z);
+        this.v0Mag = Math.sqrt(v0x * v0x + v0y * v0y + v0z * v0z);
+        this.r0DotV0 = r0x * v0x + r0y * v0y + r0z * v0z;
+
+        this.hx = r0y * v0z - r0z * v0y;
+        this.hy = r0z * v0x - r0x * v0z;
+        this.hz = r0x * v0y - r0y * v0x;
+
+        double radialTerm = v0Mag * v0Mag - mu / r0Mag;
+        this.ex = (radialTerm * r0x - r0DotV0 * v0x) / mu;
+        this.ey = (radialTerm * r0y - r0DotV0 * v0y) / mu;
+        this.ez = (radialTerm * r0z - r0DotV0 * v0z) / mu;
+        this.eccentricity = Math.sqrt(ex * ex + ey * ey + ez * ez);
+
+        double hMag2 = hx * hx + hy * hy + hz * hz;
+        this.semiMajorAxis = hMag2 / (mu * (1 - eccentricity * eccentricity));
+        this.meanMotion = Math.sqrt(mu / (semiMajorAxis * semiMajorAxis * semiMajorAxis));
+
+        this.alpha = 1.0 / semiMajorAxis;
+        this.sigma0 = r0DotV0 / sqrtMu;
+    }
+
+    /**
+     * Propagates the epoch state to the given time and writes the position and velocity
+     * to the caller supplied arrays. No objects are allocated.
+     *
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @param rOut Array receiving the position vector [AU].
+     * @param vOut Array receiving the velocity vector [AU/TU].
+     */
+    public void propagate(double time, double[] rOut, double[] vOut) {
+        propagate(time, coldGuess(time), rOut, vOut);
+    }
+
+    /**
+     * Same as {@link #propagate(double, double[], double[])} but starts the iteration from the given
+     * universal anomaly instead of the cold {@code sqrt(mu) * t / a} guess.
+     *
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @param chiGuess Initial guess for the universal anomaly [AU^0.5].
+     * @param rOut Array receiving the position vector [AU].
+     * @param vOut Array receiving the velocity vector [AU/TU].
+     * @return The converged universal anomaly, to warm start the solve of a nearby epoch.
+     */
+    public double propagate(double time, double chiGuess, double[] rOut, double[] vOut) {
+        return propagate(time, chiGuess, TOLERANCE, rOut, vOut);
+    }
+
+    /**
+     * Same as {@link #propagate(double, double, double[], double[])} with a custom stopping tolerance,
+     * for callers that need the state converged further than the default {@link #TOLERANCE}.
+     *
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @param chiGuess Initial guess for the universal anomaly [AU^0.5].
+     * @param tolerance Maximum difference between the requested time and the time of the solution [TU].
+     * @param rOut Array receiving the position vector [AU].
+     * @param vOut Array receiving the velocity vector [AU/TU].
+     * @return The converged universal anomaly.
+     */
+    public double propagate(double time, double chiGuess, double tolerance, double[] rOut, double[] vOut) {
+        return propagate(time, chiGuess, r0x, r0y, r0z, v0x, v0y, v0z, r0Mag, sigma0, alpha, sqrtMu, tolerance,
+                rOut, vOut);
+    }
+
+    /**
+     * Universal variable solve shared by {@link OrbitModel} and {@link OrbitCatalog}, taking the epoch invariant
+     * terms as primitives so that callers can keep them in whatever layout suits them.
+     *
+     * @return The converged universal anomaly.
+     */
+    static double propagate(double time, double chiGuess,
+                            double r0x, double r0y, double r0z, double v0x, double v0y, double v0z,
+                            double r0Mag, double sigma0, double alpha, double sqrtMu, double tolerance,
+                            double[] rOut, double[] vOut) {
+        double xn = chiGuess;
+        double s = 0.0;
+        double c = 0.0;
+        double t = 0.0;
+        double z = 0.0;
+        double rn = 0.0;
+
+        for (int i = 0; i <= MAX_ITERATIONS; i++) {
+            double xn2 = xn * xn;
+            z = xn2 * alpha;
+
+            if (Math.abs(z) < TOLERANCE) {
+                s = 1.0 / 6.0 - z / 120.0 + z * z / 5040.0 - z * z * z / 362880.0;
+                c = 1.0 / 2.0 - z / 24.0 + z * z / 720.0 - z * z * z / 40320.0;
+            }
+            else if (z > 0) {
+                double sqrtZ = Math.sqrt(z);
+                s = (sqrtZ - Math.sin(sqrtZ)) / (z * sqrtZ);
+                c = (1.0 - Math.cos(sqrtZ)) / z;
+            }
+            else {
+                double sqrtZ = Math.sqrt(-z);
+                s = (Math.sinh(sqrtZ) - sqrtZ) / (-z * sqrtZ);
+                c = (1.0 - Math.cosh(sqrtZ)) / z;
+            }
+
+            t = (xn2 * xn * s + sigma0 * xn2 * c + r0Mag * xn * (1.0 - z * s)) / sqrtMu;
+            rn = xn2 * c + sigma0 * xn * (1.0 - z * s) + r0Mag * (1.0 - z * c);
+
+            if (Math.abs(time - t) < tolerance || i == MAX_ITERATIONS) {
+                break;
+            }
+            xn += (time - t) * sqrtMu / rn;
+        }
+
+        double f = 1 - xn * xn / r0Mag * c;
+        double g = t - xn * xn * xn / sqrtMu * s;
+        double fdot = (sqrtMu * xn) / (r0Mag * rn) * (z * s - 1);
+        double gdot = 1 - xn * xn / rn * c;
+
+        rOut[0] = f * r0x + g * v0x;
+        rOut[1] = f * r0y + g * v0y;
+        rOut[2] = f * r0z + g * v0z;
+
+        vOut[0] = fdot * r0x + gdot * v0x;
+        vOut[1] = fdot * r0y + gdot * v0y;
+        vOut[2] = fdot * r0z + gdot * v0z;
+
+        return xn;
+    }
+
+    /**
+     * Converts classical orbital elements to position and velocity vectors in the IJK reference frame.
+     *
+     * @param mu Gravitational parameter of the central body [AU^3/TU^2].
+     * @param a Semi-major axis [AU].
+     * @param e Eccentricity.
+     * @param i Inclination to the ecliptic [deg].
+     * @param raan Right ascension of the ascending node [deg].
+     * @param omega Argument of periapsis [deg].
+     * @param theta True anomaly [deg].
+     * @param rOut Array receiving the position vector [AU].
+     * @param vOut Array receiving the velocity vector [AU/TU].
+     */
+    public static void elementsToState(double mu, double a, double e, double i, double raan, double omega,
+                                       double theta, double[] rOut, double[] vOut) {
+        double p = a * (1 - e * e);
+        double cosTheta = Math.cos(Math.toRadians(theta));
+        double sinTheta = Math.sin(Math.toRadians(theta));
+        double r = p / (1 + e * cosTheta);
+
+        // r and v in the pqw reference frame
+        double rp = r * cosTheta;
+        double rq = r * sinTheta;
+        double vp = -sinTheta * Math.sqrt(mu / p);
+        double vq = (e + cosTheta) * Math.sqrt(mu / p);
+
+        // Rotating the components to the IJK frame
+        double cosRaan = Math.cos(Math.toRadians(raan));
+        double sinRaan = Math.sin(Math.toRadians(raan));
+        double cosOmega = Math.cos(Math.toRadians(omega));
+        double sinOmega = Math.sin(Math.toRadians(omega));
+        double cosI = Math.cos(Math.toRadians(i));
+        double sinI = Math.sin(Math.toRadians(i));
+
+        double R11 = cosRaan * cosOmega - sinRaan * sinOmega * cosI;
+        double R12 = -cosRaan * sinOmega - sinRaan * cosOmega * cosI;
+        double R21 = sinRaan * cosOmega + cosRaan * sinOmega * cosI;
+        double R22 = -sinRaan * sinOmega + cosRaan * cosOmega * cosI;
+        double R31 = sinOmega * sinI;
+        double R32 = cosOmega * sinI;
+
+        rOut[0] = R11 * rp + R12 * rq;
+        rOut[1] = R21 * rp + R22 * rq;
+        rOut[2] = R31 * rp + R32 * rq;
+
+        vOut[0] = R11 * vp + R12 * vq;
+        vOut[1] = R21 * vp + R22 * vq;
+        vOut[2] = R31 * vp + R32 * vq;
+    }
+
+    /**
+     * Initial guess for the universal anomaly when nothing is known about a nearby epoch.
+     *
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @return Initial guess for the universal anomaly, {@code sqrt(mu) * t / a}.
+     */
+    double coldGuess(double time) {
+        return sqrtMu * time * alpha;
+    }
+
+    /**
+     * Extrapolates a converged universal anomaly to a nearby epoch, using d(chi)/dt = sqrt(mu) / r.
+     *
+     * @param chi Universal anomaly at the previous epoch [AU^0.5].
+     * @param rMag Distance to the central body at the previous epoch [AU].
+     * @param dt Time between the previous and the next epoch [TU].
+     * @return Initial guess for the universal anomaly at the next epoch.
+     */
+    double nextGuess(double chi, double rMag, double dt) {
+        return chi + sqrtMu * dt / rMag;
+    }
+
+    public double getSemiMajorAxis() {
+        return semiMajorAxis;
+    }
+
+    public double getEccentricity() {
+        return eccentricity;
+    }
+
+    public double getMeanMotion() {
+        return meanMotion;
+    }
+}
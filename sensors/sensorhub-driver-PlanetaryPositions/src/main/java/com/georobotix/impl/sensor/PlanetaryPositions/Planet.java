@@ -1,19 +1,25 @@
 package com.georobotix.impl.sensor.PlanetaryPositions;
 
 import com.sun.jdi.connect.Connector;
-import org.ejml.simple.SimpleMatrix;
 
-import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Arrays;
+import java.util.List;
 
 public class Planet {
+    // Names of the planets with known orbital elements
+    public static final List<String> PLANET_NAMES = List.of(
+            "mercury", "venus", "earth", "mars", "jupiter", "saturn", "uranus", "neptune", "pluto");
+
     private String name;
 
     // Orbital elements at the j2000 Epoch
+    private static final double S2TU = 1 / (5.0226757 * Math.pow(10, 6));
+    private static final long J2000_MILLIS = ZonedDateTime.of(
+            2000, 1, 1, 11, 58, 55, 0, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+
     private final double mu = 1;
-    private final double s2tu = 1 / (5.0226757 * Math.pow(10, 6));
     private double a; //AU
     private double e; // eccentricity
     private double i; // to ecliptic [deg]
@@ -22,11 +28,11 @@ public class Planet {
     private double theta; // deg
     private double[] rvec = new double[3]; // Position vector in the J2000 epoch in the IJK reference frame
     private double[] vvec = new double[3]; // Velocity vector in the J2000 epoch in the IJK reference frame
+    private final OrbitModel orbit; // Epoch invariant terms, computed once
 
     // Current values
     private double[] rCurrent = new double[3];
     private double[] vCurrent = new double[3];
-    private double currentTime; // Time elapsed snce J2000 Epoch! [TU]
 
     public Planet(String planetName) {
         // Setting Orbital Elements for each planet. Observations made in the J2000 Epoch!
@@ -108,188 +114,105 @@ public class Planet {
         // Setting planet name and position at the J2000 epoch
         this.name = planetName.toUpperCase();
         setOriginalPosition();
+        this.orbit = new OrbitModel(mu, rvec, vvec);
     }
 
-    private void setCurrentTime() {
-        Instant j2000 = ZonedDateTime.of(
-                2000, 1, 1, 11, 58, 55, 0, ZoneOffset.UTC)
-                .toInstant();
-        long currentTimeUnix = System.currentTimeMillis(); // Current time relative to Unix Epoch
-        long j2000Unix =  j2000.toEpochMilli(); // j2000 in ms relative to Unix epoch
+    // Converts a Unix time in ms to time elapsed since the J2000 epoch [TU]
+    public static double toTimeUnits(long epochMillis) {
+        return (double) (epochMillis - J2000_MILLIS) / 1000 * S2TU;
+    }
 
-        this.currentTime = (double) (currentTimeUnix - j2000Unix) / 1000 * s2tu;
+    // Index of a planet in PLANET_NAMES, case insensitive, or -1 if unknown
+    public static int indexOf(String planetName) {
+        for (int k = 0; k < PLANET_NAMES.size(); k++) {
+            if (PLANET_NAMES.get(k).equalsIgnoreCase(planetName))
+                return k;
+        }
+        return -1;
+    }
+
+    // Converts a duration in ms to TU
+    public static double durationToTimeUnits(long millis) {
+        return (double) millis / 1000 * S2TU;
     }
 
     private void setOriginalPosition() {
         // Sets position and velocity at the J2000 Epoch
-        double p = a * (1 - Math.pow(e, 2));
-        double r = p / (1 + e * Math.cos(Math.toRadians(theta)));
-
-        // Calculating r and v in the pqw reference frame
-        SimpleMatrix r_pqw = new SimpleMatrix(1,3);
-        SimpleMatrix v_pqw = new SimpleMatrix(1,3);
-        r_pqw.set(0,0,
-                r * Math.cos(Math.toRadians(theta)));
-
-        r_pqw.set(0,1,
-                r * Math.sin(Math.toRadians(theta)));
-
-        v_pqw.set(0, 0,
-                - Math.sin(Math.toRadians(theta)));
-
-        v_pqw.set(0, 1,
-                e + Math.cos(Math.toRadians(theta)));
-
-        v_pqw = v_pqw.scale(Math.sqrt(mu/p));
-
-        // Rotating the components to the IJK frame
-        double R11 = Math.cos(Math.toRadians(RAAN)) * Math.cos(Math.toRadians(omega)) -
-                Math.sin(Math.toRadians(RAAN)) * Math.sin(Math.toRadians(omega)) * Math.cos(Math.toRadians(i));
-        double R12 = - Math.cos(Math.toRadians(RAAN)) * Math.sin(Math.toRadians(omega)) -
-                Math.sin(Math.toRadians(RAAN)) * Math.cos(Math.toRadians(omega)) * Math.cos(Math.toRadians(i));
-        double R13 = Math.sin(Math.toRadians(RAAN)) * Math.sin(Math.toRadians(i));
-        double R21 = Math.sin(Math.toRadians(RAAN)) * Math.cos(Math.toRadians(omega)) +
-                Math.cos(Math.toRadians(RAAN)) * Math.sin(Math.toRadians(omega)) * Math.cos(Math.toRadians(i));
-        double R22 = - Math.sin(Math.toRadians(RAAN)) * Math.sin(Math.toRadians(omega)) +
-                Math.cos(Math.toRadians(RAAN)) * Math.cos(Math.toRadians(omega)) * Math.cos(Math.toRadians(i));
-        double R23 = - Math.cos(Math.toRadians(RAAN)) * Math.sin(Math.toRadians(i));
-        double R31 = Math.sin(Math.toRadians(omega)) * Math.sin(Math.toRadians(i));
-        double R32 = Math.cos(Math.toRadians(omega)) * Math.sin(Math.toRadians(i));
-        double R33 = Math.cos(Math.toRadians(i));
-
-        SimpleMatrix R = new SimpleMatrix(new double[][]{
-                {R11, R12, R13},
-                {R21, R22, R23},
-                {R31, R32, R33}
-        });
-
-        SimpleMatrix r_ijk = R.mult(r_pqw.transpose()).transpose();
-        SimpleMatrix v_ijk = R.mult(v_pqw.transpose()).transpose();
-
-        // Setting Planet Values
-        rvec[0] = r_ijk.get(0, 0);
-        rvec[1] = r_ijk.get(0, 1);
-        rvec[2] = r_ijk.get(0, 2);
-
-        vvec[0] = v_ijk.get(0, 0);
-        vvec[1] = v_ijk.get(0, 1);
-        vvec[2] = v_ijk.get(0, 2);
+        OrbitModel.elementsToState(mu, a, e, i, RAAN, omega, theta, rvec, vvec);
     }
 
     private void calculateCurrent() {
-        final double tol = Math.pow(10, -7);
-        final int maxno = 10;
-
-        setCurrentTime(); // Initially calculate the current time wrt the j2000 epocha
-        double[] r_orig = Arrays.copyOf(rvec, rvec.length);
-        double[] v_orig = Arrays.copyOf(vvec, vvec.length);
-        SimpleMatrix r_scale = new SimpleMatrix(1, 3, true, rvec);
-        SimpleMatrix v_scale = new SimpleMatrix(1, 3, true, vvec);
-
-         double rmag = magnitude(r_orig);
-         double vmag = magnitude(v_orig);
-         double[] h = cross(r_orig, v_orig);
-         double hmag = magnitude(h);
-         SimpleMatrix e_vec = r_scale.scale((Math.pow(vmag,2) - (mu/rmag))).minus(
-                 v_scale.scale(dot(r_orig, v_orig)));
-         e_vec = e_vec.scale(1/mu);
-         double[] evec = {e_vec.get(0,0), e_vec.get(0,1), e_vec.get(0,2)};
-         double emag = magnitude(evec);
-         double a = Math.pow(hmag, 2) / (mu * (1 - Math.pow(emag, 2)));
-         double n = Math.sqrt(1 / Math.pow(a, 3));
-
-         // Iterating!
-         double xn = Math.sqrt(mu) * currentTime/a;
-         int i = 0;
-         boolean iterate = true;
-         double s = 0.0;
-         double c = 0.0;
-         double t = 0.0;
-         double z = 0.0;
-         double rn = 0.0;
-
-         while (iterate) {
-             i++;
-             z = Math.pow(xn, 2) / a;
-
-             if (Math.abs(z) < tol){
-                 s =  1.0 / 6.0 - z / 120.0 + Math.pow(z,2) / (5040) - Math.pow(z, 3) / (362880.0);
-                 c = 1.0 / (2.0) - z / (24.0) + Math.pow(z, 2) / (720.0) - Math.pow(z, 3) / (40320.0);
-             }
-             else if (z > 0) {
-                 s = (Math.sqrt(z) - Math.sin(Math.sqrt(z))) / Math.sqrt(Math.pow(z, 3));
-                 c = (1.0 - Math.cos(Math.sqrt(z))) / z;
-             }
-             else {
-                 s = (Math.sinh(Math.sqrt(-z)) - Math.sqrt(-z)) / Math.sqrt(Math.pow(-z, 3));
-                 c = (1.0 - Math.cosh(Math.sqrt(-z))) / z;
-             }
-
-             t = (1.0 / Math.sqrt(mu)) * (Math.pow(xn, 3) * s + dot(r_orig, v_orig) / Math.sqrt(mu) *
-                     Math.pow(xn, 2) * c + rmag * xn * (1.0 - z * s));
-             rn = Math.pow(xn, 2) * c + dot(r_orig, v_orig) / Math.sqrt(mu) * xn * (1.0 - z * s) + rmag *
-                     (1.0 - z * c);
-             double dtdx = rn / Math.sqrt(mu);
-             double xn1 = xn + (currentTime - t) / dtdx;
-
-             if (Math.abs(currentTime - t) < tol) {
-                 iterate = false;
-             }
-             else {
-                 xn = xn1;
-             }
-
-             if (i > maxno) iterate = false;
-         }
-
-         /*
-        System.out.println("xn");
-        System.out.println(xn);
-        System.out.println("rmag");
-        System.out.println(rmag);
-        System.out.println("c");
-        System.out.println(c);
-        System.out.println("s");
-        System.out.println(s);
-        System.out.println("z");
-        System.out.println(z);
-          */
-
-         double f = 1 - Math.pow(xn, 2) / rmag * c;
-         double g = t - Math.pow(xn, 3) / Math.sqrt(mu) * s;
-
-         double fdot = (Math.sqrt(mu) * xn) / (rmag * rn) * (z * s - 1);
-         double gdot = 1 - Math.pow(xn, 2) / rn * c;
-
-         SimpleMatrix rCurrentMat = r_scale.scale(f).plus(v_scale.scale(g));
-         SimpleMatrix vCurrentMat = r_scale.scale(fdot).plus(v_scale.scale(gdot));
-
-         // Assigning values
-        rCurrent[0] = rCurrentMat.get(0, 0);
-        rCurrent[1] = rCurrentMat.get(0, 1);
-        rCurrent[2] = rCurrentMat.get(0, 2);
-
-        vCurrent[0] = vCurrentMat.get(0, 0);
-        vCurrent[1] = vCurrentMat.get(0, 1);
-        vCurrent[2] = vCurrentMat.get(0, 2);
+        propagate(toTimeUnits(System.currentTimeMillis()), rCurrent, vCurrent);
     }
 
-    private static double magnitude(double[] vector) {
-        return Math.sqrt(Math.pow(vector[0], 2) + Math.pow(vector[1], 2) + Math.pow(vector[2], 2));
+    /**
+     * Propagates the J2000 state of the planet to the given time in a single solve.
+     * No objects are allocated on this path.
+     *
+     * @param time Time elapsed since the J2000 epoch [TU].
+     * @param rOut Array receiving the heliocentric position vector [AU].
+     * @param vOut Array receiving the heliocentric velocity vector [AU/TU].
+     */
+    public void propagate(double time, double[] rOut, double[] vOut) {
+        orbit.propagate(time, rOut, vOut);
     }
 
-    private static double[] cross(double[] a, double[] b) {
-        double[] result = new double[3];
-
-        result[0] = a[1] * b[2] - a[2] * b[1];
-        result[1] = a[2] * b[0] - a[0] * b[2];
-        result[2] = a[0] * b[1] - a[1] * b[0];
-
-        return result;
+    /**
+     * Propagates the planet to every timestamp of a time series and fills struct-of-arrays outputs.
+     * <p>
+     * Each solve is warm started from the universal anomaly of the previous sample, so densely sampled
+     * series converge in one or two Newton iterations per sample.
+     *
+     * @param timestamps Sample times in ms since the Unix epoch.
+     * @param x Array receiving the i component of the position of each sample [AU].
+     * @param y Array receiving the j component of the position of each sample [AU].
+     * @param z Array receiving the k component of the position of each sample [AU].
+     * @param vx Array receiving the i component of the velocity of each sample [AU/TU].
+     * @param vy Array receiving the j component of the velocity of each sample [AU/TU].
+     * @param vz Array receiving the k component of the velocity of each sample [AU/TU].
+     */
+    public void propagate(long[] timestamps, double[] x, double[] y, double[] z,
+                          double[] vx, double[] vy, double[] vz) {
+        int n = timestamps.length;
+        if (x.length < n || y.length < n || z.length < n || vx.length < n || vy.length < n || vz.length < n)
+            throw new IllegalArgumentException("Output arrays must hold " + n + " samples");
+
+        double[] r = new double[3];
+        double[] v = new double[3];
+        double previousTime = 0;
+        double chi = 0;
+
+        for (int k = 0; k < n; k++) {
+            double time = toTimeUnits(timestamps[k]);
+
+            double guess;
+            if (k == 0) {
+                guess = orbit.coldGuess(time);
+            }
+            else {
+                double rMag = Math.sqrt(r[0] * r[0] + r[1] * r[1] + r[2] * r[2]);
+                guess = orbit.nextGuess(chi, rMag, time - previousTime);
+            }
+            chi = orbit.propagate(time, guess, r, v);
+            previousTime = time;
+
+            x[k] = r[0];
+            y[k] = r[1];
+            z[k] = r[2];
+            vx[k] = v[0];
+            vy[k] = v[1];
+            vz[k] = v[2];
+        }
     }
 
-    private static double dot(double[] a, double[] b) {
-        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    /**
+     * Computes the current position and velocity of the planet in one solve.
+     *
+     * @param rOut Array receiving the heliocentric position vector [AU].
+     * @param vOut Array receiving the heliocentric velocity vector [AU/TU].
+     */
+    public void getCurrentState(double[] rOut, double[] vOut) {
+        propagate(toTimeUnits(System.currentTimeMillis()), rOut, vOut);
     }
 
     public static double factorial(int n) {
@@ -312,6 +235,10 @@ public class Planet {
         return vCurrent;
     }
 
+    public OrbitModel getOrbitModel() {
+        return orbit;
+    }
+
     public String getPlanetName() {
         return this.name.toUpperCase();
     }
@@ -11,6 +11,9 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.georobotix.impl.sensor.PlanetaryPositions;
 
+import com.georobotix.impl.sensor.helpers.AsyncPublisher;
+import com.georobotix.impl.sensor.helpers.MonitoredOutput;
+import com.georobotix.impl.sensor.helpers.PublishStatistics;
 import net.opengis.swe.v20.DataBlock;
 import net.opengis.swe.v20.DataComponent;
 import net.opengis.swe.v20.DataEncoding;
@@ -19,24 +22,34 @@ import org.sensorhub.api.data.DataEvent;
 import org.sensorhub.impl.sensor.AbstractSensorOutput;
 import org.vast.swe.SWEHelper;
 
-import java.util.ArrayList;
-
 /**
  * Output specification and provider for {@link PlanetPositionSensor}.
+ * <p>
+ * When a position or velocity dead-band is configured, samples that did not move further than the dead-band
+ * from the last published one are dropped, until the maximum silence period elapses. Since every published
+ * sample carries both position and velocity, skipped samples are reconstructed with {@link HermiteInterpolator}
+ * when reading them back with {@link PlanetPositionSensor#readSamples}.
  */
-public class PlanetPositionOutput extends AbstractSensorOutput<PlanetPositionSensor> {
+public class PlanetPositionOutput extends AbstractSensorOutput<PlanetPositionSensor> implements MonitoredOutput {
     static final String SENSOR_OUTPUT_NAME = "PlanetPositions";
     static final String SENSOR_OUTPUT_LABEL = "PlanetaryPositions Output";
     static final String SENSOR_OUTPUT_DESCRIPTION = "Current heliocentric positions of the planets.";
 
-    private static final int MAX_NUM_TIMING_SAMPLES = 10;
-
-    private final ArrayList<Double> intervalHistogram = new ArrayList<>(MAX_NUM_TIMING_SAMPLES);
-    private final Object histogramLock = new Object();
+    private final PublishStatistics publishStats = new PublishStatistics();
     private final Object processingLock = new Object();
 
+    // Publish queue, only when asynchronous publishing is configured
+    private volatile AsyncPublisher<DataEvent> publisher;
+
     private DataRecord dataRecord;
     private DataEncoding dataEncoding;
+    private boolean binary;
+
+    // Dead-band state, last published sample
+    private final double[] lastPos = new double[3];
+    private final double[] lastVel = new double[3];
+    private long lastPublishedTime = Long.MIN_VALUE;
+    private long skippedSamples;
 
     /**
      * Creates a new output for the sensor driver.
@@ -51,6 +64,8 @@ public class PlanetPositionOutput extends AbstractSensorOutput<PlanetPositionSen
      * Initializes the data structure for the output, defining the fields, their ordering, and data types.
      */
     void doInit() {
+        binary = parentSensor.getConfiguration().binaryEncoding;
+
         // Get an instance of SWE Factory suitable to build components
         SWEHelper sweFactory = new SWEHelper();
 
@@ -63,10 +78,17 @@ public class PlanetPositionOutput extends AbstractSensorOutput<PlanetPositionSen
                 .addField("sampleTime", sweFactory.createTime()
                         .asSamplingTimeIsoUTC()
                         .label("Sample Time"))
-                // Name of the planet
-                .addField("PlanetName", sweFactory.createText()
-                        .definition(sweFactory.getPropertyUri("PlanetName"))
-                        .label("Name of the Planet"))
+                // Name of the planet, or its index when encoded in binary
+                .addField("PlanetName", binary ?
+                        sweFactory.createCount()
+                                .definition(sweFactory.getPropertyUri("PlanetId"))
+                                .label("Planet ID")
+                                .description("Index of the planet in " + String.join(", ", Planet.PLANET_NAMES) + ".")
+                                .build() :
+                        sweFactory.createText()
+                                .definition(sweFactory.getPropertyUri("PlanetName"))
+                                .label("Name of the Planet")
+                                .build())
                 // Planet Position
                 .addField("position", sweFactory.createVector()
                         .definition(sweFactory.getPropertyUri("PositionVector"))
@@ -96,7 +118,11 @@ public class PlanetPositionOutput extends AbstractSensorOutput<PlanetPositionSen
                                 .uom("AU/TU")))
                 .build();
 
-        dataEncoding = sweFactory.newTextEncoding(",", "\n");
+        // Raw big-endian IEEE doubles spare high-rate consumers the text formatting and parsing
+        if (binary)
+            dataEncoding = SWEHelper.getDefaultBinaryEncoding(dataRecord);
+        else
+            dataEncoding = sweFactory.newTextEncoding(",", "\n");
     }
 
     @Override
@@ -111,55 +137,148 @@ public class PlanetPositionOutput extends AbstractSensorOutput<PlanetPositionSen
 
     @Override
     public double getAverageSamplingPeriod() {
-        synchronized (histogramLock) {
-            double sum = 0;
-            for (double sample : intervalHistogram)
-                sum += sample;
+        return publishStats.getAverageSamplingPeriod();
+    }
+
+    @Override
+    public PublishStatistics getPublishStatistics() {
+        return publishStats;
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        AsyncPublisher<DataEvent> p = publisher;
+        return p != null ? p.getDroppedRecords() : 0;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        AsyncPublisher<DataEvent> p = publisher;
+        return p != null ? p.getQueueDepth() : 0;
+    }
 
-            return sum / intervalHistogram.size();
+    /**
+     * @return The publish queue, or {@code null} when records are published synchronously.
+     */
+    public AsyncPublisher<DataEvent> getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Starts the publish queue when asynchronous publishing is configured.
+     */
+    void start() {
+        Config config = parentSensor.getConfiguration();
+        if (config.asyncPublishing) {
+            publisher = new AsyncPublisher<>(parentSensor.getUniqueIdentifier() + "/" + getName(),
+                    config.publishQueueSize, config.publishQueuePolicy, this::dispatch);
+            publisher.start();
         }
     }
 
+    /**
+     * Publishes the records still queued and stops the publish queue.
+     */
+    void stop() {
+        AsyncPublisher<DataEvent> p = publisher;
+        if (p != null)
+            p.stop();
+    }
+
     /**
      * Sets the data for the output and publishes it.
      */
     public void setData(long timestamp, String planetName, double[] rCurrent, double[] vCurrent) {
         synchronized (processingLock) {
-            DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
+            long startNanos = System.nanoTime();
+            if (isInDeadBand(timestamp, rCurrent, vCurrent)) {
+                skippedSamples++;
+                return;
+            }
+            System.arraycopy(rCurrent, 0, lastPos, 0, 3);
+            System.arraycopy(vCurrent, 0, lastVel, 0, 3);
+            lastPublishedTime = timestamp;
 
-            updateIntervalHistogram();
+            DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
 
             // Populate the data block
-            dataBlock.setDoubleValue(0, timestamp / 1000d);
-            dataBlock.setStringValue(1, planetName);
-            dataBlock.setDoubleValue(2, rCurrent[0]);
-            dataBlock.setDoubleValue(3, rCurrent[1]);
-            dataBlock.setDoubleValue(4, rCurrent[2]);
-            dataBlock.setDoubleValue(5, vCurrent[0]);
-            dataBlock.setDoubleValue(6, vCurrent[1]);
-            dataBlock.setDoubleValue(7, vCurrent[2]);
+            fillDataBlock(dataBlock, timestamp, planetName,
+                    rCurrent[0], rCurrent[1], rCurrent[2], vCurrent[0], vCurrent[1], vCurrent[2]);
 
             // Publish the data block
             latestRecord = dataBlock;
             latestRecordTime = timestamp;
-            eventHandler.publish(new DataEvent(latestRecordTime, PlanetPositionOutput.this, dataBlock));
+            publish(new DataEvent(latestRecordTime, PlanetPositionOutput.this, dataBlock), startNanos);
         }
     }
 
     /**
-     * Updates the interval histogram with the time between the latest record and the current time
-     * for calculating the average sampling period.
+     * Publishes an event right away, or queues it when asynchronous publishing is configured.
      */
-    private void updateIntervalHistogram() {
-        synchronized (histogramLock) {
-            if (latestRecord != null && latestRecordTime != Long.MIN_VALUE) {
-                long interval = System.currentTimeMillis() - latestRecordTime;
-                intervalHistogram.add(interval / 1000d);
-
-                if (intervalHistogram.size() > MAX_NUM_TIMING_SAMPLES) {
-                    intervalHistogram.remove(0);
-                }
-            }
+    private void publish(DataEvent event, long startNanos) {
+        AsyncPublisher<DataEvent> p = publisher;
+        if (p != null && p.isRunning())
+            p.submit(event, startNanos);
+        else
+            dispatch(event, startNanos);
+    }
+
+    private void dispatch(DataEvent event, long startNanos) {
+        eventHandler.publish(event);
+        publishStats.recordPublish(startNanos);
+    }
+
+    /**
+     * Checks whether a sample is close enough to the last published one to be skipped.
+     */
+    private boolean isInDeadBand(long timestamp, double[] rCurrent, double[] vCurrent) {
+        Config config = parentSensor.getConfiguration();
+        if ((config.positionDeadBand <= 0 && config.velocityDeadBand <= 0) || lastPublishedTime == Long.MIN_VALUE)
+            return false;
+        if (timestamp - lastPublishedTime >= config.maxSilencePeriod)
+            return false;
+
+        // A dead-band of 0 leaves that quantity out of the decision
+        return (config.positionDeadBand <= 0 || distance(rCurrent, lastPos) <= config.positionDeadBand)
+                && (config.velocityDeadBand <= 0 || distance(vCurrent, lastVel) <= config.velocityDeadBand);
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * @return The number of samples dropped because they were within the dead-band.
+     */
+    public long getSkippedSamples() {
+        synchronized (processingLock) {
+            return skippedSamples;
         }
     }
+
+    @Override
+    public long getCoalescedRecords() {
+        return getSkippedSamples();
+    }
+
+    /**
+     * Writes a sample to a data block of this output's record structure without publishing it.
+     */
+    void fillDataBlock(DataBlock dataBlock, long timestamp, String planetName,
+                              double x, double y, double z, double vx, double vy, double vz) {
+        dataBlock.setDoubleValue(0, timestamp / 1000d);
+        if (binary)
+            dataBlock.setIntValue(1, Planet.indexOf(planetName));
+        else
+            dataBlock.setStringValue(1, planetName);
+        dataBlock.setDoubleValue(2, x);
+        dataBlock.setDoubleValue(3, y);
+        dataBlock.setDoubleValue(4, z);
+        dataBlock.setDoubleValue(5, vx);
+        dataBlock.setDoubleValue(6, vy);
+        dataBlock.setDoubleValue(7, vz);
+    }
 }
@@ -11,11 +11,31 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.georobotix.impl.sensor.PlanetaryPositions;
 
+import com.georobotix.impl.sensor.helpers.DriverThreads;
+import com.georobotix.impl.sensor.helpers.HealthOutput;
+import com.georobotix.impl.sensor.helpers.MonitoredOutput;
+import com.georobotix.impl.sensor.helpers.PeriodicAcquisition;
+import net.opengis.swe.v20.DataBlock;
 import org.sensorhub.api.common.SensorHubException;
+import org.sensorhub.api.data.IDataStreamInfo;
+import org.sensorhub.api.database.IObsSystemDatabase;
+import org.sensorhub.api.datastore.obs.IDataStreamStore;
 import org.sensorhub.impl.sensor.AbstractSensorModule;
+import org.sensorhub.impl.sensor.AbstractSensorOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Driver implementation for the sensor.
  * <p>
@@ -28,14 +48,36 @@ public class PlanetPositionSensor extends AbstractSensorModule<Config> {
 
     private static final Logger logger = LoggerFactory.getLogger(PlanetPositionSensor.class);
 
+    // A backfill stops after the chunks in flight, which may take a while to commit
+    private static final long BACKFILL_STOP_TIMEOUT = 30000;
+
     PlanetPositionOutput output;
-    Thread processingThread;
-    volatile boolean doProcessing = true;
+    BodyStatesOutput bodyStatesOutput;
+    HealthOutput<PlanetPositionSensor> healthOutput;
+    volatile PeriodicAcquisition acquisition;
+    EphemerisScheduler.Listener schedulerListener;
 
     // Planet location and velocity values
     Planet sensorPlanet;
-    double[] planetPos;
-    double[] planetVel;
+    final double[] planetPos = new double[3];
+    final double[] planetVel = new double[3];
+
+    // Optional ephemeris, evaluated instead of the Kepler solve within its time span
+    ChebyshevEphemeris ephemeris;
+    int ephemerisBody = -1;
+
+    // Historical backfill
+    Thread backfillThread;
+    final AtomicReference<HistoricalBackfill> backfill = new AtomicReference<>();
+
+    // Multi-body mode, states stored per body in configuration order
+    Planet[] planets;
+    int[] ephemerisBodies;
+    double[] x, y, z, vx, vy, vz;
+
+    // Catalog mode
+    OrbitCatalog catalog;
+    ForkJoinPool catalogPool;
 
     @Override
     public void doInit() throws SensorHubException {
@@ -45,13 +87,137 @@ public class PlanetPositionSensor extends AbstractSensorModule<Config> {
         generateUniqueID(UID_PREFIX, config.serialNumber);
         generateXmlID(XML_PREFIX, config.serialNumber);
 
+        if (config.catalogFile != null && !config.catalogFile.isBlank()) {
+            // Load the catalog and publish all of its bodies in a single output
+            try {
+                catalog = OrbitCatalog.load(Path.of(config.catalogFile));
+            } catch (IOException e) {
+                throw new SensorHubException("Cannot load orbit catalog " + config.catalogFile, e);
+            }
+            logger.info("Loaded {} bodies from {}", catalog.size(), config.catalogFile);
+
+            String[] names = new String[catalog.size()];
+            for (int k = 0; k < names.length; k++)
+                names[k] = catalog.getName(k);
+
+            bodyStatesOutput = new BodyStatesOutput(this, names);
+            addOutput(bodyStatesOutput, false);
+            bodyStatesOutput.doInit();
+            addHealthOutput(bodyStatesOutput);
+            return;
+        }
+
+        if (config.planetNames != null && !config.planetNames.isEmpty()) {
+            initMultiBody();
+            return;
+        }
+
         // Create and initialize output
         output = new PlanetPositionOutput(this);
         addOutput(output, false);
         output.doInit();
+        addHealthOutput(output);
 
         // Initialize the desired planet.
         this.sensorPlanet = new Planet(config.planetNameConfig);
+
+        if (config.ephemerisFile != null && !config.ephemerisFile.isBlank()) {
+            try {
+                ephemeris = openEphemeris(Path.of(config.ephemerisFile));
+            } catch (IOException e) {
+                throw new SensorHubException("Cannot open ephemeris file " + config.ephemerisFile, e);
+            }
+            ephemerisBody = ephemeris.indexOf(config.planetNameConfig);
+            if (ephemerisBody < 0)
+                logger.warn("{} is not included in ephemeris file {}", config.planetNameConfig, config.ephemerisFile);
+        }
+    }
+
+    /**
+     * Adds the optional health output of the output publishing the samples.
+     */
+    private <O extends AbstractSensorOutput<?> & MonitoredOutput> void addHealthOutput(O monitored) {
+        if (config.healthReportPeriod <= 0)
+            return;
+
+        // The acquisition loop is only reported on when the sensor has its own
+        if (config.useSharedScheduler && catalog == null)
+            healthOutput = new HealthOutput<>(this, monitored);
+        else
+            healthOutput = new HealthOutput<>(this, monitored, () -> acquisition);
+        addOutput(healthOutput, false);
+        healthOutput.doInit();
+    }
+
+    /**
+     * Sets up a single output publishing all configured planets together.
+     */
+    private void initMultiBody() throws SensorHubException {
+        List<String> names = new ArrayList<>();
+        for (String name : config.planetNames) {
+            if ("all".equalsIgnoreCase(name.trim()))
+                names.addAll(Planet.PLANET_NAMES);
+            else if (Planet.PLANET_NAMES.contains(name.trim().toLowerCase()))
+                names.add(name.trim().toLowerCase());
+            else
+                throw new SensorHubException("Unknown planet " + name);
+        }
+
+        int n = names.size();
+        planets = new Planet[n];
+        String[] bodyNames = new String[n];
+        for (int k = 0; k < n; k++) {
+            planets[k] = new Planet(names.get(k));
+            bodyNames[k] = planets[k].getPlanetName();
+        }
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        vx = new double[n];
+        vy = new double[n];
+        vz = new double[n];
+
+        if (config.ephemerisFile != null && !config.ephemerisFile.isBlank()) {
+            try {
+                ephemeris = openEphemeris(Path.of(config.ephemerisFile));
+            } catch (IOException e) {
+                throw new SensorHubException("Cannot open ephemeris file " + config.ephemerisFile, e);
+            }
+            ephemerisBodies = new int[n];
+            for (int k = 0; k < n; k++)
+                ephemerisBodies[k] = ephemeris.indexOf(names.get(k));
+        }
+
+        bodyStatesOutput = new BodyStatesOutput(this, bodyNames);
+        addOutput(bodyStatesOutput, false);
+        bodyStatesOutput.doInit();
+        addHealthOutput(bodyStatesOutput);
+    }
+
+    /**
+     * Memory-maps the ephemeris file, generating it for all known planets first if it does not exist.
+     */
+    private ChebyshevEphemeris openEphemeris(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            logger.info("Generating ephemeris file {} for years {} to {}", path,
+                    config.ephemerisStartYear, config.ephemerisEndYear);
+
+            String[] names = Planet.PLANET_NAMES.toArray(new String[0]);
+            OrbitModel[] orbits = new OrbitModel[names.length];
+            for (int k = 0; k < names.length; k++)
+                orbits[k] = new Planet(names[k]).getOrbitModel();
+
+            long start = ZonedDateTime.of(config.ephemerisStartYear, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+                    .toInstant().toEpochMilli();
+            long end = ZonedDateTime.of(config.ephemerisEndYear + 1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+                    .toInstant().toEpochMilli();
+            double intervalLength = Planet.durationToTimeUnits((long) (config.ephemerisIntervalDays * 86400000L));
+
+            ChebyshevEphemeris.write(path, names, orbits, Planet.toTimeUnits(start), Planet.toTimeUnits(end),
+                    intervalLength, config.ephemerisDegree);
+        }
+
+        return ChebyshevEphemeris.open(path);
     }
 
     @Override
@@ -68,40 +234,178 @@ public class PlanetPositionSensor extends AbstractSensorModule<Config> {
 
     @Override
     public boolean isConnected() {
-        return processingThread != null && processingThread.isAlive();
+        return schedulerListener != null || (acquisition != null && acquisition.isRunning());
     }
 
     /**
      * Starts the data processing thread.
      * <p>
-     * This method simulates sensor data collection and processing by generating data samples at regular intervals.
+     * This method simulates sensor data collection and processing by generating data samples at a fixed rate.
+     * Unless in catalog mode, samples are computed on the shared {@link EphemerisScheduler} when it is enabled.
      */
     public void startProcessing() {
-        doProcessing = true;
-
-        processingThread = new Thread(() -> {
-            while (doProcessing) {
-                // Simulate data collection and processing
-                planetPos = sensorPlanet.getCurrentPosition();
-                planetVel = sensorPlanet.getCurrentVelocity();
-
-                output.setData(System.currentTimeMillis(), sensorPlanet.getPlanetName(), planetPos, planetVel);
-
-                // Simulate a delay between data samples
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+        if (catalog != null && config.catalogParallelism != 1) {
+            catalogPool = config.catalogParallelism > 1 ?
+                    new ForkJoinPool(config.catalogParallelism) : ForkJoinPool.commonPool();
+        }
+
+        if (output != null)
+            output.start();
+        if (bodyStatesOutput != null)
+            bodyStatesOutput.start();
+
+        if (config.backfillOnStart && output != null)
+            startBackfillOnStart();
+
+        if (healthOutput != null)
+            healthOutput.start(config.healthReportPeriod * 1000L);
+
+        if (config.useSharedScheduler && catalog == null) {
+            schedulerListener = this::publishSample;
+            EphemerisScheduler.getInstance().register(config.samplingPeriod, schedulerListener);
+            return;
+        }
+
+        acquisition = new PeriodicAcquisition(getUniqueIdentifier(), config.samplingPeriod, config.overrunPolicy,
+                config.useVirtualThreads, this::publishSample);
+        acquisition.start();
+    }
+
+    /**
+     * Computes the state of the configured bodies at the given time and publishes it.
+     *
+     * @param sampleTime Time of the sample in ms since the Unix epoch.
+     */
+    private void publishSample(long sampleTime) {
+        if (catalog != null) {
+            catalog.propagate(Planet.toTimeUnits(sampleTime), catalogPool);
+            bodyStatesOutput.setData(sampleTime, catalog.getX(), catalog.getY(), catalog.getZ(),
+                    catalog.getVx(), catalog.getVy(), catalog.getVz());
+        }
+        else if (planets != null) {
+            // Every body is computed for the same instant and published in one record
+            double time = Planet.toTimeUnits(sampleTime);
+            for (int k = 0; k < planets.length; k++) {
+                if (ephemerisBodies == null || ephemerisBodies[k] < 0
+                        || !ephemeris.evaluate(ephemerisBodies[k], time, planetPos, planetVel))
+                    planets[k].propagate(time, planetPos, planetVel);
+
+                x[k] = planetPos[0];
+                y[k] = planetPos[1];
+                z[k] = planetPos[2];
+                vx[k] = planetVel[0];
+                vy[k] = planetVel[1];
+                vz[k] = planetVel[2];
             }
-        });
-        processingThread.start();
+            bodyStatesOutput.setData(sampleTime, x, y, z, vx, vy, vz);
+        }
+        else {
+            // Position and velocity are solved together for the same instant
+            double time = Planet.toTimeUnits(sampleTime);
+            if (ephemerisBody < 0 || !ephemeris.evaluate(ephemerisBody, time, planetPos, planetVel))
+                sensorPlanet.propagate(time, planetPos, planetVel);
+            output.setData(sampleTime, sensorPlanet.getPlanetName(), planetPos, planetVel);
+        }
     }
 
     /**
-     * Signals the processing thread to stop.
+     * Stops the processing thread, and any backfill in progress, and waits for them to end.
      */
     public void stopProcessing() {
-        doProcessing = false;
+        if (acquisition != null)
+            acquisition.stop();
+
+        if (schedulerListener != null) {
+            EphemerisScheduler.getInstance().unregister(schedulerListener);
+            schedulerListener = null;
+        }
+
+        // Acquisition is over, publish what is still queued
+        if (output != null)
+            output.stop();
+        if (bodyStatesOutput != null)
+            bodyStatesOutput.stop();
+
+        if (healthOutput != null)
+            healthOutput.stop();
+
+        HistoricalBackfill runningBackfill = backfill.get();
+        if (runningBackfill != null)
+            runningBackfill.cancel();
+        DriverThreads.join(backfillThread, BACKFILL_STOP_TIMEOUT);
+        backfillThread = null;
+
+        if (catalogPool != null && catalogPool != ForkJoinPool.commonPool()) {
+            catalogPool.shutdown();
+        }
+        catalogPool = null;
+    }
+
+    /**
+     * Generates the samples of a past time range at the configured sampling period and stores them
+     * in the sensor database in large batches. The samples are not published on the event bus.
+     *
+     * @param start Time of the first sample.
+     * @param end Time after which no sample is generated.
+     * @return The number of samples stored.
+     * @throws SensorHubException if the sensor is in catalog mode, has no database to write to, or another
+     * backfill is running.
+     */
+    public long backfill(Instant start, Instant end) throws SensorHubException {
+        if (output == null)
+            throw new SensorHubException("Backfill is only supported for a single planet");
+
+        // Only one backfill at a time, so that stopping the sensor can cancel it
+        HistoricalBackfill task = new HistoricalBackfill(this, config.backfillChunkSize);
+        if (!backfill.compareAndSet(null, task))
+            throw new SensorHubException("A backfill is already running for " + getUniqueIdentifier());
+        try {
+            return task.run(start, end, config.samplingPeriod);
+        } finally {
+            backfill.set(null);
+        }
+    }
+
+    /**
+     * Reads the samples of a past time range from the sensor database, at the configured sampling period.
+     * Samples dropped by the dead-band are reconstructed from the stored samples around them.
+     *
+     * @param start Time of the first sample.
+     * @param end Time after which no sample is returned.
+     * @return The samples of the range, in chronological order.
+     * @throws SensorHubException if the sensor is not publishing a single planet or has no database to read from.
+     */
+    public List<DataBlock> readSamples(Instant start, Instant end) throws SensorHubException {
+        if (output == null)
+            throw new SensorHubException("Reading samples back is only supported for a single planet");
+
+        return new DeadBandReader(this).read(start, end, config.samplingPeriod);
+    }
+
+    /**
+     * Backfills the samples missed since the latest stored one, in the background.
+     */
+    private void startBackfillOnStart() {
+        IObsSystemDatabase db = getParentHub().getSystemDriverRegistry().getDatabase(getUniqueIdentifier());
+        if (db == null) {
+            logger.warn("Backfill on start is enabled but no database is configured for {}", getUniqueIdentifier());
+            return;
+        }
+
+        IDataStreamStore dataStreamStore = db.getDataStreamStore();
+        IDataStreamInfo dsInfo = dataStreamStore.getLatestVersion(getUniqueIdentifier(), PlanetPositionOutput.SENSOR_OUTPUT_NAME);
+        if (dsInfo == null || dsInfo.getPhenomenonTimeRange() == null)
+            return;
+
+        Instant start = dsInfo.getPhenomenonTimeRange().end().plusMillis(config.samplingPeriod);
+        Instant end = Instant.now();
+
+        backfillThread = DriverThreads.start("Backfill-" + getUniqueIdentifier(), () -> {
+            try {
+                backfill(start, end);
+            } catch (SensorHubException e) {
+                logger.error("Backfill from {} to {} failed", start, end, e);
+            }
+        }, config.useVirtualThreads);
     }
 }
@@ -0,0 +1,86 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChebyshevEphemerisTest {
+    private static final String[] NAMES = {"mercury", "earth", "pluto"};
+
+    private Path file;
+    private Planet[] planets;
+    private ChebyshevEphemeris ephemeris;
+
+    @Before
+    public void setup() throws IOException {
+        file = Files.createTempFile("ephemeris", ".bin");
+        planets = new Planet[NAMES.length];
+        OrbitModel[] orbits = new OrbitModel[NAMES.length];
+        for (int k = 0; k < NAMES.length; k++) {
+            planets[k] = new Planet(NAMES[k]);
+            orbits[k] = planets[k].getOrbitModel();
+        }
+
+        double intervalLength = Planet.durationToTimeUnits(8 * 86400_000L);
+        ChebyshevEphemeris.write(file, NAMES, orbits, -50, 50, intervalLength, 12);
+        ephemeris = ChebyshevEphemeris.open(file);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void evaluationMatchesKeplerSolve() {
+        double[] r = new double[3];
+        double[] v = new double[3];
+        double[] rEph = new double[3];
+        double[] vEph = new double[3];
+
+        for (int b = 0; b < NAMES.length; b++) {
+            assertEquals(b, ephemeris.indexOf(NAMES[b].toUpperCase()));
+
+            for (double time = -49.9; time < 50; time += 0.37) {
+                planets[b].propagate(time, r, v);
+                assertTrue(ephemeris.evaluate(b, time, rEph, vEph));
+
+                // The fit is far tighter than the time tolerance of the Kepler solve it is compared to
+                for (int c = 0; c < 3; c++) {
+                    assertEquals(r[c], rEph[c], 1e-6);
+                    assertEquals(v[c], vEph[c], 1e-5);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void timesOutsideSpanAreRejected() {
+        double[] r = new double[3];
+        double[] v = new double[3];
+
+        assertFalse(ephemeris.evaluate(0, ephemeris.getStartTime() - 1e-3, r, v));
+        assertFalse(ephemeris.evaluate(0, ephemeris.getEndTime() + 1e-3, r, v));
+        assertTrue(ephemeris.evaluate(0, ephemeris.getEndTime(), r, v));
+        assertEquals(-1, ephemeris.indexOf("vulcan"));
+    }
+}
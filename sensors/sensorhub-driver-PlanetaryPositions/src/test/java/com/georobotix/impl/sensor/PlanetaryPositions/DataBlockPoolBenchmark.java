@@ -0,0 +1,119 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import com.georobotix.impl.common.RecyclingPool;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vast.swe.SWEHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation cost of the data block of each published sample.
+ * <p>
+ * {@code renew} is the path of the outputs, where every sample renews the previous data block and so allocates a
+ * new {@code DataBlockMixed} tree. Published blocks are kept by subscribers, storage and {@code getLatestRecord()}
+ * callers, so outputs cannot reuse them. {@code pooled} takes the block from a {@link RecyclingPool} and recycles
+ * it once done, which is the saving available to blocks that never leave the driver. The {@code PlanetPositions}
+ * structure is the single planet record, the {@code BodyStates} structure the record of all planets in multi-body
+ * mode.
+ * <p>
+ * Compare the {@code gc.alloc.rate.norm} figures (bytes allocated per sample) of both paths with
+ * {@code ./gradlew :sensorhub-driver-PlanetaryPositions:jmh -Pjmh.args="DataBlockPoolBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataBlockPoolBenchmark {
+    private static final int POOL_CAPACITY = 4;
+
+    @Param({"PlanetPositions", "BodyStates"})
+    public String structure;
+
+    private DataRecord dataRecord;
+    private DataBlock latestRecord;
+    private RecyclingPool<DataBlock> pool;
+    private int numValues;
+    private long timestamp;
+
+    @Setup
+    public void setup() {
+        dataRecord = "BodyStates".equals(structure) ?
+                createBodyStatesRecord(Planet.PLANET_NAMES.size()) : createPlanetPositionRecord();
+        pool = new RecyclingPool<>(POOL_CAPACITY, dataRecord::createDataBlock);
+        latestRecord = dataRecord.createDataBlock();
+        numValues = latestRecord.getAtomCount();
+    }
+
+    @Benchmark
+    public void renew(Blackhole bh) {
+        DataBlock dataBlock = latestRecord.renew();
+        fill(dataBlock);
+        latestRecord = dataBlock;
+        bh.consume(dataBlock);
+    }
+
+    @Benchmark
+    public void pooled(Blackhole bh) {
+        DataBlock dataBlock = pool.acquire();
+        fill(dataBlock);
+        bh.consume(dataBlock);
+        pool.recycle(dataBlock);
+    }
+
+    private void fill(DataBlock dataBlock) {
+        timestamp += 100;
+        dataBlock.setDoubleValue(0, timestamp / 1000d);
+        for (int k = 2; k < numValues; k++)
+            dataBlock.setDoubleValue(k, k);
+    }
+
+    private static DataRecord createPlanetPositionRecord() {
+        SWEHelper swe = new SWEHelper();
+        return swe.createRecord()
+                .addField("sampleTime", swe.createTime().asSamplingTimeIsoUTC())
+                .addField("planetId", swe.createCount())
+                .addField("position", swe.createVector()
+                        .addCoordinate("i", swe.createQuantity().uom("AU"))
+                        .addCoordinate("j", swe.createQuantity().uom("AU"))
+                        .addCoordinate("k", swe.createQuantity().uom("AU")))
+                .addField("velocity", swe.createVector()
+                        .addCoordinate("i", swe.createQuantity().uom("AU/TU"))
+                        .addCoordinate("j", swe.createQuantity().uom("AU/TU"))
+                        .addCoordinate("k", swe.createQuantity().uom("AU/TU")))
+                .build();
+    }
+
+    private static DataRecord createBodyStatesRecord(int numBodies) {
+        SWEHelper swe = new SWEHelper();
+        return swe.createRecord()
+                .addField("sampleTime", swe.createTime().asSamplingTimeIsoUTC())
+                .addField("numBodies", swe.createCount())
+                .addField("bodies", swe.createArray()
+                        .withFixedSize(numBodies)
+                        .withElement("state", swe.createRecord()
+                                .addField("x", swe.createQuantity().uom("AU"))
+                                .addField("y", swe.createQuantity().uom("AU"))
+                                .addField("z", swe.createQuantity().uom("AU"))
+                                .addField("vx", swe.createQuantity().uom("AU/TU"))
+                                .addField("vy", swe.createQuantity().uom("AU/TU"))
+                                .addField("vz", swe.createQuantity().uom("AU/TU"))
+                                .build()))
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import net.opengis.swe.v20.DataBlock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DeadBandReaderTest {
+    private static final long PERIOD = 60_000L;
+    private static final int STORED_EVERY = 10;
+
+    private PlanetPositionSensor sensor;
+
+    @Before
+    public void init() throws Exception {
+        Config config = new Config();
+        config.planetNameConfig = "mercury";
+        sensor = new PlanetPositionSensor();
+        sensor.init(config);
+    }
+
+    @Test
+    public void skippedSamplesAreFilledBetweenStoredOnes() {
+        long t0 = 1_700_000_040_000L;
+        List<DataBlock> stored = new ArrayList<>();
+        for (int k = 0; k <= 3 * STORED_EVERY; k += STORED_EVERY)
+            stored.add(sample(t0 + k * PERIOD));
+
+        // Range starting and ending between stored samples
+        long first = t0 + 5 * PERIOD;
+        long last = t0 + 25 * PERIOD;
+        List<DataBlock> samples = DeadBandReader.fillGaps(stored, first, last, PERIOD);
+
+        assertEquals(21, samples.size());
+        assertSame(stored.get(1), samples.get(5));
+        assertSame(stored.get(2), samples.get(15));
+
+        double[] r = new double[3], v = new double[3];
+        for (int k = 0; k < samples.size(); k++) {
+            long t = first + k * PERIOD;
+            DataBlock sample = samples.get(k);
+            assertEquals(t / 1000d, sample.getDoubleValue(0), 1e-3);
+            assertEquals("mercury", sample.getStringValue(1));
+
+            sensor.sensorPlanet.propagate(Planet.toTimeUnits(t), r, v);
+            for (int c = 0; c < 3; c++) {
+                assertEquals(r[c], sample.getDoubleValue(2 + c), 1e-10);
+                assertEquals(v[c], sample.getDoubleValue(5 + c), 1e-8);
+            }
+        }
+    }
+
+    @Test
+    public void epochsOutsideStoredSamplesAreLeftOut() {
+        long t0 = 1_700_000_040_000L;
+        List<DataBlock> stored = List.of(sample(t0), sample(t0 + 4 * PERIOD));
+
+        List<DataBlock> samples = DeadBandReader.fillGaps(stored, t0 - 3 * PERIOD, t0 + 8 * PERIOD, PERIOD);
+        assertEquals(5, samples.size());
+        assertEquals(t0 / 1000d, samples.get(0).getDoubleValue(0), 1e-3);
+        assertEquals((t0 + 4 * PERIOD) / 1000d, samples.get(4).getDoubleValue(0), 1e-3);
+    }
+
+    private DataBlock sample(long timestamp) {
+        double[] r = new double[3], v = new double[3];
+        sensor.sensorPlanet.propagate(Planet.toTimeUnits(timestamp), r, v);
+        DataBlock dataBlock = sensor.output.getRecordDescription().createDataBlock();
+        sensor.output.fillDataBlock(dataBlock, timestamp, "mercury", r[0], r[1], r[2], v[0], v[1], v[2]);
+        return dataBlock;
+    }
+}
@@ -0,0 +1,101 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class EphemerisSchedulerTest {
+    private static final long PERIOD = 50;
+
+    @Test
+    public void listenersShareTheSameAlignedSampleTime() throws InterruptedException {
+        EphemerisScheduler scheduler = EphemerisScheduler.getInstance();
+        BlockingQueue<Long> first = new ArrayBlockingQueue<>(100);
+        BlockingQueue<Long> second = new ArrayBlockingQueue<>(100);
+        EphemerisScheduler.Listener firstListener = first::offer;
+        EphemerisScheduler.Listener secondListener = second::offer;
+
+        scheduler.register(PERIOD, firstListener);
+        scheduler.register(PERIOD, secondListener);
+        try {
+            for (int k = 0; k < 3; k++) {
+                Long firstTime = first.poll(1, TimeUnit.SECONDS);
+                Long secondTime = second.poll(1, TimeUnit.SECONDS);
+                assertNotNull(firstTime);
+                assertEquals(firstTime, secondTime);
+                assertEquals(0, firstTime % PERIOD);
+            }
+        } finally {
+            scheduler.unregister(firstListener);
+            scheduler.unregister(secondListener);
+        }
+
+        assertEquals(0, scheduler.getNumListeners());
+    }
+
+    @Test
+    public void ticksCaughtUpAfterStallSampleMissedEpochs() throws InterruptedException {
+        EphemerisScheduler scheduler = EphemerisScheduler.getInstance();
+        BlockingQueue<Long> times = new ArrayBlockingQueue<>(100);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ahead = new AtomicBoolean();
+        EphemerisScheduler.Listener listener = sampleTime -> {
+            if (sampleTime > System.currentTimeMillis())
+                ahead.set(true);
+            times.offer(sampleTime);
+
+            // The first tick stalls until released
+            if (stalled.getCount() > 0) {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        scheduler.register(PERIOD, listener);
+        try {
+            assertTrue(stalled.await(1, TimeUnit.SECONDS));
+            Thread.sleep(4 * PERIOD);
+            release.countDown();
+
+            // Ticks missed during the stall are caught up with their own epochs, then ticks are on time again
+            Long previous = times.poll(1, TimeUnit.SECONDS);
+            assertNotNull(previous);
+            for (int k = 0; k < 8; k++) {
+                Long sampleTime = times.poll(1, TimeUnit.SECONDS);
+                assertNotNull(sampleTime);
+                assertEquals(previous + PERIOD, (long) sampleTime);
+                previous = sampleTime;
+            }
+            assertTrue(previous <= System.currentTimeMillis());
+            assertFalse(ahead.get());
+        } finally {
+            release.countDown();
+            scheduler.unregister(listener);
+        }
+    }
+}
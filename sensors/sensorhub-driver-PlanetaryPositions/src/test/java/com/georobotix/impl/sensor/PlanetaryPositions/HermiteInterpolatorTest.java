@@ -0,0 +1,49 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HermiteInterpolatorTest {
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    public void skippedSamplesAreReconstructedFromPublishedOnes() {
+        OrbitModel orbit = new Planet("mercury").getOrbitModel();
+        long t0 = System.currentTimeMillis();
+        long t1 = t0 + 3600_000L;
+
+        double[] r0 = new double[3], v0 = new double[3];
+        double[] r1 = new double[3], v1 = new double[3];
+        solve(orbit, t0, r0, v0);
+        solve(orbit, t1, r1, v1);
+
+        double[] r = new double[3], v = new double[3];
+        double[] rInterp = new double[3], vInterp = new double[3];
+        for (long t = t0; t <= t1; t += 100_000L) {
+            solve(orbit, t, r, v);
+            HermiteInterpolator.interpolate(t0, r0, v0, t1, r1, v1, t, rInterp, vInterp);
+
+            for (int c = 0; c < 3; c++) {
+                assertEquals(r[c], rInterp[c], 1e-10);
+                assertEquals(v[c], vInterp[c], 1e-8);
+            }
+        }
+    }
+
+    private static void solve(OrbitModel orbit, long timestamp, double[] r, double[] v) {
+        double time = Planet.toTimeUnits(timestamp);
+        orbit.propagate(time, orbit.coldGuess(time), TOLERANCE, r, v);
+    }
+}
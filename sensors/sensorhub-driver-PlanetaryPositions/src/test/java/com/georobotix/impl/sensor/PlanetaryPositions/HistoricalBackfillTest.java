@@ -0,0 +1,109 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import net.opengis.swe.v20.DataBlock;
+import org.junit.Before;
+import org.junit.Test;
+import org.sensorhub.api.common.SensorHubException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HistoricalBackfillTest {
+    private static final long PERIOD = 1000;
+
+    private PlanetPositionSensor sensor;
+
+    // In-memory store, one entry per commit
+    private final List<DataBlock[]> commits = new ArrayList<>();
+
+    @Before
+    public void init() throws Exception {
+        Config config = new Config();
+        config.planetNameConfig = "mercury";
+        config.samplingPeriod = (int) PERIOD;
+        sensor = new PlanetPositionSensor();
+        sensor.init(config);
+    }
+
+    @Test
+    public void rangeIsStoredInOrderOneCommitPerChunk() {
+        HistoricalBackfill backfill = new HistoricalBackfill(sensor, 10);
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        long stored = backfill.run(start, start.plusMillis(24 * PERIOD), PERIOD, commits::add);
+
+        assertEquals(25, stored);
+        assertEquals(3, commits.size());
+        assertEquals(10, commits.get(0).length);
+        assertEquals(10, commits.get(1).length);
+        assertEquals(5, commits.get(2).length);
+
+        double[] r = new double[3], v = new double[3];
+        long expected = start.toEpochMilli();
+        for (DataBlock[] chunk : commits) {
+            for (DataBlock dataBlock : chunk) {
+                assertEquals(expected / 1000d, dataBlock.getDoubleValue(0), 1e-3);
+                sensor.sensorPlanet.propagate(Planet.toTimeUnits(expected), r, v);
+                assertEquals(r[0], dataBlock.getDoubleValue(2), 1e-9);
+                expected += PERIOD;
+            }
+        }
+    }
+
+    @Test
+    public void emptyRangeStoresNothing() {
+        HistoricalBackfill backfill = new HistoricalBackfill(sensor, 10);
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        assertEquals(0, backfill.run(start, start.minusMillis(PERIOD), PERIOD, commits::add));
+        assertTrue(commits.isEmpty());
+    }
+
+    @Test
+    public void cancelStopsAfterChunksInFlight() {
+        HistoricalBackfill backfill = new HistoricalBackfill(sensor, 10);
+        int window = Math.max(1, ForkJoinPool.commonPool().getParallelism());
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        Instant end = start.plusMillis(100L * window * 10 * PERIOD);
+
+        long stored = backfill.run(start, end, PERIOD, dataBlocks -> {
+            commits.add(dataBlocks);
+            backfill.cancel();
+        });
+
+        // The chunks already computed are still committed, no new one is started
+        assertEquals(window, commits.size());
+        assertEquals(window * 10L, stored);
+    }
+
+    @Test
+    public void concurrentBackfillIsRejected() {
+        HistoricalBackfill running = new HistoricalBackfill(sensor, 10);
+        sensor.backfill.set(running);
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        try {
+            sensor.backfill(start, start.plusMillis(PERIOD));
+            fail("A second backfill must not start");
+        } catch (SensorHubException e) {
+            assertTrue(e.getMessage().contains("already running"));
+        }
+
+        // The running backfill is still the one cancelled on stop
+        assertEquals(running, sensor.backfill.get());
+    }
+}
@@ -0,0 +1,92 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link OrbitCatalog} propagation, one catalog tick per invocation.
+ * <p>
+ * Scores are reported in bodies per second. {@code serialTick} runs on a single core, so its score is already
+ * per core; divide the {@code parallelTick} score by the number of cores of the common pool
+ * ({@link ForkJoinPool#getCommonPoolParallelism()} + 1) to get the per core figure.
+ * <p>
+ * Run with {@code ./gradlew :sensorhub-driver-PlanetaryPositions:jmh -Pjmh.args="OrbitCatalogBenchmark"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrbitCatalogBenchmark {
+    private static final int NUM_BODIES = 50_000;
+    private static final double TICK = Planet.toTimeUnits(100) - Planet.toTimeUnits(0); // 100 ms in TU
+
+    private OrbitCatalog catalog;
+    private double time;
+
+    @Setup
+    public void setup() {
+        // Synthetic main belt like population
+        Random random = new Random(42);
+        String[] names = new String[NUM_BODIES];
+        double[] a = new double[NUM_BODIES];
+        double[] e = new double[NUM_BODIES];
+        double[] i = new double[NUM_BODIES];
+        double[] raan = new double[NUM_BODIES];
+        double[] omega = new double[NUM_BODIES];
+        double[] theta = new double[NUM_BODIES];
+        for (int k = 0; k < NUM_BODIES; k++) {
+            names[k] = "body" + k;
+            a[k] = 2.1 + 1.2 * random.nextDouble();
+            e[k] = 0.3 * random.nextDouble();
+            i[k] = 20 * random.nextDouble();
+            raan[k] = 360 * random.nextDouble();
+            omega[k] = 360 * random.nextDouble();
+            theta[k] = 360 * random.nextDouble();
+        }
+
+        catalog = new OrbitCatalog(names, a, e, i, raan, omega, theta);
+        time = Planet.toTimeUnits(System.currentTimeMillis());
+        catalog.propagate(time, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_BODIES)
+    public double serialTick() {
+        time += TICK;
+        catalog.propagate(time, null);
+        return catalog.getX()[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_BODIES)
+    public double parallelTick() {
+        time += TICK;
+        catalog.propagate(time, ForkJoinPool.commonPool());
+        return catalog.getX()[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_BODIES)
+    public double serialColdStart() {
+        // Large jumps in time defeat the warm start, this is the worst case per body
+        time += 1000 * TICK * 36000;
+        catalog.propagate(time, null);
+        return catalog.getX()[0];
+    }
+}
@@ -0,0 +1,140 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of one acquisition tick of the planet sensor.
+ * <p>
+ * {@code legacyTick} reproduces the original {@code Planet.calculateCurrent()} implementation, which rebuilt the
+ * J2000 epoch and every epoch invariant term with EJML temporaries, and was run twice per tick (once for the
+ * position and once for the velocity). {@code orbitModelTick} is the current path through {@link OrbitModel}.
+ * <p>
+ * Run with {@code ./gradlew :sensorhub-driver-PlanetaryPositions:jmh -Pjmh.args="PlanetBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlanetBenchmark {
+    @Param({"earth", "mars", "pluto"})
+    public String planetName;
+
+    private Planet planet;
+    private OrbitModel orbit;
+    private final double[] r = new double[3];
+    private final double[] v = new double[3];
+
+    @Setup
+    public void setup() {
+        planet = new Planet(planetName);
+        orbit = planet.getOrbitModel();
+    }
+
+    @Benchmark
+    public void legacyTick(Blackhole bh) {
+        bh.consume(legacyCalculateCurrent(orbit, System.currentTimeMillis())[0]);
+        bh.consume(legacyCalculateCurrent(orbit, System.currentTimeMillis())[1]);
+    }
+
+    @Benchmark
+    public void orbitModelTick(Blackhole bh) {
+        planet.propagate(Planet.toTimeUnits(System.currentTimeMillis()), r, v);
+        bh.consume(r);
+        bh.consume(v);
+    }
+
+    /**
+     * Copy of the original per-call computation, kept here as the baseline.
+     */
+    private static double[][] legacyCalculateCurrent(OrbitModel orbit, long currentTimeUnix) {
+        final double mu = 1;
+        final double s2tu = 1 / (5.0226757 * Math.pow(10, 6));
+        final double tol = Math.pow(10, -7);
+        final int maxno = 10;
+
+        Instant j2000 = ZonedDateTime.of(2000, 1, 1, 11, 58, 55, 0, ZoneOffset.UTC).toInstant();
+        double currentTime = (double) (currentTimeUnix - j2000.toEpochMilli()) / 1000 * s2tu;
+
+        double[] rvec = {orbit.r0x, orbit.r0y, orbit.r0z};
+        double[] vvec = {orbit.v0x, orbit.v0y, orbit.v0z};
+        SimpleMatrix r_scale = new SimpleMatrix(1, 3, true, rvec);
+        SimpleMatrix v_scale = new SimpleMatrix(1, 3, true, vvec);
+
+        double rmag = Math.sqrt(Math.pow(rvec[0], 2) + Math.pow(rvec[1], 2) + Math.pow(rvec[2], 2));
+        double vmag = Math.sqrt(Math.pow(vvec[0], 2) + Math.pow(vvec[1], 2) + Math.pow(vvec[2], 2));
+        double rdotv = rvec[0] * vvec[0] + rvec[1] * vvec[1] + rvec[2] * vvec[2];
+        double[] h = {
+                rvec[1] * vvec[2] - rvec[2] * vvec[1],
+                rvec[2] * vvec[0] - rvec[0] * vvec[2],
+                rvec[0] * vvec[1] - rvec[1] * vvec[0]};
+        double hmag = Math.sqrt(Math.pow(h[0], 2) + Math.pow(h[1], 2) + Math.pow(h[2], 2));
+        SimpleMatrix e_vec = r_scale.scale((Math.pow(vmag, 2) - (mu / rmag))).minus(v_scale.scale(rdotv));
+        e_vec = e_vec.scale(1 / mu);
+        double emag = Math.sqrt(Math.pow(e_vec.get(0, 0), 2) + Math.pow(e_vec.get(0, 1), 2)
+                + Math.pow(e_vec.get(0, 2), 2));
+        double a = Math.pow(hmag, 2) / (mu * (1 - Math.pow(emag, 2)));
+
+        double xn = Math.sqrt(mu) * currentTime / a;
+        int i = 0;
+        boolean iterate = true;
+        double s = 0.0, c = 0.0, t = 0.0, z = 0.0, rn = 0.0;
+
+        while (iterate) {
+            i++;
+            z = Math.pow(xn, 2) / a;
+
+            if (Math.abs(z) < tol) {
+                s = 1.0 / 6.0 - z / 120.0 + Math.pow(z, 2) / (5040) - Math.pow(z, 3) / (362880.0);
+                c = 1.0 / (2.0) - z / (24.0) + Math.pow(z, 2) / (720.0) - Math.pow(z, 3) / (40320.0);
+            } else if (z > 0) {
+                s = (Math.sqrt(z) - Math.sin(Math.sqrt(z))) / Math.sqrt(Math.pow(z, 3));
+                c = (1.0 - Math.cos(Math.sqrt(z))) / z;
+            } else {
+                s = (Math.sinh(Math.sqrt(-z)) - Math.sqrt(-z)) / Math.sqrt(Math.pow(-z, 3));
+                c = (1.0 - Math.cosh(Math.sqrt(-z))) / z;
+            }
+
+            t = (1.0 / Math.sqrt(mu)) * (Math.pow(xn, 3) * s + rdotv / Math.sqrt(mu) *
+                    Math.pow(xn, 2) * c + rmag * xn * (1.0 - z * s));
+            rn = Math.pow(xn, 2) * c + rdotv / Math.sqrt(mu) * xn * (1.0 - z * s) + rmag * (1.0 - z * c);
+            double xn1 = xn + (currentTime - t) / (rn / Math.sqrt(mu));
+
+            if (Math.abs(currentTime - t) < tol) iterate = false;
+            else xn = xn1;
+
+            if (i > maxno) iterate = false;
+        }
+
+        double f = 1 - Math.pow(xn, 2) / rmag * c;
+        double g = t - Math.pow(xn, 3) / Math.sqrt(mu) * s;
+        double fdot = (Math.sqrt(mu) * xn) / (rmag * rn) * (z * s - 1);
+        double gdot = 1 - Math.pow(xn, 2) / rn * c;
+
+        SimpleMatrix rCurrentMat = r_scale.scale(f).plus(v_scale.scale(g));
+        SimpleMatrix vCurrentMat = r_scale.scale(fdot).plus(v_scale.scale(gdot));
+
+        return new double[][]{
+                {rCurrentMat.get(0, 0), rCurrentMat.get(0, 1), rCurrentMat.get(0, 2)},
+                {vCurrentMat.get(0, 0), vCurrentMat.get(0, 1), vCurrentMat.get(0, 2)}};
+    }
+}
@@ -0,0 +1,62 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.PlanetaryPositions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlanetTest {
+    @Test
+    public void propagateToEpochReturnsEpochState() {
+        Planet planet = new Planet("mars");
+        OrbitModel orbit = planet.getOrbitModel();
+        double[] r = new double[3];
+        double[] v = new double[3];
+
+        planet.propagate(0.0, r, v);
+
+        assertEquals(orbit.r0x, r[0], 1e-9);
+        assertEquals(orbit.r0y, r[1], 1e-9);
+        assertEquals(orbit.r0z, r[2], 1e-9);
+        assertEquals(orbit.v0x, v[0], 1e-9);
+        assertEquals(orbit.v0y, v[1], 1e-9);
+        assertEquals(orbit.v0z, v[2], 1e-9);
+    }
+
+    @Test
+    public void batchPropagationMatchesSingleSolves() {
+        Planet planet = new Planet("mercury");
+        int n = 1000;
+        long start = System.currentTimeMillis();
+        long[] timestamps = new long[n];
+        for (int k = 0; k < n; k++)
+            timestamps[k] = start + k * 3600_000L;
+
+        double[] x = new double[n], y = new double[n], z = new double[n];
+        double[] vx = new double[n], vy = new double[n], vz = new double[n];
+        planet.propagate(timestamps, x, y, z, vx, vy, vz);
+
+        // Both paths stop on the same time tolerance, so they agree to within what that allows
+        double[] r = new double[3];
+        double[] v = new double[3];
+        for (int k = 0; k < n; k++) {
+            planet.propagate(Planet.toTimeUnits(timestamps[k]), r, v);
+            assertEquals(r[0], x[k], 1e-5);
+            assertEquals(r[1], y[k], 1e-5);
+            assertEquals(r[2], z[k], 1e-5);
+            assertEquals(v[0], vx[k], 1e-5);
+            assertEquals(v[1], vy[k], 1e-5);
+            assertEquals(v[2], vz[k], 1e-5);
+        }
+    }
+}
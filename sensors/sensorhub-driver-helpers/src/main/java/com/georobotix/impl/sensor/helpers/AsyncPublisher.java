@@ -0,0 +1,246 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue decoupling the acquisition thread of a driver from the subscribers of its output.
+ * <p>
+ * The output submits each record instead of publishing it, and a dispatcher thread publishes the queued records
+ * in order. A slow subscriber, such as storage or a process chain, then only fills the queue instead of stalling
+ * acquisition. What happens when the queue is full is set by the {@link Policy}, and the records discarded by
+ * each policy are counted.
+ * <pre>{@code
+ * publisher = new AsyncPublisher<>("MyOutput", 16, AsyncPublisher.Policy.DROP_OLDEST,
+ *         (event, startNanos) -> {
+ *             eventHandler.publish(event);
+ *             publishStats.recordPublish(startNanos);
+ *         });
+ * publisher.start();
+ * ...
+ * publisher.submit(new DataEvent(timestamp, this, dataBlock), startNanos);
+ * }</pre>
+ *
+ * @param <E> Type of the published records.
+ */
+public class AsyncPublisher<E> {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncPublisher.class);
+    private static final long STOP_TIMEOUT = 5000;
+    private static final long POLL_TIMEOUT = 100;
+
+    /**
+     * What to do with a record submitted while the queue is full.
+     */
+    public enum Policy {
+        /** Wait for the dispatcher to make room, no record is lost but acquisition is slowed down. */
+        BLOCK,
+        /** Discard the oldest queued record to make room for the new one. */
+        DROP_OLDEST,
+        /** Keep only the most recent record, replacing the one waiting to be published if any. */
+        LATEST_ONLY
+    }
+
+    /**
+     * Publishes the records taken from the queue, on the dispatcher thread.
+     */
+    public interface Sink<E> {
+        /**
+         * @param record Record to publish.
+         * @param startNanos {@link System#nanoTime()} passed when the record was submitted.
+         */
+        void publish(E record, long startNanos);
+    }
+
+    private final String name;
+    private final Policy policy;
+    private final Sink<E> sink;
+    private final BlockingQueue<Entry<E>> queue;
+
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final AtomicLong blockedRecords = new AtomicLong();
+    private final AtomicLong droppedOldest = new AtomicLong();
+    private final AtomicLong replacedRecords = new AtomicLong();
+    private final AtomicLong rejectedRecords = new AtomicLong();
+
+    /**
+     * @param name Name of the dispatcher thread.
+     * @param capacity Maximum number of queued records, ignored by {@link Policy#LATEST_ONLY} which keeps one.
+     * @param policy What to do when the queue is full.
+     * @param sink Publishes the records.
+     */
+    public AsyncPublisher(String name, int capacity, Policy policy, Sink<E> sink) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+
+        this.name = name;
+        this.policy = policy;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(policy == Policy.LATEST_ONLY ? 1 : capacity);
+    }
+
+    /**
+     * Starts the dispatcher thread.
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        dispatcher = DriverThreads.start(name, this::dispatch, false);
+    }
+
+    /**
+     * Stops accepting records, publishes the records still queued and waits for the dispatcher thread to end.
+     */
+    public synchronized void stop() {
+        running = false;
+        DriverThreads.join(dispatcher, STOP_TIMEOUT);
+        dispatcher = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Queues a record for publishing, applying the policy if the queue is full.
+     *
+     * @param record Record to publish.
+     * @param startNanos {@link System#nanoTime()} when the output started building the record.
+     * @return {@code true} if the record was queued, {@code false} if the publisher is stopped.
+     */
+    public boolean submit(E record, long startNanos) {
+        if (!running) {
+            rejectedRecords.incrementAndGet();
+            return false;
+        }
+
+        Entry<E> entry = new Entry<>(record, startNanos);
+        if (queue.offer(entry))
+            return true;
+
+        if (policy == Policy.BLOCK) {
+            blockedRecords.incrementAndGet();
+            try {
+                while (!queue.offer(entry, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        rejectedRecords.incrementAndGet();
+                        return false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejectedRecords.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        // Make room by discarding queued records, the dispatcher may take some at the same time
+        AtomicLong discarded = policy == Policy.LATEST_ONLY ? replacedRecords : droppedOldest;
+        while (!queue.offer(entry)) {
+            if (queue.poll() != null)
+                discarded.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void dispatch() {
+        // Once stopped, keep going until the records submitted before are published
+        while (running || !queue.isEmpty()) {
+            Entry<E> entry;
+            try {
+                entry = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                logger.warn("Dispatcher {} interrupted with {} records queued", name, queue.size());
+                return;
+            }
+            if (entry == null)
+                continue;
+
+            try {
+                sink.publish(entry.record, entry.startNanos);
+            } catch (RuntimeException e) {
+                logger.error("Error while publishing record from {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * @return The policy applied when the queue is full.
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The number of records waiting to be published.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return The number of records that found the queue full and had to wait, with {@link Policy#BLOCK}.
+     */
+    public long getBlockedRecords() {
+        return blockedRecords.get();
+    }
+
+    /**
+     * @return The number of queued records discarded to make room, with {@link Policy#DROP_OLDEST}.
+     */
+    public long getDroppedOldest() {
+        return droppedOldest.get();
+    }
+
+    /**
+     * @return The number of records replaced by a more recent one before being published,
+     * with {@link Policy#LATEST_ONLY}.
+     */
+    public long getReplacedRecords() {
+        return replacedRecords.get();
+    }
+
+    /**
+     * @return The number of records submitted while the publisher was stopped or stopping.
+     */
+    public long getRejectedRecords() {
+        return rejectedRecords.get();
+    }
+
+    /**
+     * @return The total number of records that were never published.
+     */
+    public long getDroppedRecords() {
+        return droppedOldest.get() + replacedRecords.get() + rejectedRecords.get();
+    }
+
+    private static final class Entry<E> {
+        final E record;
+        final long startNanos;
+
+        Entry(E record, long startNanos) {
+            this.record = record;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+
+/**
+ * Starts and stops the acquisition threads of the drivers.
+ * <p>
+ * Threads can be virtual threads when the node runs on Java 21 or later, so that thousands of simulated or
+ * slow-polling sensors don't each hold a platform thread and its stack. The node itself builds for Java 17, so
+ * virtual threads are created through reflection. On older runtimes a platform thread is started instead.
+ * <p>
+ * Stopping is structured: {@link #join(Thread, long)} waits for the thread to end, and interrupts it if it
+ * doesn't end in time, so a driver can release its resources knowing the acquisition loop is gone.
+ */
+public final class DriverThreads {
+    private static final Logger logger = LoggerFactory.getLogger(DriverThreads.class);
+
+    // Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.unstarted(Runnable), when available
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderUnstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderName = builderClass.getMethod("name", String.class);
+            builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+
+            // Fails on runtimes where virtual threads are still a preview feature
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_UNSTARTED = builderUnstarted;
+    }
+
+    private DriverThreads() {
+    }
+
+    /**
+     * @return {@code true} if the runtime can create virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates and starts a thread.
+     *
+     * @param name Name of the thread.
+     * @param task Work done by the thread.
+     * @param virtual Whether to use a virtual thread. Falls back to a platform thread when not supported.
+     * @return The started thread.
+     */
+    public static Thread start(String name, Runnable task, boolean virtual) {
+        Thread thread = null;
+        if (virtual) {
+            if (OF_VIRTUAL != null) {
+                try {
+                    Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                    thread = (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+                } catch (ReflectiveOperationException e) {
+                    logger.warn("Cannot create virtual thread {}, using a platform thread", name, e);
+                }
+            }
+            else {
+                logger.debug("Virtual threads are not supported by this runtime, using a platform thread for {}", name);
+            }
+        }
+
+        if (thread == null)
+            thread = new Thread(task, name);
+
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Waits for a thread to end, interrupting it if it is still running after the timeout.
+     * Does nothing when called from the thread itself or with a {@code null} thread.
+     *
+     * @param thread Thread to wait for.
+     * @param timeoutMillis Time to wait before interrupting the thread [ms].
+     * @return {@code true} if the thread has ended.
+     */
+    public static boolean join(Thread thread, long timeoutMillis) {
+        if (thread == null || thread == Thread.currentThread())
+            return thread == null;
+
+        try {
+            thread.join(timeoutMillis);
+            if (thread.isAlive()) {
+                logger.warn("Thread {} did not stop within {} ms, interrupting it", thread.getName(), timeoutMillis);
+                thread.interrupt();
+                thread.join(timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+}
@@ -0,0 +1,218 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import net.opengis.swe.v20.DataEncoding;
+import net.opengis.swe.v20.DataRecord;
+import org.sensorhub.api.data.DataEvent;
+import org.sensorhub.impl.sensor.AbstractSensorModule;
+import org.sensorhub.impl.sensor.AbstractSensorOutput;
+import org.vast.swe.SWEBuilders;
+import org.vast.swe.SWEHelper;
+
+import java.util.function.Supplier;
+
+/**
+ * Companion output periodically reporting how another output of the same sensor is publishing.
+ * <p>
+ * Each report carries the publish rate over the last report period, the latency from the start of
+ * {@code setData} to the event being published, and the dropped, coalesced and queued record counters of the
+ * monitored output. Reports are published as a regular datastream, so they can be stored and queried like any
+ * other observation on headless nodes. When the sensor samples with a {@link PeriodicAcquisition}, the deadline
+ * misses, skipped ticks and jitter of the acquisition loop are reported too.
+ * <pre>{@code
+ * healthOutput = new HealthOutput<>(this, output, () -> acquisition);
+ * addOutput(healthOutput, false);
+ * healthOutput.doInit();
+ * ...
+ * healthOutput.start(config.healthReportPeriod * 1000L);
+ * }</pre>
+ *
+ * @param <T> Type of the sensor providing the output.
+ */
+public class HealthOutput<T extends AbstractSensorModule<?>> extends PeriodicReportOutput<T> {
+    public static final String NAME_SUFFIX = "Health";
+
+    private final String monitoredName;
+    private final MonitoredOutput monitored;
+    private final Supplier<PeriodicAcquisition> acquisition;
+
+    private DataRecord dataRecord;
+    private DataEncoding dataEncoding;
+
+    // Publish count of the previous report, used to compute the rate
+    private long lastCount;
+
+    /**
+     * Creates a health output named after the monitored output, followed by {@link #NAME_SUFFIX}.
+     *
+     * @param parentSensor Sensor driver providing both outputs.
+     * @param monitored Output to report on.
+     */
+    public <O extends AbstractSensorOutput<?> & MonitoredOutput> HealthOutput(T parentSensor, O monitored) {
+        this(parentSensor, monitored, null);
+    }
+
+    /**
+     * Creates a health output also reporting on the acquisition loop feeding the monitored output.
+     *
+     * @param parentSensor Sensor driver providing both outputs.
+     * @param monitored Output to report on.
+     * @param acquisition Provides the acquisition loop of the sensor, which may be recreated on each start
+     *                    and is {@code null} while the sensor is stopped.
+     */
+    public <O extends AbstractSensorOutput<?> & MonitoredOutput> HealthOutput(T parentSensor, O monitored,
+            Supplier<PeriodicAcquisition> acquisition) {
+        super(monitored.getName() + NAME_SUFFIX, parentSensor);
+        this.monitoredName = monitored.getName();
+        this.monitored = monitored;
+        this.acquisition = acquisition;
+    }
+
+    /**
+     * Initializes the data structure for the output, defining the fields, their ordering, and data types.
+     */
+    public void doInit() {
+        SWEHelper sweFactory = new SWEHelper();
+
+        SWEBuilders.DataRecordBuilder builder = sweFactory.createRecord()
+                .name(getName())
+                .label(monitoredName + " Health")
+                .description("Publishing statistics of the " + monitoredName + " output.")
+                .addField("sampleTime", sweFactory.createTime()
+                        .asSamplingTimeIsoUTC()
+                        .label("Report Time"))
+                .addField("publishRate", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("PublishRate"))
+                        .label("Publish Rate")
+                        .description("Records published per second since the previous report.")
+                        .uomCode("Hz"))
+                .addField("meanLatency", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("MeanPublishLatency"))
+                        .label("Mean Latency")
+                        .description("Average time from the start of setData to the record being published.")
+                        .uomCode("s"))
+                .addField("p99Latency", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("PublishLatencyP99"))
+                        .label("99th Percentile Latency")
+                        .uomCode("s"))
+                .addField("maxLatency", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("MaxPublishLatency"))
+                        .label("Max Latency")
+                        .uomCode("s"))
+                .addField("publishedRecords", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("PublishedRecords"))
+                        .label("Published Records")
+                        .description("Total number of records published."))
+                .addField("droppedRecords", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("DroppedRecords"))
+                        .label("Dropped Records")
+                        .description("Total number of records discarded before being published."))
+                .addField("coalescedRecords", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("CoalescedRecords"))
+                        .label("Coalesced Records")
+                        .description("Total number of samples merged into other records or filtered out."))
+                .addField("queueDepth", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("QueueDepth"))
+                        .label("Queue Depth")
+                        .description("Number of records waiting to be published."));
+
+        if (acquisition != null) {
+            builder.addField("deadlineMisses", sweFactory.createCount()
+                            .definition(sweFactory.getPropertyUri("DeadlineMisses"))
+                            .label("Deadline Misses")
+                            .description("Number of acquisition ticks that ran past the deadline of the next one."))
+                    .addField("skippedTicks", sweFactory.createCount()
+                            .definition(sweFactory.getPropertyUri("SkippedTicks"))
+                            .label("Skipped Ticks")
+                            .description("Number of acquisition ticks dropped after an overrun."))
+                    .addField("meanJitter", sweFactory.createQuantity()
+                            .definition(sweFactory.getPropertyUri("MeanJitter"))
+                            .label("Mean Jitter")
+                            .description("Average delay between the deadline of an acquisition tick and its start.")
+                            .uomCode("s"))
+                    .addField("jitterStdDev", sweFactory.createQuantity()
+                            .definition(sweFactory.getPropertyUri("JitterStdDev"))
+                            .label("Jitter Standard Deviation")
+                            .uomCode("s"))
+                    .addField("maxJitter", sweFactory.createQuantity()
+                            .definition(sweFactory.getPropertyUri("MaxJitter"))
+                            .label("Max Jitter")
+                            .uomCode("s"));
+        }
+        dataRecord = builder.build();
+
+        dataEncoding = sweFactory.newTextEncoding(",", "\n");
+    }
+
+    @Override
+    public DataComponent getRecordDescription() {
+        return dataRecord;
+    }
+
+    @Override
+    public DataEncoding getRecommendedEncoding() {
+        return dataEncoding;
+    }
+
+    @Override
+    protected void resetReport() {
+        lastCount = monitored.getPublishStatistics().getPublishCount();
+    }
+
+    @Override
+    protected void publishReport(long timestamp, double elapsed) {
+        PublishStatistics stats = monitored.getPublishStatistics();
+        long count = stats.getPublishCount();
+        double rate = elapsed > 0 ? (count - lastCount) / elapsed : Double.NaN;
+        lastCount = count;
+
+        DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
+        dataBlock.setDoubleValue(0, timestamp / 1000d);
+        dataBlock.setDoubleValue(1, rate);
+        dataBlock.setDoubleValue(2, stats.getAverageLatency());
+        dataBlock.setDoubleValue(3, stats.getLatencyPercentile(99));
+        dataBlock.setDoubleValue(4, stats.getMaxLatency());
+        dataBlock.setLongValue(5, count);
+        dataBlock.setLongValue(6, monitored.getDroppedRecords());
+        dataBlock.setLongValue(7, monitored.getCoalescedRecords());
+        dataBlock.setIntValue(8, monitored.getQueueDepth());
+        if (acquisition != null)
+            setAcquisitionValues(dataBlock, 9, acquisition.get());
+
+        latestRecord = dataBlock;
+        latestRecordTime = timestamp;
+        eventHandler.publish(new DataEvent(latestRecordTime, HealthOutput.this, dataBlock));
+    }
+
+    /**
+     * Writes the statistics of the acquisition loop, since it was started, from the given index.
+     */
+    private static void setAcquisitionValues(DataBlock dataBlock, int index, PeriodicAcquisition loop) {
+        if (loop == null) {
+            dataBlock.setLongValue(index, 0);
+            dataBlock.setLongValue(index + 1, 0);
+            dataBlock.setDoubleValue(index + 2, Double.NaN);
+            dataBlock.setDoubleValue(index + 3, Double.NaN);
+            dataBlock.setDoubleValue(index + 4, Double.NaN);
+            return;
+        }
+
+        dataBlock.setLongValue(index, loop.getDeadlineMisses());
+        dataBlock.setLongValue(index + 1, loop.getSkippedTicks());
+        dataBlock.setDoubleValue(index + 2, loop.getMeanJitter() / 1000d);
+        dataBlock.setDoubleValue(index + 3, loop.getJitterStdDev() / 1000d);
+        dataBlock.setDoubleValue(index + 4, loop.getMaxJitter() / 1000d);
+    }
+}
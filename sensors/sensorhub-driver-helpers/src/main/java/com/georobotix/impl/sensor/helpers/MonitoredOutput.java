@@ -0,0 +1,47 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+/**
+ * Sensor output whose publishing can be monitored by a {@link HealthOutput}.
+ * <p>
+ * Only the publish statistics are mandatory, outputs that never drop, coalesce or queue records keep the
+ * default implementations of the other counters.
+ */
+public interface MonitoredOutput {
+    /**
+     * @return The sampling period and publish latency statistics of the output.
+     */
+    PublishStatistics getPublishStatistics();
+
+    /**
+     * @return The number of records discarded before being published, e.g. by a full publish queue.
+     */
+    default long getDroppedRecords() {
+        return 0;
+    }
+
+    /**
+     * @return The number of samples not published because they were merged into another record or filtered out,
+     * e.g. by a dead-band.
+     */
+    default long getCoalescedRecords() {
+        return 0;
+    }
+
+    /**
+     * @return The number of records waiting to be published.
+     */
+    default int getQueueDepth() {
+        return 0;
+    }
+}
@@ -0,0 +1,240 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-rate acquisition loop for sensor drivers.
+ * <p>
+ * Ticks are scheduled on absolute deadlines ({@code start + n * period}), so the time spent computing and
+ * publishing a sample does not accumulate into the period the way a {@code Thread.sleep(period)} loop does.
+ * A tick that starts after the next deadline has already passed is counted as a deadline miss and handled
+ * according to the {@link OverrunPolicy}. The lateness of each tick relative to its deadline is recorded as jitter.
+ * Deadline misses are logged as warnings, at most once per minute, and the statistics can be published with
+ * a {@link HealthOutput}.
+ * <p>
+ * Typical use from a driver:
+ * <pre>{@code
+ * acquisition = new PeriodicAcquisition("MySensor", config.samplingPeriod, config.overrunPolicy,
+ *         sampleTime -> output.setData(sampleTime, readSensor()));
+ * acquisition.start();
+ * ...
+ * acquisition.stop();
+ * }</pre>
+ */
+public class PeriodicAcquisition {
+    private static final Logger logger = LoggerFactory.getLogger(PeriodicAcquisition.class);
+    private static final long STOP_TIMEOUT = 5000;
+    private static final long MISS_WARNING_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * What to do with ticks whose deadline passed while the previous tick was still running.
+     */
+    public enum OverrunPolicy {
+        /** Drop the missed ticks and resume on the next future deadline. */
+        SKIP,
+        /** Run the missed ticks back to back until the loop is on schedule again. */
+        CATCH_UP
+    }
+
+    /**
+     * Work done on each tick.
+     */
+    public interface Task {
+        /**
+         * @param sampleTime Scheduled time of the tick in ms since the Unix epoch.
+         */
+        void run(long sampleTime);
+    }
+
+    private final String name;
+    private final long periodNanos;
+    private final OverrunPolicy policy;
+    private final Task task;
+    private final boolean virtualThread;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    // Statistics, written by the acquisition thread only
+    private volatile long ticks;
+    private volatile long deadlineMisses;
+    private volatile long skippedTicks;
+    private volatile double meanJitter;
+    private volatile double maxJitter;
+    private volatile double jitterM2;
+
+    /**
+     * @param name Name of the acquisition thread.
+     * @param period Time between two ticks [ms].
+     * @param policy What to do when ticks overrun their period.
+     * @param task Work done on each tick.
+     */
+    public PeriodicAcquisition(String name, long period, OverrunPolicy policy, Task task) {
+        this(name, period, policy, false, task);
+    }
+
+    /**
+     * @param name Name of the acquisition thread.
+     * @param period Time between two ticks [ms].
+     * @param policy What to do when ticks overrun their period.
+     * @param virtualThread Whether to run the loop on a virtual thread, see {@link DriverThreads}.
+     * @param task Work done on each tick.
+     */
+    public PeriodicAcquisition(String name, long period, OverrunPolicy policy, boolean virtualThread, Task task) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Period must be positive");
+
+        this.name = name;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(period);
+        this.policy = policy;
+        this.task = task;
+        this.virtualThread = virtualThread;
+    }
+
+    /**
+     * Starts the acquisition thread. The first tick runs immediately.
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        thread = DriverThreads.start(name, this::loop, virtualThread);
+    }
+
+    /**
+     * Stops the acquisition thread after the tick in progress and waits for it to end.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            DriverThreads.join(thread, STOP_TIMEOUT);
+        }
+    }
+
+    public boolean isRunning() {
+        Thread t = thread;
+        return running && t != null && t.isAlive();
+    }
+
+    private void loop() {
+        // Wall clock time is only read once, deadlines are tracked on the monotonic clock
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long tick = 0;
+        long lastWarningNanos = startNanos - MISS_WARNING_INTERVAL;
+
+        while (running) {
+            long deadline = startNanos + tick * periodNanos;
+
+            // Wait for the deadline of this tick
+            long now = System.nanoTime();
+            while (running && now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                now = System.nanoTime();
+            }
+            if (!running)
+                break;
+
+            recordJitter(now - deadline);
+
+            try {
+                task.run(startMillis + TimeUnit.NANOSECONDS.toMillis(tick * periodNanos));
+            } catch (RuntimeException e) {
+                logger.error("Error in acquisition tick of {}", name, e);
+            }
+            ticks++;
+            tick++;
+
+            // Deal with deadlines that passed while the task was running
+            long end = System.nanoTime();
+            long late = (end - startNanos) / periodNanos - tick + 1;
+            if (late > 0) {
+                deadlineMisses++;
+                if (policy == OverrunPolicy.SKIP) {
+                    skippedTicks += late;
+                    tick += late;
+                }
+
+                // Overruns would go unnoticed on headless nodes, but must not flood the log either
+                if (end - lastWarningNanos >= MISS_WARNING_INTERVAL) {
+                    lastWarningNanos = end;
+                    logger.warn("{} overran its {} ms period: {} deadline misses and {} skipped ticks out of {} ticks, "
+                            + "max jitter {} ms", name, TimeUnit.NANOSECONDS.toMillis(periodNanos), deadlineMisses,
+                            skippedTicks, ticks, String.format("%.3f", maxJitter));
+                }
+            }
+        }
+    }
+
+    private void recordJitter(long lateNanos) {
+        // Welford's online mean and variance
+        double jitter = lateNanos / 1e6;
+        long n = ticks + 1;
+        double delta = jitter - meanJitter;
+        double mean = meanJitter + delta / n;
+        jitterM2 += delta * (jitter - mean);
+        meanJitter = mean;
+        if (jitter > maxJitter)
+            maxJitter = jitter;
+    }
+
+    /**
+     * @return The number of ticks run.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return The number of ticks that ran past the deadline of the next one.
+     */
+    public long getDeadlineMisses() {
+        return deadlineMisses;
+    }
+
+    /**
+     * @return The number of ticks dropped by the {@link OverrunPolicy#SKIP} policy.
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    /**
+     * @return The average delay between the deadline of a tick and its actual start [ms].
+     */
+    public double getMeanJitter() {
+        return meanJitter;
+    }
+
+    /**
+     * @return The largest delay between the deadline of a tick and its actual start [ms].
+     */
+    public double getMaxJitter() {
+        return maxJitter;
+    }
+
+    /**
+     * @return The standard deviation of the delay between the deadline of a tick and its actual start [ms].
+     */
+    public double getJitterStdDev() {
+        long n = ticks;
+        return n > 1 ? Math.sqrt(jitterM2 / (n - 1)) : 0;
+    }
+}
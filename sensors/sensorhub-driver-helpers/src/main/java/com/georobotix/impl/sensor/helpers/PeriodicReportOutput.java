@@ -0,0 +1,117 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.sensorhub.impl.sensor.AbstractSensorModule;
+import org.sensorhub.impl.sensor.AbstractSensorOutput;
+
+/**
+ * Base class of the companion outputs publishing a report at a fixed period, such as {@link HealthOutput}.
+ * <p>
+ * Reports are published from a dedicated {@link PeriodicAcquisition} thread, or on demand with {@link #report}.
+ * The first report is published one period after {@link #start}, so that it covers a whole period.
+ *
+ * @param <T> Type of the sensor providing the output.
+ */
+public abstract class PeriodicReportOutput<T extends AbstractSensorModule<?>> extends AbstractSensorOutput<T> {
+    private final Object processingLock = new Object();
+
+    private PeriodicAcquisition reporter;
+    private volatile long reportPeriod;
+
+    // Time of the previous report, used to compute rates
+    private long lastReportNanos;
+
+    /**
+     * Creates a new output for the sensor driver.
+     *
+     * @param name Name of the output.
+     * @param parentSensor Sensor driver providing this output.
+     */
+    protected PeriodicReportOutput(String name, T parentSensor) {
+        super(name, parentSensor);
+    }
+
+    @Override
+    public double getAverageSamplingPeriod() {
+        return reporter != null ? reportPeriod / 1000d : Double.NaN;
+    }
+
+    /**
+     * Starts publishing reports.
+     *
+     * @param reportPeriod Time between two reports [ms].
+     */
+    public synchronized void start(long reportPeriod) {
+        if (reporter != null)
+            return;
+
+        this.reportPeriod = reportPeriod;
+        synchronized (processingLock) {
+            resetReport();
+            lastReportNanos = System.nanoTime();
+        }
+
+        reporter = new PeriodicAcquisition(parentSensor.getUniqueIdentifier() + "/" + getName(), reportPeriod,
+                PeriodicAcquisition.OverrunPolicy.SKIP, this::onTick);
+        reporter.start();
+    }
+
+    /**
+     * Stops publishing reports and waits for the reporting thread to end.
+     */
+    public synchronized void stop() {
+        if (reporter != null) {
+            reporter.stop();
+            reporter = null;
+        }
+    }
+
+    private void onTick(long sampleTime) {
+        // The first tick runs right away, skip it so that the first report covers a whole period
+        boolean due;
+        synchronized (processingLock) {
+            due = System.nanoTime() - lastReportNanos >= reportPeriod * 500_000L;
+        }
+        if (due)
+            report(sampleTime);
+    }
+
+    /**
+     * Publishes a report.
+     *
+     * @param timestamp Time of the report in ms since the Unix epoch.
+     */
+    public void report(long timestamp) {
+        synchronized (processingLock) {
+            long now = System.nanoTime();
+            double elapsed = (now - lastReportNanos) / 1e9;
+            lastReportNanos = now;
+
+            publishReport(timestamp, elapsed);
+        }
+    }
+
+    /**
+     * Takes the reference values that the first report computes its rates from.
+     * Called when reporting starts, never concurrently with {@link #publishReport}.
+     */
+    protected abstract void resetReport();
+
+    /**
+     * Builds and publishes a report. Calls are serialized.
+     *
+     * @param timestamp Time of the report in ms since the Unix epoch.
+     * @param elapsed Time since the previous report [s].
+     */
+    protected abstract void publishReport(long timestamp, double elapsed);
+}
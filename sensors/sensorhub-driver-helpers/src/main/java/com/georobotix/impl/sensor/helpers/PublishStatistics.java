@@ -0,0 +1,117 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampling period and publish latency statistics of a sensor output.
+ * <p>
+ * Outputs call {@link #recordPublish(long)} each time they publish a record, passing the time at which they
+ * started building it. Recording is lock-free and allocation-free.
+ * <pre>{@code
+ * long start = System.nanoTime();
+ * ... populate and publish the data block ...
+ * stats.recordPublish(start);
+ * }</pre>
+ */
+public class PublishStatistics {
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private final RingStatistics intervals;
+    private final RingStatistics latencies;
+    private final AtomicLong lastPublish = new AtomicLong(Long.MIN_VALUE);
+
+    public PublishStatistics() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Number of latest samples the statistics are computed on.
+     */
+    public PublishStatistics(int capacity) {
+        this.intervals = new RingStatistics(capacity);
+        this.latencies = new RingStatistics(capacity);
+    }
+
+    /**
+     * Records a published record.
+     *
+     * @param startNanos {@link System#nanoTime()} when the output started building the record.
+     */
+    public void recordPublish(long startNanos) {
+        long now = System.nanoTime();
+        latencies.record(now - startNanos);
+
+        long previous = lastPublish.getAndSet(now);
+        if (previous != Long.MIN_VALUE)
+            intervals.record(now - previous);
+    }
+
+    /**
+     * @return The number of records published.
+     */
+    public long getPublishCount() {
+        return latencies.getCount();
+    }
+
+    /**
+     * @return The average time between two published records [s], or NaN before the second record.
+     */
+    public double getAverageSamplingPeriod() {
+        return intervals.getAverage() / 1e9;
+    }
+
+    /**
+     * @return The shortest time between two published records [s].
+     */
+    public double getMinSamplingPeriod() {
+        return intervals.getMin() / 1e9;
+    }
+
+    /**
+     * @return The longest time between two published records [s].
+     */
+    public double getMaxSamplingPeriod() {
+        return intervals.getMax() / 1e9;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100.
+     * @return The percentile of the time between two published records [s].
+     */
+    public double getSamplingPeriodPercentile(double percentile) {
+        return intervals.getPercentile(percentile) / 1e9;
+    }
+
+    /**
+     * @return The average time spent building and publishing a record [s].
+     */
+    public double getAverageLatency() {
+        return latencies.getAverage() / 1e9;
+    }
+
+    /**
+     * @return The longest time spent building and publishing a record [s].
+     */
+    public double getMaxLatency() {
+        return latencies.getMax() / 1e9;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100.
+     * @return The percentile of the time spent building and publishing a record [s].
+     */
+    public double getLatencyPercentile(double percentile) {
+        return latencies.getPercentile(percentile) / 1e9;
+    }
+}
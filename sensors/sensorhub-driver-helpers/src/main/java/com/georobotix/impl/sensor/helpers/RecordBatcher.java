@@ -0,0 +1,202 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Collects the records of a high-rate output so that they are published several at a time.
+ * <p>
+ * A batch is flushed once it holds the maximum number of records, or once its first record is older than the
+ * maximum delay. Outputs publish each batch as a single {@code DataEvent} carrying all of its records, which
+ * subscribers and storage still handle as individual observations, so the per-event cost of the event bus is paid
+ * once per batch instead of once per sample.
+ * <p>
+ * Adding a record only checks the age of its own batch, so a partial batch would wait for the next record when the
+ * source slows down or stalls. {@link #startDeadlineCheck(String, Object)} starts a thread flushing such batches
+ * when their delay expires, and the output calls {@link #flush()} when acquisition stops to publish the last
+ * partial batch. The batcher is not thread-safe, outputs use it under their processing lock, which the deadline
+ * check takes as well.
+ * <pre>{@code
+ * batcher = new RecordBatcher<>(config.batchSize, config.batchMaxDelay, DataBlock[]::new,
+ *         (records, startNanos) -> eventHandler.publish(new DataEvent(latestRecordTime, this, records)));
+ * batcher.startDeadlineCheck(getName() + "/batcher", processingLock);
+ * ...
+ * batcher.add(dataBlock, startNanos);
+ * ...
+ * batcher.stopDeadlineCheck();
+ * batcher.flush();
+ * }</pre>
+ *
+ * @param <E> Type of the records.
+ */
+public class RecordBatcher<E> {
+    /**
+     * Publishes a batch of records.
+     */
+    public interface Flush<E> {
+        /**
+         * @param records Records of the batch, in the order they were added. The array belongs to the receiver.
+         * @param startNanos {@link System#nanoTime()} passed with each record, only valid during the call.
+         */
+        void flush(E[] records, long[] startNanos);
+    }
+
+    private final int maxRecords;
+    private final long maxDelayNanos;
+    private final IntFunction<E[]> arrayFactory;
+    private final Flush<E> flush;
+
+    private E[] records;
+    private final long[] startNanos;
+    private int count;
+    private long batches;
+
+    private static final long MIN_IDLE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Deadline check thread and the lock of the output, held while checking
+    private Thread deadlineThread;
+    private volatile boolean checking;
+    private Object lock;
+
+    /**
+     * @param maxRecords Maximum number of records in a batch.
+     * @param maxDelay Maximum time between the first and the last record of a batch [ms].
+     * @param arrayFactory Creates the record arrays handed to {@code flush}, e.g. {@code DataBlock[]::new}.
+     * @param flush Publishes each batch.
+     */
+    public RecordBatcher(int maxRecords, long maxDelay, IntFunction<E[]> arrayFactory, Flush<E> flush) {
+        if (maxRecords <= 0)
+            throw new IllegalArgumentException("Maximum number of records must be positive");
+
+        this.maxRecords = maxRecords;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        this.arrayFactory = arrayFactory;
+        this.flush = flush;
+        this.records = arrayFactory.apply(maxRecords);
+        this.startNanos = new long[maxRecords];
+    }
+
+    /**
+     * Adds a record to the current batch, flushing the batch if it is full or old enough.
+     *
+     * @param record Record to publish.
+     * @param startNanos {@link System#nanoTime()} when the output started building the record.
+     */
+    public void add(E record, long startNanos) {
+        records[count] = record;
+        this.startNanos[count] = startNanos;
+        count++;
+
+        if (count >= maxRecords || startNanos - this.startNanos[0] >= maxDelayNanos)
+            flush();
+    }
+
+    /**
+     * Publishes the records of the current batch, if any.
+     */
+    public void flush() {
+        if (count == 0)
+            return;
+
+        // Full batches hand over the working array, partial ones a copy of the right length
+        E[] batch;
+        if (count == maxRecords) {
+            batch = records;
+            records = arrayFactory.apply(maxRecords);
+        }
+        else {
+            batch = arrayFactory.apply(count);
+            System.arraycopy(records, 0, batch, 0, count);
+            Arrays.fill(records, 0, count, null);
+        }
+        count = 0;
+        batches++;
+        flush.flush(batch, startNanos);
+    }
+
+    /**
+     * Flushes the current batch if its first record is older than the maximum delay.
+     *
+     * @return {@code true} if a batch was flushed.
+     */
+    public boolean flushIfDue() {
+        if (count == 0 || System.nanoTime() - startNanos[0] < maxDelayNanos)
+            return false;
+
+        flush();
+        return true;
+    }
+
+    /**
+     * Starts a thread flushing partial batches once their maximum delay expires, even when no record is added.
+     *
+     * @param name Name of the thread.
+     * @param lock Lock held by the output when using the batcher, taken by the thread for each check.
+     */
+    public synchronized void startDeadlineCheck(String name, Object lock) {
+        if (checking)
+            return;
+
+        this.lock = lock;
+        checking = true;
+        deadlineThread = DriverThreads.start(name, this::checkDeadlines, false);
+    }
+
+    /**
+     * Stops the deadline check thread and waits for it to end. The current batch is left as is.
+     */
+    public synchronized void stopDeadlineCheck() {
+        checking = false;
+        if (deadlineThread != null) {
+            LockSupport.unpark(deadlineThread);
+            DriverThreads.join(deadlineThread, maxDelayNanos / 1_000_000 + 1000);
+            deadlineThread = null;
+        }
+    }
+
+    private void checkDeadlines() {
+        while (checking) {
+            // Sleep until the current batch is due, or for a whole delay when there is none: a batch started in
+            // the meantime is due after this thread wakes up
+            long deadline;
+            synchronized (lock) {
+                flushIfDue();
+                deadline = count > 0 ? startNanos[0] + maxDelayNanos
+                        : System.nanoTime() + Math.max(maxDelayNanos, MIN_IDLE_CHECK_NANOS);
+            }
+
+            long now = System.nanoTime();
+            while (checking && now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                now = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * @return The number of records waiting in the current batch.
+     */
+    public int getPendingRecords() {
+        return count;
+    }
+
+    /**
+     * @return The number of batches flushed.
+     */
+    public long getBatchCount() {
+        return batches;
+    }
+}
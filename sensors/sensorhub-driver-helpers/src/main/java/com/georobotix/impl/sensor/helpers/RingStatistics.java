@@ -0,0 +1,117 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics over the latest values of a series, kept in a fixed-size ring of primitive longs.
+ * <p>
+ * Recording a value is lock-free and allocation-free, so it can sit on the publish path of an output.
+ * Readers take a snapshot of the ring, which may mix in a value recorded during the read; that is fine
+ * for monitoring purposes.
+ */
+public class RingStatistics {
+    private final AtomicLongArray values;
+    private final AtomicLong count = new AtomicLong();
+    private final int mask;
+
+    /**
+     * @param capacity Number of latest values kept, rounded up to a power of two.
+     */
+    public RingStatistics(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.values = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Records a value, overwriting the oldest one once the ring is full.
+     */
+    public void record(long value) {
+        long index = count.getAndIncrement();
+        values.set((int) (index & mask), value);
+    }
+
+    /**
+     * @return The number of values recorded since creation, including those overwritten.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The average of the values in the ring, or NaN if none was recorded.
+     */
+    public double getAverage() {
+        int n = size();
+        if (n == 0)
+            return Double.NaN;
+
+        double sum = 0;
+        for (int k = 0; k < n; k++)
+            sum += values.get(k);
+        return sum / n;
+    }
+
+    /**
+     * @return The smallest value in the ring, or NaN if none was recorded.
+     */
+    public double getMin() {
+        int n = size();
+        if (n == 0)
+            return Double.NaN;
+
+        long min = Long.MAX_VALUE;
+        for (int k = 0; k < n; k++)
+            min = Math.min(min, values.get(k));
+        return min;
+    }
+
+    /**
+     * @return The largest value in the ring, or NaN if none was recorded.
+     */
+    public double getMax() {
+        int n = size();
+        if (n == 0)
+            return Double.NaN;
+
+        long max = Long.MIN_VALUE;
+        for (int k = 0; k < n; k++)
+            max = Math.max(max, values.get(k));
+        return max;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100.
+     * @return The value of the percentile over the values in the ring (nearest rank), or NaN if none was recorded.
+     */
+    public double getPercentile(double percentile) {
+        int n = size();
+        if (n == 0)
+            return Double.NaN;
+
+        long[] snapshot = new long[n];
+        for (int k = 0; k < n; k++)
+            snapshot[k] = values.get(k);
+        Arrays.sort(snapshot);
+
+        int rank = (int) Math.ceil(percentile / 100 * n);
+        return snapshot[Math.min(n - 1, Math.max(0, rank - 1))];
+    }
+
+    private int size() {
+        return (int) Math.min(count.get(), mask + 1L);
+    }
+}
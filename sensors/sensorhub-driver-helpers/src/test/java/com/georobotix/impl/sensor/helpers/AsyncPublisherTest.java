@@ -0,0 +1,111 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncPublisherTest {
+    private final List<Integer> published = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstTaken = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // Holds the dispatcher on the first record so that the following ones pile up in the queue
+    private AsyncPublisher<Integer> newPublisher(int capacity, AsyncPublisher.Policy policy) {
+        AsyncPublisher<Integer> publisher = new AsyncPublisher<>("test", capacity, policy, (record, startNanos) -> {
+            firstTaken.countDown();
+            await(release);
+            published.add(record);
+        });
+        publisher.start();
+        return publisher;
+    }
+
+    @Test
+    public void dropOldestKeepsTheLatestRecords() throws InterruptedException {
+        AsyncPublisher<Integer> publisher = newPublisher(2, AsyncPublisher.Policy.DROP_OLDEST);
+        publisher.submit(0, System.nanoTime());
+        firstTaken.await();
+        for (int k = 1; k <= 4; k++)
+            assertTrue(publisher.submit(k, System.nanoTime()));
+
+        assertEquals(2, publisher.getQueueDepth());
+        release.countDown();
+        publisher.stop();
+
+        assertEquals(Arrays.asList(0, 3, 4), published);
+        assertEquals(2, publisher.getDroppedOldest());
+        assertEquals(2, publisher.getDroppedRecords());
+    }
+
+    @Test
+    public void latestOnlyReplacesTheWaitingRecord() throws InterruptedException {
+        AsyncPublisher<Integer> publisher = newPublisher(8, AsyncPublisher.Policy.LATEST_ONLY);
+        publisher.submit(0, System.nanoTime());
+        firstTaken.await();
+        for (int k = 1; k <= 4; k++)
+            publisher.submit(k, System.nanoTime());
+
+        release.countDown();
+        publisher.stop();
+
+        assertEquals(Arrays.asList(0, 4), published);
+        assertEquals(3, publisher.getReplacedRecords());
+    }
+
+    @Test
+    public void blockWaitsForRoomWithoutLosingRecords() throws InterruptedException {
+        AsyncPublisher<Integer> publisher = newPublisher(1, AsyncPublisher.Policy.BLOCK);
+        publisher.submit(0, System.nanoTime());
+        firstTaken.await();
+        publisher.submit(1, System.nanoTime());
+
+        Thread producer = new Thread(() -> publisher.submit(2, System.nanoTime()));
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertEquals(1, publisher.getBlockedRecords());
+
+        release.countDown();
+        producer.join();
+        publisher.stop();
+
+        assertEquals(Arrays.asList(0, 1, 2), published);
+        assertEquals(0, publisher.getDroppedRecords());
+    }
+
+    @Test
+    public void recordsAreRejectedOnceStopped() {
+        AsyncPublisher<Integer> publisher = newPublisher(4, AsyncPublisher.Policy.BLOCK);
+        release.countDown();
+        publisher.stop();
+
+        assertFalse(publisher.submit(0, System.nanoTime()));
+        assertEquals(1, publisher.getRejectedRecords());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
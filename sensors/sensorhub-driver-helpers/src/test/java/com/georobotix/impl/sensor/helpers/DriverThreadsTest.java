@@ -0,0 +1,57 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DriverThreadsTest {
+    @Test
+    public void virtualThreadRequestRunsOnAnyRuntime() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Thread thread = DriverThreads.start("test", done::countDown, true);
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertTrue(DriverThreads.join(thread, 1000));
+        assertEquals("test", thread.getName());
+    }
+
+    @Test
+    public void joinInterruptsThreadsThatDoNotStop() {
+        Thread thread = DriverThreads.start("blocked", () -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, false);
+
+        assertTrue(DriverThreads.join(thread, 100));
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void stoppedAcquisitionHasEnded() {
+        PeriodicAcquisition acquisition = new PeriodicAcquisition("test", 10,
+                PeriodicAcquisition.OverrunPolicy.SKIP, true, sampleTime -> { });
+        acquisition.start();
+        acquisition.stop();
+
+        assertFalse(acquisition.isRunning());
+    }
+}
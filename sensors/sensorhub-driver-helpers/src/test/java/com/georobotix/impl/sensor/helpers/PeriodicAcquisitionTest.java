@@ -0,0 +1,92 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PeriodicAcquisitionTest {
+    private static final long PERIOD = 20;
+
+    @Test
+    public void slowTicksDoNotShiftTheSchedule() throws InterruptedException {
+        List<Long> sampleTimes = new CopyOnWriteArrayList<>();
+        PeriodicAcquisition acquisition = new PeriodicAcquisition("test", PERIOD,
+                PeriodicAcquisition.OverrunPolicy.SKIP, sampleTime -> {
+                    sampleTimes.add(sampleTime);
+                    sleep(PERIOD / 2);
+                });
+
+        acquisition.start();
+        Thread.sleep(20 * PERIOD);
+        acquisition.stop();
+
+        // A sleep based loop would only manage one sample every 1.5 periods
+        assertTrue(acquisition.getTicks() >= 15);
+        for (int k = 1; k < sampleTimes.size(); k++)
+            assertEquals(PERIOD, sampleTimes.get(k) - sampleTimes.get(k - 1));
+    }
+
+    @Test
+    public void skipPolicyDropsMissedTicks() throws InterruptedException {
+        List<Long> sampleTimes = new CopyOnWriteArrayList<>();
+        PeriodicAcquisition acquisition = new PeriodicAcquisition("test", PERIOD,
+                PeriodicAcquisition.OverrunPolicy.SKIP, sampleTime -> {
+                    sampleTimes.add(sampleTime);
+                    sleep(PERIOD * 5 / 2);
+                });
+
+        acquisition.start();
+        Thread.sleep(20 * PERIOD);
+        acquisition.stop();
+
+        assertTrue(acquisition.getDeadlineMisses() > 0);
+        assertTrue(acquisition.getSkippedTicks() >= 2 * acquisition.getDeadlineMisses());
+        for (int k = 1; k < sampleTimes.size(); k++)
+            assertEquals(0, (sampleTimes.get(k) - sampleTimes.get(0)) % PERIOD);
+    }
+
+    @Test
+    public void catchUpPolicyRunsEveryTick() throws InterruptedException {
+        List<Long> sampleTimes = new CopyOnWriteArrayList<>();
+        PeriodicAcquisition acquisition = new PeriodicAcquisition("test", PERIOD,
+                PeriodicAcquisition.OverrunPolicy.CATCH_UP, sampleTime -> {
+                    sampleTimes.add(sampleTime);
+                    // Only the first ticks overrun, the loop catches up afterwards
+                    if (sampleTimes.size() <= 2)
+                        sleep(PERIOD * 3);
+                });
+
+        acquisition.start();
+        Thread.sleep(20 * PERIOD);
+        acquisition.stop();
+
+        assertTrue(acquisition.getDeadlineMisses() > 0);
+        assertEquals(0, acquisition.getSkippedTicks());
+        assertTrue(acquisition.getTicks() >= 15);
+        for (int k = 1; k < sampleTimes.size(); k++)
+            assertEquals(PERIOD, sampleTimes.get(k) - sampleTimes.get(k - 1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordBatcherTest {
+    private final List<Integer[]> batches = new ArrayList<>();
+
+    @Test
+    public void fullBatchesAreFlushed() {
+        RecordBatcher<Integer> batcher = new RecordBatcher<>(3, 1000, Integer[]::new,
+                (records, startNanos) -> batches.add(records));
+        for (int k = 0; k < 7; k++)
+            batcher.add(k, 0);
+
+        assertEquals(2, batches.size());
+        assertArrayEquals(new Integer[] {0, 1, 2}, batches.get(0));
+        assertArrayEquals(new Integer[] {3, 4, 5}, batches.get(1));
+        assertEquals(1, batcher.getPendingRecords());
+
+        batcher.flush();
+        assertArrayEquals(new Integer[] {6}, batches.get(2));
+        assertEquals(3, batcher.getBatchCount());
+    }
+
+    @Test
+    public void oldBatchesAreFlushedEarly() {
+        long ms = TimeUnit.MILLISECONDS.toNanos(1);
+        List<long[]> times = new ArrayList<>();
+        RecordBatcher<Integer> batcher = new RecordBatcher<>(100, 10, Integer[]::new, (records, startNanos) -> {
+            batches.add(records);
+            times.add(Arrays.copyOf(startNanos, records.length));
+        });
+        batcher.add(0, 0);
+        batcher.add(1, 4 * ms);
+        batcher.add(2, 10 * ms);
+        batcher.add(3, 12 * ms);
+
+        assertEquals(1, batches.size());
+        assertArrayEquals(new Integer[] {0, 1, 2}, batches.get(0));
+        assertArrayEquals(new long[] {0, 4 * ms, 10 * ms}, times.get(0));
+        assertEquals(1, batcher.getPendingRecords());
+    }
+
+    @Test
+    public void partialBatchIsFlushedWhenSourceStalls() throws InterruptedException {
+        Object lock = new Object();
+        List<Long> flushDelays = new ArrayList<>();
+        RecordBatcher<Integer> batcher = new RecordBatcher<>(100, 50, Integer[]::new, (records, startNanos) -> {
+            batches.add(records);
+            flushDelays.add(System.nanoTime() - startNanos[0]);
+        });
+        batcher.startDeadlineCheck("batcher", lock);
+        try {
+            synchronized (lock) {
+                batcher.add(0, System.nanoTime());
+                batcher.add(1, System.nanoTime());
+            }
+
+            // No record follows, the batch must still come out once its delay expires
+            Thread.sleep(300);
+            synchronized (lock) {
+                assertEquals(1, batches.size());
+                assertArrayEquals(new Integer[] {0, 1}, batches.get(0));
+                assertEquals(0, batcher.getPendingRecords());
+                long delay = flushDelays.get(0);
+                assertTrue(delay >= TimeUnit.MILLISECONDS.toNanos(50));
+                assertTrue(delay < TimeUnit.MILLISECONDS.toNanos(200));
+            }
+        } finally {
+            batcher.stopDeadlineCheck();
+        }
+    }
+
+    @Test
+    public void flushIfDueOnlyFlushesOldBatches() {
+        RecordBatcher<Integer> batcher = new RecordBatcher<>(100, 1000, Integer[]::new,
+                (records, startNanos) -> batches.add(records));
+        assertFalse(batcher.flushIfDue());
+
+        batcher.add(0, System.nanoTime());
+        assertFalse(batcher.flushIfDue());
+        batcher.flush();
+
+        // Batch started longer than the max delay ago
+        batcher.add(1, System.nanoTime() - TimeUnit.SECONDS.toNanos(2));
+        assertTrue(batcher.flushIfDue());
+        assertArrayEquals(new Integer[] {1}, batches.get(1));
+        assertFalse(batcher.flushIfDue());
+    }
+
+    @Test
+    public void flushWithoutRecordsDoesNothing() {
+        RecordBatcher<Integer> batcher = new RecordBatcher<>(3, 1000, Integer[]::new,
+                (records, startNanos) -> batches.add(records));
+        batcher.flush();
+
+        assertEquals(0, batches.size());
+        assertEquals(0, batcher.getBatchCount());
+    }
+}
@@ -0,0 +1,59 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RingStatisticsTest {
+    @Test
+    public void statisticsCoverOnlyTheLatestValues() {
+        RingStatistics stats = new RingStatistics(8);
+        for (long value = 1; value <= 20; value++)
+            stats.record(value);
+
+        // Values 13 to 20 remain in the ring
+        assertEquals(20, stats.getCount());
+        assertEquals(16.5, stats.getAverage(), 1e-12);
+        assertEquals(13, stats.getMin(), 0);
+        assertEquals(20, stats.getMax(), 0);
+        assertEquals(16, stats.getPercentile(50), 0);
+        assertEquals(20, stats.getPercentile(100), 0);
+    }
+
+    @Test
+    public void emptyStatisticsAreNaN() {
+        RingStatistics stats = new RingStatistics(8);
+        assertTrue(Double.isNaN(stats.getAverage()));
+        assertTrue(Double.isNaN(stats.getPercentile(99)));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws InterruptedException {
+        RingStatistics stats = new RingStatistics(64);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < 10000; k++)
+                    stats.record(5);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(40000, stats.getCount());
+        assertEquals(5, stats.getAverage(), 0);
+    }
+}
@@ -0,0 +1,180 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import com.georobotix.impl.sensor.helpers.MonitoredOutput;
+import com.georobotix.impl.sensor.helpers.PublishStatistics;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import net.opengis.swe.v20.DataEncoding;
+import net.opengis.swe.v20.DataRecord;
+import org.sensorhub.api.data.DataEvent;
+import org.sensorhub.impl.sensor.AbstractSensorOutput;
+import org.vast.swe.SWEHelper;
+
+/**
+ * Output publishing the bright blobs reported by the IR camera in clustering mode.
+ * <p>
+ * Each IR report of the clustering mode carries up to {@link #MAX_CLUSTERS} clusters of {@link #CLUSTER_SIZE}
+ * bytes, made of 8 little-endian unsigned 16-bit values: average intensity, pixel count, centroid x and y, and
+ * bounding box x, y, width and height, in pixels of the configured resolution. A cluster with no pixel marks the
+ * end of the list. Records hold a fixed array of {@link #MAX_CLUSTERS} clusters, of which only the first
+ * {@code numClusters} are valid, so data blocks keep the same size and can be reused.
+ */
+public class ClusterOutput extends AbstractSensorOutput<JoyConImageSensor> implements MonitoredOutput {
+    static final String SENSOR_OUTPUT_NAME = "joyconIRClusters";
+    static final String SENSOR_OUTPUT_LABEL = "IR Clusters";
+    static final String SENSOR_OUTPUT_DESCRIPTION = "Bright blobs detected by the infrared camera in the Nintendo Switch JoyCon";
+
+    static final int MAX_CLUSTERS = 16;
+    static final int CLUSTER_SIZE = 16;
+    static final int CLUSTER_FIELDS = 8;
+
+    private final PublishStatistics publishStats = new PublishStatistics();
+    private final Object processingLock = new Object();
+
+    private DataRecord dataRecord;
+    private DataEncoding dataEncoding;
+
+    /**
+     * Creates a new output for the sensor driver.
+     *
+     * @param parentSensor Sensor driver providing this output.
+     */
+    ClusterOutput(JoyConImageSensor parentSensor) {
+        super(SENSOR_OUTPUT_NAME, parentSensor);
+    }
+
+    /**
+     * Initializes the data structure for the output, defining the fields, their ordering, and data types.
+     */
+    void doInit() {
+        SWEHelper sweFactory = new SWEHelper();
+
+        dataRecord = sweFactory.createRecord()
+                .name(SENSOR_OUTPUT_NAME)
+                .label(SENSOR_OUTPUT_LABEL)
+                .description(SENSOR_OUTPUT_DESCRIPTION)
+                .addField("time", sweFactory.createTime()
+                        .asSamplingTimeIsoUTC()
+                        .label("Report Timestamp")
+                        .description("Time of data collection"))
+                .addField("numClusters", sweFactory.createCount()
+                        .label("Number of Clusters")
+                        .description("Number of valid clusters at the start of the cluster array"))
+                .addField("clusters", sweFactory.createArray()
+                        .label("Clusters")
+                        .withFixedSize(MAX_CLUSTERS)
+                        .withElement("cluster", sweFactory.createRecord()
+                                .label("Cluster")
+                                .addField("intensity", sweFactory.createQuantity()
+                                        .label("Average Intensity")
+                                        .uomCode("1"))
+                                .addField("area", sweFactory.createCount()
+                                        .label("Area")
+                                        .description("Number of pixels in the cluster"))
+                                .addField("centroidX", sweFactory.createCount()
+                                        .label("Centroid X")
+                                        .description("Column of the centroid [pixels]"))
+                                .addField("centroidY", sweFactory.createCount()
+                                        .label("Centroid Y")
+                                        .description("Row of the centroid [pixels]"))
+                                .addField("boxX", sweFactory.createCount()
+                                        .label("Bounding Box X"))
+                                .addField("boxY", sweFactory.createCount()
+                                        .label("Bounding Box Y"))
+                                .addField("boxWidth", sweFactory.createCount()
+                                        .label("Bounding Box Width"))
+                                .addField("boxHeight", sweFactory.createCount()
+                                        .label("Bounding Box Height"))))
+                .build();
+
+        dataEncoding = SWEHelper.getDefaultBinaryEncoding(dataRecord);
+    }
+
+    @Override
+    public DataComponent getRecordDescription() {
+        return dataRecord;
+    }
+
+    @Override
+    public DataEncoding getRecommendedEncoding() {
+        return dataEncoding;
+    }
+
+    @Override
+    public double getAverageSamplingPeriod() {
+        return publishStats.getAverageSamplingPeriod();
+    }
+
+    @Override
+    public PublishStatistics getPublishStatistics() {
+        return publishStats;
+    }
+
+    /**
+     * Decodes the clusters of an IR report and publishes them.
+     *
+     * @param timestamp Reception time of the report in ms since the Unix epoch.
+     * @param report IR report.
+     * @param offset Index of the first cluster in the report.
+     * @return The number of clusters published.
+     */
+    public int setData(long timestamp, byte[] report, int offset) {
+        synchronized (processingLock) {
+            long startNanos = System.nanoTime();
+            DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
+            dataBlock.setDoubleValue(0, timestamp / 1000d);
+
+            int numClusters = decodeClusters(report, offset, dataBlock, 2);
+            dataBlock.setIntValue(1, numClusters);
+
+            latestRecord = dataBlock;
+            latestRecordTime = timestamp;
+            eventHandler.publish(new DataEvent(latestRecordTime, this, dataBlock));
+            publishStats.recordPublish(startNanos);
+            return numClusters;
+        }
+    }
+
+    /**
+     * Copies the clusters of a report into a data block. Unused clusters are cleared.
+     *
+     * @param report IR report.
+     * @param offset Index of the first cluster in the report.
+     * @param dataBlock Data block to fill.
+     * @param index Index of the first cluster value in the data block.
+     * @return The number of valid clusters.
+     */
+    static int decodeClusters(byte[] report, int offset, DataBlock dataBlock, int index) {
+        int numClusters = 0;
+        for (int c = 0; c < MAX_CLUSTERS; c++) {
+            int start = offset + c * CLUSTER_SIZE;
+            boolean valid = numClusters == c && start + CLUSTER_SIZE <= report.length && readU16(report, start + 2) > 0;
+            if (valid)
+                numClusters++;
+
+            for (int f = 0; f < CLUSTER_FIELDS; f++) {
+                int value = valid ? readU16(report, start + 2 * f) : 0;
+                if (f == 0)
+                    dataBlock.setDoubleValue(index++, value);
+                else
+                    dataBlock.setIntValue(index++, value);
+            }
+        }
+        return numClusters;
+    }
+
+    private static int readU16(byte[] buf, int index) {
+        return (buf[index] & 0xFF) | ((buf[index + 1] & 0xFF) << 8);
+    }
+}
@@ -11,6 +11,7 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.georobotix.impl.sensor.joyconIR;
 
+import com.georobotix.impl.sensor.helpers.AsyncPublisher;
 import org.sensorhub.api.config.DisplayInfo;
 import org.sensorhub.api.sensor.SensorConfig;
 
@@ -34,4 +35,118 @@ public class Config extends SensorConfig {
     @DisplayInfo.Required
     @DisplayInfo(desc = "Serial number or unique identifier")
     public String serialNumber = "sensor001";
+
+    /**
+     * Where the HID reports come from.
+     */
+    @DisplayInfo(label = "Device", desc = "HID talks to a right JoyCon, SIMULATOR to the built-in MCU simulator, "
+            + "REPLAY serves the input reports of the capture file.")
+    public HidEndpoint.Source device = HidEndpoint.Source.HID;
+
+    /**
+     * HID capture file, recorded when using a JoyCon and replayed in REPLAY mode.
+     */
+    @DisplayInfo(label = "Capture File", desc = "Optional file recording every HID report exchanged with the JoyCon. "
+            + "In REPLAY mode, the capture to replay.")
+    @DisplayInfo.FieldType(DisplayInfo.FieldType.Type.FILESYSTEM_PATH)
+    public String captureFile;
+
+    @DisplayInfo(label = "Simulated Loss Rate", desc = "Probability that the simulator skips an IR fragment, between 0 and 1.")
+    public double simulatedLossRate = 0;
+
+    @DisplayInfo(label = "Simulated Repeat Rate", desc = "Probability that the simulator sends an IR fragment twice, between 0 and 1.")
+    public double simulatedRepeatRate = 0;
+
+    @DisplayInfo(label = "Simulated Latency", desc = "Delay added by the simulator before each report, in milliseconds.")
+    public int simulatedLatency = 0;
+
+    /**
+     * Whether the acquisition loop runs on a virtual thread.
+     */
+    @DisplayInfo(label = "Use Virtual Threads", desc = "Run the acquisition loop on a virtual thread when the runtime "
+            + "supports them (Java 21 or later), otherwise on a platform thread.")
+    public boolean useVirtualThreads = false;
+
+    /**
+     * Time between two reports of the health outputs.
+     */
+    @DisplayInfo(label = "Health Report Period", desc = "Time between two reports of the publish rate, latency "
+            + "and drop counters of each output, in seconds. 0 disables the health outputs.")
+    public int healthReportPeriod = 0;
+
+    /**
+     * Time between two reports of the IR stream telemetry output.
+     */
+    @DisplayInfo(label = "Telemetry Report Period", desc = "Time between two reports of the fragment, retransmit, "
+            + "duplicate and empty report counters and the frame assembly time of the IR stream, in seconds. "
+            + "0 disables the telemetry output, the statistics stay available through JMX.")
+    public int telemetryReportPeriod = 0;
+
+    /**
+     * What the IR camera reports.
+     */
+    @DisplayInfo(label = "IR Mode", desc = "IMAGE streams full frames on the image output, CLUSTERING only reports "
+            + "the centroid, area and intensity of bright blobs on the cluster output, at the report rate.")
+    public JoyConImageSensor.IRMode irMode = JoyConImageSensor.IRMode.IMAGE;
+
+    /**
+     * Resolution of the IR camera.
+     */
+    @DisplayInfo(label = "IR Resolution", desc = "Resolution of the IR images: R240 is 320x240, R120 160x120, "
+            + "R60 80x60 and R30 40x30. With adaptive resolution, the highest resolution used.")
+    public IRResolution irResolution = IRResolution.R120;
+
+    /**
+     * Whether the resolution is lowered when the link or the encoder cannot keep up.
+     */
+    @DisplayInfo(label = "Adaptive Resolution", desc = "Step the resolution down when too many fragments are lost "
+            + "or frames wait for the encoder, and back up once the stream is healthy again. Image mode only.")
+    public boolean adaptiveResolution = false;
+
+    @DisplayInfo(label = "Adaptive Retransmit Threshold", desc = "Percentage of fragments requested again above "
+            + "which the resolution is lowered.")
+    public double adaptiveRetransmitThreshold = 5;
+
+    @DisplayInfo(label = "Adaptive Backlog Threshold", desc = "Number of frames waiting to be encoded, including the "
+            + "frame just received, from which the resolution is lowered.")
+    public int adaptiveBacklogThreshold = 2;
+
+    @DisplayInfo(label = "Adaptive Recovery Frames", desc = "Number of consecutive healthy frames before the "
+            + "resolution is raised again.")
+    public int adaptiveRecoveryFrames = 120;
+
+    /**
+     * Format of the published images.
+     */
+    @DisplayInfo(label = "Output Mode", desc = "GAMEBOY_JPEG publishes JPEG-compressed images colored with the "
+            + "Gameboy palette, RAW_GRAY publishes the uncompressed 8bpp grayscale frames of the camera.")
+    public JoyConImageOutput.OutputMode outputMode = JoyConImageOutput.OutputMode.GAMEBOY_JPEG;
+
+    /**
+     * Whether records are published from a dispatcher thread rather than the acquisition thread.
+     */
+    @DisplayInfo(label = "Asynchronous Publishing", desc = "Queue records and publish them from a separate thread, "
+            + "so that slow subscribers such as storage do not stall acquisition.")
+    public boolean asyncPublishing = false;
+
+    /**
+     * What to do when the publish queue is full.
+     */
+    @DisplayInfo(label = "Publish Queue Policy", desc = "BLOCK waits for room, DROP_OLDEST discards the oldest "
+            + "queued record, LATEST_ONLY only keeps the most recent record.")
+    public AsyncPublisher.Policy publishQueuePolicy = AsyncPublisher.Policy.DROP_OLDEST;
+
+    /**
+     * Maximum number of queued records.
+     */
+    @DisplayInfo(label = "Publish Queue Size", desc = "Maximum number of records waiting to be published.")
+    public int publishQueueSize = 16;
+
+    /**
+     * Number of frame buffers between the HID reader and the encoder.
+     */
+    @DisplayInfo(label = "Frame Ring Size", desc = "Number of pre-allocated frame buffers between the thread reading "
+            + "the camera and the thread encoding the images. When all are waiting to be encoded, the oldest frame "
+            + "is dropped. At least 3.")
+    public int frameRingSize = 4;
 }
@@ -0,0 +1,140 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-allocated frame buffers passed from the HID reader thread to the encoder thread.
+ * <p>
+ * The reader assembles IR fragments straight into {@link #writeBuffer()} and calls {@link #commit(long, int, int)}
+ * once the last fragment of a frame is in. It never waits: when the encoder is still busy with older frames, the
+ * oldest frame waiting to be encoded is dropped to make room, so the ACK loop keeps the JoyCon in its low-latency
+ * mode whatever the encode cost. The encoder takes frames in capture order with {@link #take(long)} and hands them
+ * back with {@link #release(Frame)}.
+ */
+class FrameRing {
+    /**
+     * Frame buffer and the capture details of the frame it holds.
+     */
+    static final class Frame {
+        final byte[] pixels;
+        long timestamp;
+        int width;
+        int height;
+
+        Frame(int size) {
+            this.pixels = new byte[size];
+        }
+    }
+
+    private final BlockingQueue<Frame> free;
+    private final BlockingQueue<Frame> ready;
+    private final AtomicLong committedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    // Frame being assembled, only used by the reader thread
+    private Frame current;
+
+    /**
+     * @param capacity Number of frame buffers, at least 3 so that the reader and encoder can each hold one while
+     * another waits.
+     * @param frameSize Size of each frame buffer [bytes].
+     */
+    FrameRing(int capacity, int frameSize) {
+        if (capacity < 3)
+            throw new IllegalArgumentException("A frame ring needs at least 3 buffers");
+
+        free = new ArrayBlockingQueue<>(capacity);
+        ready = new ArrayBlockingQueue<>(capacity);
+        current = new Frame(frameSize);
+        for (int k = 1; k < capacity; k++)
+            free.add(new Frame(frameSize));
+    }
+
+    /**
+     * @return The buffer of the frame being assembled by the reader.
+     */
+    byte[] writeBuffer() {
+        return current.pixels;
+    }
+
+    /**
+     * Hands the frame being assembled over to the encoder and starts a new one.
+     * The buffer returned by {@link #writeBuffer()} changes after this call.
+     *
+     * @param timestamp Capture time of the frame in ms since the Unix epoch.
+     * @param width Width of the frame [pixels].
+     * @param height Height of the frame [pixels].
+     */
+    void commit(long timestamp, int width, int height) {
+        current.timestamp = timestamp;
+        current.width = width;
+        current.height = height;
+        ready.add(current);
+        committedFrames.incrementAndGet();
+
+        // When the encoder is behind, overwrite the oldest frame it has not taken yet. The encoder holds one
+        // frame at most, so one of the queues always has a frame for us.
+        Frame next = free.poll();
+        while (next == null) {
+            next = ready.poll();
+            if (next != null)
+                droppedFrames.incrementAndGet();
+            else
+                next = free.poll();
+        }
+        current = next;
+    }
+
+    /**
+     * Waits for the next frame to encode.
+     *
+     * @param timeoutMillis Maximum time to wait [ms].
+     * @return The oldest committed frame, or {@code null} if none was committed in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    Frame take(long timeoutMillis) throws InterruptedException {
+        return ready.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a frame taken with {@link #take(long)} once it has been encoded.
+     */
+    void release(Frame frame) {
+        free.add(frame);
+    }
+
+    /**
+     * @return The number of frames committed by the reader.
+     */
+    long getCommittedFrames() {
+        return committedFrames.get();
+    }
+
+    /**
+     * @return The number of frames overwritten before the encoder could take them.
+     */
+    long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * @return The number of frames waiting to be encoded.
+     */
+    int getPendingFrames() {
+        return ready.size();
+    }
+}
@@ -0,0 +1,69 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+/**
+ * Maps the raw 8bpp IR frames to the 4 green shades of the Gameboy camera.
+ * <p>
+ * The frame is inverted and each inverted grey level is mapped to a palette color by exposure band. Both steps
+ * are folded into a single 256 entry lookup table indexed by the raw grey level, so a frame is colored in one pass
+ * straight from the fragment buffer.
+ */
+final class GameboyPalette {
+    // Gameboy colors (sourced gameboy color palette online), as R, G, B
+    private static final int[] PALETTE = {
+            15,  56, 15,    // Dark green
+            48,  8, 48,     // Medium green
+            139, 172, 15,   // Medium Light green
+            155, 188, 15    // Light green
+    };
+
+    // Upper bound of each exposure band of the inverted grey level, and the palette entry it maps to
+    private static final int[] EXPOSURE_VALUES = {32, 64, 96, 124, 160, 224, 240, 256};
+    private static final int[] EXPOSURE_COLORS = {1, 1, 2, 1, 2, 1, 2, 3};
+
+    // B, G, R of each raw grey level, in the order OpenCV expects
+    private static final byte[] BGR_LUT = new byte[256 * 3];
+
+    static {
+        for (int grey = 0; grey < 256; grey++) {
+            int inverted = 255 - grey;
+            int band = 0;
+            while (inverted >= EXPOSURE_VALUES[band])
+                band++;
+
+            int p = EXPOSURE_COLORS[band] * 3;
+            BGR_LUT[grey * 3] = (byte) PALETTE[p + 2];
+            BGR_LUT[grey * 3 + 1] = (byte) PALETTE[p + 1];
+            BGR_LUT[grey * 3 + 2] = (byte) PALETTE[p];
+        }
+    }
+
+    private GameboyPalette() {
+    }
+
+    /**
+     * Colors a grey frame.
+     *
+     * @param grey 8bpp grey pixels, row by row.
+     * @param numPixels Number of pixels of the frame.
+     * @param bgr Receives 3 bytes per pixel in B, G, R order, at least {@code 3 * numPixels} long.
+     */
+    static void apply(byte[] grey, int numPixels, byte[] bgr) {
+        for (int i = 0, j = 0; i < numPixels; i++, j += 3) {
+            int lut = (grey[i] & 0xFF) * 3;
+            bgr[j] = BGR_LUT[lut];
+            bgr[j + 1] = BGR_LUT[lut + 1];
+            bgr[j + 2] = BGR_LUT[lut + 2];
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link HidEndpoint} recording every report exchanged with another endpoint, so a session with a physical
+ * JoyCon can be replayed later with {@link HidCaptureReplay}.
+ * <p>
+ * A capture starts with the magic number and version, followed by one entry per report: the time since the start
+ * of the capture in ns (long), the direction (byte, {@link #INPUT} or {@link #OUTPUT}), the report ID of output
+ * reports (byte), the length (unsigned short) and the report data. All values are big-endian. Timed out reads are
+ * not recorded.
+ */
+class HidCaptureRecorder implements HidEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(HidCaptureRecorder.class);
+
+    static final int MAGIC = 0x4A434150; // "JCAP"
+    static final int VERSION = 1;
+    static final byte INPUT = 0;
+    static final byte OUTPUT = 1;
+
+    private final HidEndpoint endpoint;
+    private final DataOutputStream out;
+    private final long startNanos = System.nanoTime();
+    private boolean recording = true;
+
+    /**
+     * @param endpoint Endpoint to record.
+     * @param out Stream receiving the capture, closed with the endpoint.
+     * @throws IOException if the header cannot be written.
+     */
+    HidCaptureRecorder(HidEndpoint endpoint, OutputStream out) throws IOException {
+        this.endpoint = endpoint;
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    /**
+     * Records an endpoint to a file, replacing any previous capture.
+     *
+     * @param endpoint Endpoint to record.
+     * @param file Capture file.
+     * @return The recording endpoint.
+     * @throws IOException if the file cannot be created.
+     */
+    static HidCaptureRecorder create(HidEndpoint endpoint, Path file) throws IOException {
+        return new HidCaptureRecorder(endpoint, Files.newOutputStream(file));
+    }
+
+    @Override
+    public int write(byte[] packet, int length, byte reportId) {
+        int res = endpoint.write(packet, length, reportId);
+        record(OUTPUT, reportId, packet, length);
+        return res;
+    }
+
+    @Override
+    public int read(byte[] buf, int timeoutMillis) {
+        int res = endpoint.read(buf, timeoutMillis);
+        if (res > 0)
+            record(INPUT, (byte) 0, buf, res);
+        return res;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return endpoint.isOpen();
+    }
+
+    @Override
+    public synchronized void close() {
+        endpoint.close();
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Cannot close HID capture", e);
+        }
+    }
+
+    private synchronized void record(byte direction, byte reportId, byte[] data, int length) {
+        if (!recording)
+            return;
+
+        try {
+            out.writeLong(System.nanoTime() - startNanos);
+            out.writeByte(direction);
+            out.writeByte(reportId);
+            out.writeShort(length);
+            out.write(data, 0, length);
+        } catch (IOException e) {
+            // Losing the capture must not stop the acquisition
+            logger.error("Cannot write HID capture, recording stopped", e);
+            recording = false;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link HidEndpoint} serving the input reports of a capture made by {@link HidCaptureRecorder}.
+ * <p>
+ * Input reports are returned in the recorded order, as fast as they are read, whatever the driver sends. Output
+ * reports are only counted. This replays the exact report sequence of a session, including its lost, repeated and
+ * empty fragments, to regression-test the fragment handling of the driver.
+ */
+public class HidCaptureReplay implements HidEndpoint {
+    private final List<byte[]> inputReports;
+    private final boolean loop;
+    private int next;
+    private boolean open = true;
+    private volatile long outputReports;
+
+    /**
+     * @param inputReports Input reports to serve, in order.
+     * @param loop Whether to start over after the last report rather than time out.
+     */
+    HidCaptureReplay(List<byte[]> inputReports, boolean loop) {
+        this.inputReports = inputReports;
+        this.loop = loop;
+    }
+
+    /**
+     * Loads a capture file.
+     *
+     * @param file Capture file.
+     * @param loop Whether to start over after the last report rather than time out.
+     * @return The replay endpoint.
+     * @throws IOException if the file cannot be read or is not a capture.
+     */
+    public static HidCaptureReplay load(Path file, boolean loop) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return load(in, loop);
+        }
+    }
+
+    /**
+     * Loads a capture from a stream.
+     *
+     * @param in Stream to read the capture from, not closed.
+     * @param loop Whether to start over after the last report rather than time out.
+     * @return The replay endpoint.
+     * @throws IOException if the stream cannot be read or is not a capture.
+     */
+    public static HidCaptureReplay load(InputStream in, boolean loop) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != HidCaptureRecorder.MAGIC)
+            throw new IOException("Not a JoyCon HID capture");
+        int version = data.readInt();
+        if (version != HidCaptureRecorder.VERSION)
+            throw new IOException("Unsupported HID capture version " + version);
+
+        List<byte[]> inputReports = new ArrayList<>();
+        while (true) {
+            try {
+                data.readLong();
+            } catch (EOFException e) {
+                break;
+            }
+            byte direction = data.readByte();
+            data.readByte();
+            byte[] report = new byte[data.readUnsignedShort()];
+            data.readFully(report);
+            if (direction == HidCaptureRecorder.INPUT)
+                inputReports.add(report);
+        }
+        return new HidCaptureReplay(inputReports, loop);
+    }
+
+    @Override
+    public int write(byte[] packet, int length, byte reportId) {
+        if (!isOpen())
+            return -1;
+        outputReports++;
+        return length;
+    }
+
+    @Override
+    public int read(byte[] buf, int timeoutMillis) {
+        synchronized (this) {
+            if (!open)
+                return -1;
+
+            if (next == inputReports.size() && loop)
+                next = 0;
+
+            if (next < inputReports.size()) {
+                byte[] report = inputReports.get(next++);
+                int length = Math.min(report.length, buf.length);
+                System.arraycopy(report, 0, buf, 0, length);
+                return length;
+            }
+        }
+
+        // End of the capture
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        return 0;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+    }
+
+    /**
+     * @return The number of input reports in the capture.
+     */
+    public int getInputReports() {
+        return inputReports.size();
+    }
+
+    /**
+     * @return The number of input reports served so far in the current pass.
+     */
+    public synchronized int getPosition() {
+        return next;
+    }
+
+    /**
+     * @return The number of output reports received.
+     */
+    public long getOutputReports() {
+        return outputReports;
+    }
+}
@@ -0,0 +1,48 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.hid4java.HidDevice;
+
+/**
+ * {@link HidEndpoint} backed by a JoyCon opened with hid4java.
+ */
+class HidDeviceEndpoint implements HidEndpoint {
+    private final HidDevice device;
+
+    /**
+     * @param device Opened JoyCon device.
+     */
+    HidDeviceEndpoint(HidDevice device) {
+        this.device = device;
+    }
+
+    @Override
+    public int write(byte[] packet, int length, byte reportId) {
+        return device.write(packet, length, reportId);
+    }
+
+    @Override
+    public int read(byte[] buf, int timeoutMillis) {
+        return device.read(buf, timeoutMillis);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return device.isOpen();
+    }
+
+    @Override
+    public void close() {
+        device.close();
+    }
+}
@@ -0,0 +1,55 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+/**
+ * Raw HID link to a JoyCon, or to something standing in for one.
+ * <p>
+ * The driver only talks to the JoyCon through this interface, so the fragment protocol can run against the
+ * {@link SimulatedJoyCon} or a {@link HidCaptureReplay} instead of a physical right JoyCon.
+ */
+public interface HidEndpoint {
+    /**
+     * Where the HID reports come from.
+     */
+    enum Source {
+        /** A right JoyCon connected over USB or Bluetooth. */
+        HID,
+        /** The built-in MCU simulator. */
+        SIMULATOR,
+        /** Input reports recorded in a capture file. */
+        REPLAY
+    }
+
+    /**
+     * Sends an output report.
+     *
+     * @param packet Report data, without the report ID.
+     * @param length Number of bytes of the packet to send.
+     * @param reportId Output report ID.
+     * @return The number of bytes written, or -1 on error.
+     */
+    int write(byte[] packet, int length, byte reportId);
+
+    /**
+     * Reads the next input report.
+     *
+     * @param buf Buffer receiving the report, starting with the report ID.
+     * @param timeoutMillis Time to wait for a report [ms].
+     * @return The number of bytes read, 0 on timeout, or -1 on error.
+     */
+    int read(byte[] buf, int timeoutMillis);
+
+    boolean isOpen();
+
+    void close();
+}
@@ -0,0 +1,52 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+/**
+ * Resolutions of the IR camera, from the full pixel array down to 40x30.
+ * <p>
+ * Lower resolutions are obtained by binning and skipping on the sensor, and need fewer 300-byte fragments per
+ * frame.
+ */
+public enum IRResolution {
+    R240(320, 240, 0xFF, 0b00000000), // Full pixel array.
+    R120(160, 120, 0x3F, 0b01010000), // Sensor binning [2x2]
+    R60(80, 60, 0x0F, 0b01100100), // Sensor binning [4x2] and skipping [1x2]
+    R30(40, 30, 0x03, 0b01101001); // Sensor binning [4x2] and skipping [2x4]
+
+    final int width;
+    final int height;
+    final int maxFragNo;
+    final byte register;
+
+    IRResolution(int width, int height, int maxFragNo, int register) {
+        this.width = width;
+        this.height = height;
+        this.maxFragNo = maxFragNo;
+        this.register = (byte) register;
+    }
+
+    /**
+     * @return The next lower resolution, or this one if it is the lowest.
+     */
+    IRResolution lower() {
+        IRResolution[] values = values();
+        return ordinal() < values.length - 1 ? values[ordinal() + 1] : this;
+    }
+
+    /**
+     * @return The next higher resolution, or this one if it is the highest.
+     */
+    IRResolution higher() {
+        return ordinal() > 0 ? values()[ordinal() - 1] : this;
+    }
+}
@@ -11,11 +11,15 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.georobotix.impl.sensor.joyconIR;
 
+import com.georobotix.impl.sensor.helpers.AsyncPublisher;
+import com.georobotix.impl.sensor.helpers.MonitoredOutput;
+import com.georobotix.impl.sensor.helpers.PublishStatistics;
 import net.opengis.swe.v20.*;
 import org.sensorhub.api.data.DataEvent;
 import org.sensorhub.impl.sensor.AbstractSensorOutput;
 import org.vast.cdm.common.CDMException;
 import org.vast.data.DataBlockMixed;
+import org.vast.swe.SWEHelper;
 import org.vast.swe.helper.RasterHelper;
 import org.vast.data.AbstractDataBlock;
 
@@ -23,27 +27,37 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
  * Output specification and provider for {@link JoyConImageSensor}.
  */
-public class JoyConImageOutput extends AbstractSensorOutput<JoyConImageSensor> {
+public class JoyConImageOutput extends AbstractSensorOutput<JoyConImageSensor> implements MonitoredOutput {
     static final String SENSOR_OUTPUT_NAME = "joyconIROutput";
     static final String SENSOR_OUTPUT_LABEL = "IR Images and Video Output";
     static final String SENSOR_OUTPUT_DESCRIPTION = "Images and video from the infrared camera in the Nintendo Switch JoyCon";
 
+    /**
+     * Format of the published images.
+     */
+    public enum OutputMode {
+        /** Frames colored with the Gameboy palette and JPEG-compressed. */
+        GAMEBOY_JPEG,
+        /** Raw 8bpp grayscale frames, uncompressed. */
+        RAW_GRAY
+    }
+
     private final int width;
     private final int height;
     private final String codec = "JPEG";
+    private final OutputMode outputMode;
 
-    private static final int MAX_NUM_TIMING_SAMPLES = 10;
-
-    private final ArrayList<Double> intervalHistogram = new ArrayList<>(MAX_NUM_TIMING_SAMPLES);
-    private final Object histogramLock = new Object();
+    private final PublishStatistics publishStats = new PublishStatistics();
     private final Object processingLock = new Object();
 
+    // Publish queue, only when asynchronous publishing is configured
+    private volatile AsyncPublisher<DataEvent> publisher;
+
     private DataComponent dataRecord;
     private DataEncoding dataEncoding;
 
@@ -56,6 +70,7 @@ public class JoyConImageOutput extends AbstractSensorOutput<JoyConImageSensor> {
         super(SENSOR_OUTPUT_NAME, parentSensor);
         this.width = width;
         this.height = height;
+        this.outputMode = parentSensor.getConfiguration().outputMode;
     }
 
     /**
@@ -83,22 +98,37 @@ public class JoyConImageOutput extends AbstractSensorOutput<JoyConImageSensor> {
                         .id("IMAGE_HEIGHT")
                         .label("Frame Height")
                         .build())
-                .addField("img", sweFactory.newRgbImage(width, height, DataType.BYTE))
+                .addField("img", outputMode == OutputMode.RAW_GRAY
+                        ? sweFactory.newGrayscaleImage(width, height, DataType.BYTE)
+                        : sweFactory.newRgbImage(width, height, DataType.BYTE))
                 .build();
 
-        BinaryEncoding dataEnc = sweFactory.newBinaryEncoding(ByteOrder.BIG_ENDIAN, ByteEncoding.RAW);
+        if (outputMode == OutputMode.RAW_GRAY) {
+            // One byte per pixel, sent as is
+            this.dataEncoding = SWEHelper.getDefaultBinaryEncoding(dataRecord);
+        }
+        else {
+            BinaryEncoding dataEnc = sweFactory.newBinaryEncoding(ByteOrder.BIG_ENDIAN, ByteEncoding.RAW);
 
-        BinaryBlock compressedBlock = sweFactory.newBinaryBlock();
-        compressedBlock.setRef("/" + dataRecord.getComponent(3).getName());
-        compressedBlock.setCompression(codec);
-        dataEnc.addMemberAsBlock(compressedBlock);
+            BinaryBlock compressedBlock = sweFactory.newBinaryBlock();
+            compressedBlock.setRef("/" + dataRecord.getComponent(3).getName());
+            compressedBlock.setCompression(codec);
+            dataEnc.addMemberAsBlock(compressedBlock);
 
-        try {
-            sweFactory.assignBinaryEncoding(dataRecord, dataEnc);
-        } catch (CDMException e) {
-            throw new RuntimeException("Invalid binary encoding configuration", e);
+            try {
+                sweFactory.assignBinaryEncoding(dataRecord, dataEnc);
+            } catch (CDMException e) {
+                throw new RuntimeException("Invalid binary encoding configuration", e);
+            }
+            this.dataEncoding = dataEnc;
         }
-        this.dataEncoding = dataEnc;
+    }
+
+    /**
+     * @return The format of the published images.
+     */
+    public OutputMode getOutputMode() {
+        return outputMode;
     }
 
     @Override
@@ -113,21 +143,74 @@ public class JoyConImageOutput extends AbstractSensorOutput<JoyConImageSensor> {
 
     @Override
     public double getAverageSamplingPeriod() {
-        synchronized (histogramLock) {
-            double sum = 0;
-            for (double sample : intervalHistogram)
-                sum += sample;
+        return publishStats.getAverageSamplingPeriod();
+    }
+
+    @Override
+    public PublishStatistics getPublishStatistics() {
+        return publishStats;
+    }
+
+    @Override
+    public long getDroppedRecords() {
+        // Frames dropped before encoding count too
+        AsyncPublisher<DataEvent> p = publisher;
+        return parentSensor.getDroppedFrames() + (p != null ? p.getDroppedRecords() : 0);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        AsyncPublisher<DataEvent> p = publisher;
+        return parentSensor.getPendingFrames() + (p != null ? p.getQueueDepth() : 0);
+    }
+
+    /**
+     * @return The publish queue, or {@code null} when records are published synchronously.
+     */
+    public AsyncPublisher<DataEvent> getPublisher() {
+        return publisher;
+    }
 
-            return sum / intervalHistogram.size();
+    /**
+     * Starts the publish queue when asynchronous publishing is configured.
+     */
+    void start() {
+        Config config = parentSensor.getConfiguration();
+        if (config.asyncPublishing) {
+            publisher = new AsyncPublisher<>(parentSensor.getUniqueIdentifier() + "/" + getName(),
+                    config.publishQueueSize, config.publishQueuePolicy, this::dispatch);
+            publisher.start();
         }
     }
 
+    /**
+     * Publishes the records still queued and stops the publish queue.
+     */
+    void stop() {
+        AsyncPublisher<DataEvent> p = publisher;
+        if (p != null)
+            p.stop();
+    }
+
     /**
      * Sets the data for the output and publishes it.
      */
-    public void setData(byte[] imageBuf) {
+    public void setData(long timestamp, byte[] imageBuf) {
+        setData(timestamp, width, height, imageBuf);
+    }
+
+    /**
+     * Sets a compressed image as the data for the output and publishes it. The image can be smaller than the
+     * advertised size when the camera resolution was lowered, its actual size is set in the record.
+     *
+     * @param timestamp Capture time of the frame in ms since the Unix epoch.
+     * @param frameWidth Width of the image [pixels].
+     * @param frameHeight Height of the image [pixels].
+     * @param imageBuf Compressed image.
+     */
+    public void setData(long timestamp, int frameWidth, int frameHeight, byte[] imageBuf) {
         synchronized (processingLock) {
-            long timestamp = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
 
             /* Troubleshoot Efforts
             byte[] imgJpeg = new byte[19*4096];
@@ -149,39 +232,93 @@ public class JoyConImageOutput extends AbstractSensorOutput<JoyConImageSensor> {
             // Get or renew the data block.
             DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
 
-            updateIntervalHistogram();
+            // set the image buffer
+            AbstractDataBlock frameData = ((DataBlockMixed) dataBlock).getUnderlyingObject()[3];
+            frameData.setUnderlyingObject(imageBuf);
 
-            // Populate the data block
-            // set the timestamp.
-            dataBlock.setDoubleValue(0, timestamp / 1000d);
-            dataBlock.setIntValue(1, this.width);
-            dataBlock.setIntValue(2, this.height);
+            publishFrame(dataBlock, timestamp, frameWidth, frameHeight, startNanos);
+        }
+    }
 
-            // set the image buffer
+    /**
+     * Sets a raw grayscale frame as the data for the output and publishes it.
+     * Used in {@link OutputMode#RAW_GRAY} mode. Frames received at a lower resolution than the advertised one are
+     * scaled up by pixel replication, so that every record has the advertised size.
+     *
+     * @param timestamp Capture time of the frame in ms since the Unix epoch.
+     * @param frameWidth Width of the frame [pixels], the advertised width divided by a power of 2.
+     * @param frameHeight Height of the frame [pixels], the advertised height divided by a power of 2.
+     * @param pixels Frame buffer holding at least frameWidth * frameHeight pixels, 1 byte each. Only read during
+     * the call.
+     */
+    public void setRawData(long timestamp, int frameWidth, int frameHeight, byte[] pixels) {
+        synchronized (processingLock) {
+            long startNanos = System.nanoTime();
+            int numPixels = width * height;
+
+            // Get or renew the data block.
+            DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
+
+            // The frame buffer goes back to the reader once published, so the pixels are copied into the
+            // array backing the new data block
             AbstractDataBlock frameData = ((DataBlockMixed) dataBlock).getUnderlyingObject()[3];
+            Object backing = frameData.getUnderlyingObject();
+            byte[] imageBuf = backing instanceof byte[] && ((byte[]) backing).length == numPixels
+                    ? (byte[]) backing : new byte[numPixels];
+            if (frameWidth == width && frameHeight == height)
+                System.arraycopy(pixels, 0, imageBuf, 0, numPixels);
+            else
+                scaleUp(pixels, frameWidth, frameHeight, imageBuf, width, height);
             frameData.setUnderlyingObject(imageBuf);
 
-            // Publish the data block
-            latestRecord = dataBlock;
-            latestRecordTime = timestamp;
-            eventHandler.publish(new DataEvent(latestRecordTime, this, dataBlock));
+            publishFrame(dataBlock, timestamp, width, height, startNanos);
         }
     }
 
     /**
-     * Updates the interval histogram with the time between the latest record and the current time
-     * for calculating the average sampling period.
+     * Scales an image up by an integer factor, repeating each pixel.
      */
-    private void updateIntervalHistogram() {
-        synchronized (histogramLock) {
-            if (latestRecord != null && latestRecordTime != Long.MIN_VALUE) {
-                long interval = System.currentTimeMillis() - latestRecordTime;
-                intervalHistogram.add(interval / 1000d);
-
-                if (intervalHistogram.size() > MAX_NUM_TIMING_SAMPLES) {
-                    intervalHistogram.remove(0);
-                }
-            }
+    static void scaleUp(byte[] src, int srcWidth, int srcHeight, byte[] dst, int dstWidth, int dstHeight) {
+        int fx = dstWidth / srcWidth;
+        int fy = dstHeight / srcHeight;
+        for (int y = 0; y < srcHeight; y++) {
+            int row = y * fy * dstWidth;
+            for (int x = 0; x < srcWidth; x++)
+                Arrays.fill(dst, row + x * fx, row + (x + 1) * fx, src[y * srcWidth + x]);
+
+            // Repeat the row just written
+            for (int r = 1; r < fy; r++)
+                System.arraycopy(dst, row, dst, row + r * dstWidth, srcWidth * fx);
         }
     }
+
+    private void publishFrame(DataBlock dataBlock, long timestamp, int frameWidth, int frameHeight,
+                              long startNanos) {
+        // Populate the data block
+        // set the timestamp.
+        dataBlock.setDoubleValue(0, timestamp / 1000d);
+        dataBlock.setIntValue(1, frameWidth);
+        dataBlock.setIntValue(2, frameHeight);
+
+        // Publish the data block
+        latestRecord = dataBlock;
+        latestRecordTime = timestamp;
+        publish(new DataEvent(latestRecordTime, this, dataBlock), startNanos);
+    }
+
+    /**
+     * Publishes an event right away, or queues it when asynchronous publishing is configured.
+     */
+    private void publish(DataEvent event, long startNanos) {
+        AsyncPublisher<DataEvent> p = publisher;
+        if (p != null && p.isRunning())
+            p.submit(event, startNanos);
+        else
+            dispatch(event, startNanos);
+    }
+
+    private void dispatch(DataEvent event, long startNanos) {
+        eventHandler.publish(event);
+        publishStats.recordPublish(startNanos);
+    }
 }
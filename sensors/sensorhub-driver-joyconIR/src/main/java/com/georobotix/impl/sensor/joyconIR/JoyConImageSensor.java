@@ -12,14 +12,14 @@
 package com.georobotix.impl.sensor.joyconIR;
 
 // OpenCV imports
-import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
 import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.imgproc.Imgproc;
 
 // OSH imports
+import com.georobotix.impl.sensor.helpers.DriverThreads;
+import com.georobotix.impl.sensor.helpers.HealthOutput;
 import org.sensorhub.api.common.SensorHubException;
 import org.sensorhub.impl.sensor.AbstractSensorModule;
 import org.slf4j.Logger;
@@ -28,11 +28,11 @@ import org.slf4j.LoggerFactory;
 // Functional Imports
 import org.hid4java.*;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
-import java.io.ByteArrayOutputStream;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -49,20 +49,53 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     private static final Logger logger = LoggerFactory.getLogger(JoyConImageSensor.class);
 
+    /**
+     * What the IR camera reports.
+     */
+    public enum IRMode {
+        /** Full images, sent in 300-byte fragments. */
+        IMAGE(0x07),
+        /** Centroid, area and intensity of the bright blobs, a single report per sample. */
+        CLUSTERING(0x06);
+
+        final int code;
+
+        IRMode(int code) {
+            this.code = code;
+        }
+    }
+
+    private static final long STOP_TIMEOUT = 5000;
+    private static final long ENCODER_POLL_TIMEOUT = 100;
+    static final int MAX_FRAME_SIZE = 19 * 4096; // 8bpp greyscale image at the highest resolution.
+
     JoyConImageOutput output;
+    ClusterOutput clusterOutput;
+    HealthOutput<JoyConImageSensor> healthOutput;
+    TelemetryOutput telemetryOutput;
+    final StreamTelemetry telemetry = new StreamTelemetry();
+    private ObjectName telemetryName;
     Thread processingThread;
+    Thread encoderThread;
+    FrameRing frameRing;
+
+    // Encoder thread buffers, reused from frame to frame. OpenCV objects are created once the library is loaded.
+    private byte[] bgrBuffer;
+    private Mat bgrFrame;
+    private MatOfByte jpegBuffer;
     volatile boolean doProcessing = true;
 
     // Functional variables.
-    private HidDevice joycon;
-    private int timingByte = 0;
-    private int videoResolution = 120; // 240p
+    HidEndpoint joycon;
+    private JoyConTransport transport;
+    private volatile IRResolution irResolution;
+    private ResolutionController resolutionController;
     private int irImageWidth;
     private int irImageHeight;
     private int irMaxFragNo;
     private byte irResReg;
     private final int numericIRExposure = 300; // Shutter speed in microseconds.
-    private boolean enableVideo = false;
+    private volatile boolean enableVideo = false;
     private int vendorId = 0x057E;
     private int productId = 0x2007;
     private int resGet = 0;
@@ -72,13 +105,15 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         super.doInit();
 
         // Joy Con constructor logic.
-        HidServices services = HidManager.getHidServices(new HidServicesSpecification());
-        this.joycon = services.getAttachedHidDevices().stream()
-                .filter(d -> d.getVendorId() == vendorId && d.getProductId() == productId)
-                .findFirst()
-                .orElseThrow(() -> new HidException(String.format("No JoyCon found!!"))); // Store the joycon to device.
-        joycon.open(); // Open the found Joycon.
-        setResolution(videoResolution);
+        this.joycon = openEndpoint();
+        transport = new JoyConTransport(joycon);
+        setResolution(config.irResolution);
+        if (config.irMode == IRMode.CLUSTERING)
+            irMaxFragNo = 0; // Clusters fit in a single report.
+        else if (config.adaptiveResolution)
+            resolutionController = new ResolutionController(config.irResolution,
+                    config.adaptiveRetransmitThreshold / 100.0, config.adaptiveBacklogThreshold,
+                    config.adaptiveRecoveryFrames);
 
         // Joy Con Initialization Sequence
         try {
@@ -99,9 +134,67 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         generateXmlID(XML_PREFIX, config.serialNumber);
 
         // Create and initialize output
-        output = new JoyConImageOutput(this, irImageWidth, irImageHeight);
-        addOutput(output, false);
-        output.doInit();
+        if (config.irMode == IRMode.CLUSTERING) {
+            clusterOutput = new ClusterOutput(this);
+            addOutput(clusterOutput, false);
+            clusterOutput.doInit();
+        }
+        else {
+            output = new JoyConImageOutput(this, irImageWidth, irImageHeight);
+            addOutput(output, false);
+            output.doInit();
+        }
+
+        // Optional companion output reporting how the images or clusters are published
+        if (config.healthReportPeriod > 0) {
+            if (clusterOutput != null)
+                healthOutput = new HealthOutput<>(this, clusterOutput);
+            else
+                healthOutput = new HealthOutput<>(this, output);
+            addOutput(healthOutput, false);
+            healthOutput.doInit();
+        }
+
+        // Optional companion output reporting the fragment-level statistics of the IR stream
+        if (config.telemetryReportPeriod > 0) {
+            telemetryOutput = new TelemetryOutput(this, telemetry);
+            addOutput(telemetryOutput, false);
+            telemetryOutput.doInit();
+        }
+    }
+
+    /**
+     * Opens the configured JoyCon, simulator or capture, recording the session when a capture file is set
+     * for a real JoyCon.
+     */
+    private HidEndpoint openEndpoint() throws SensorHubException {
+        try {
+            switch (config.device) {
+                case SIMULATOR:
+                    return new SimulatedJoyCon(config.simulatedLossRate, config.simulatedRepeatRate,
+                            config.simulatedLatency, 0);
+
+                case REPLAY:
+                    if (config.captureFile == null)
+                        throw new SensorHubException("A capture file is needed to replay a JoyCon session");
+                    return HidCaptureReplay.load(Path.of(config.captureFile), true);
+
+                default:
+                    HidServices services = HidManager.getHidServices(new HidServicesSpecification());
+                    HidDevice device = services.getAttachedHidDevices().stream()
+                            .filter(d -> d.getVendorId() == vendorId && d.getProductId() == productId)
+                            .findFirst()
+                            .orElseThrow(() -> new HidException(String.format("No JoyCon found!!"))); // Store the joycon to device.
+                    device.open(); // Open the found Joycon.
+
+                    HidEndpoint endpoint = new HidDeviceEndpoint(device);
+                    if (config.captureFile != null)
+                        endpoint = HidCaptureRecorder.create(endpoint, Path.of(config.captureFile));
+                    return endpoint;
+            }
+        } catch (IOException e) {
+            throw new SensorHubException("Cannot open HID capture " + config.captureFile, e);
+        }
     }
 
     @Override
@@ -125,6 +218,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             System.err.println("Interrupt Exception: " + ie);
         }
 
+        registerTelemetry();
         startProcessing();
     }
 
@@ -136,6 +230,36 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         } catch (IOException io) {
             System.err.println("IO Exception: " + io);
         }
+        unregisterTelemetry();
+    }
+
+    /**
+     * Exposes the stream telemetry as an MBean of the platform MBean server, named after the sensor. Monitoring
+     * is optional, so failing to register only logs a warning.
+     */
+    private void registerTelemetry() {
+        try {
+            telemetryName = new ObjectName(JoyConImageSensor.class.getPackageName() + ":type=StreamTelemetry,id="
+                    + ObjectName.quote(getUniqueIdentifier()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(telemetryName))
+                server.registerMBean(telemetry, telemetryName);
+        } catch (JMException e) {
+            logger.warn("Cannot register the IR stream telemetry MBean", e);
+            telemetryName = null;
+        }
+    }
+
+    private void unregisterTelemetry() {
+        if (telemetryName == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(telemetryName);
+        } catch (JMException e) {
+            logger.debug("Cannot unregister the IR stream telemetry MBean", e);
+        }
+        telemetryName = null;
     }
 
     @Override
@@ -144,14 +268,23 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     }
 
     /**
-     * Starts the data processing thread.
+     * Starts the data processing threads.
      * <p>
-     * This method simulates sensor data collection and processing by generating data samples at regular intervals.
+     * The processing thread only reads and ACKs the IR fragments and assembles them into the frame ring, while the
+     * encoder thread converts and publishes the completed frames, so encoding never delays an ACK. In clustering
+     * mode there is nothing to encode, clusters are published by the processing thread.
      */
     public void startProcessing() {
         doProcessing = true;
 
-        processingThread = new Thread(() -> {
+        if (output != null) {
+            output.start();
+            frameRing = new FrameRing(config.frameRingSize, MAX_FRAME_SIZE);
+            encoderThread = DriverThreads.start(getUniqueIdentifier() + "/encoder", this::encodeFrames,
+                    config.useVirtualThreads);
+        }
+
+        processingThread = DriverThreads.start(getUniqueIdentifier(), () -> {
             while (doProcessing) {
                 // Simulate data collection and processing -> moved to getRawIR Image
                 //output.setData(System.currentTimeMillis(), "Sample Data");
@@ -163,59 +296,161 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                     throw new RuntimeException(e);
                 }
             }
-        });
-        processingThread.start();
+        }, config.useVirtualThreads);
+
+        if (healthOutput != null)
+            healthOutput.start(config.healthReportPeriod * 1000L);
+        if (telemetryOutput != null)
+            telemetryOutput.start(config.telemetryReportPeriod * 1000L);
     }
 
     /**
-     * Signals the processing thread to stop.
+     * Stops the processing threads and ends the connection with the JoyCon once they are done with it.
      */
     public void stopProcessing() throws IOException {
         doProcessing = false;
-
-        // stop processing images and end connection with the joycon.
         step9(false);
-        close();
+        boolean readerStopped = DriverThreads.join(processingThread, STOP_TIMEOUT);
+        DriverThreads.join(encoderThread, STOP_TIMEOUT);
+        if (output != null)
+            output.stop();
+
+        if (healthOutput != null)
+            healthOutput.stop();
+        if (telemetryOutput != null)
+            telemetryOutput.stop();
+
+        // end connection with the joycon.
+        if (readerStopped) {
+            close();
+        }
+        else if (joycon != null && joycon.isOpen()) {
+            // The transport buffers still belong to the reader, so the MCU is left on and only the device is closed.
+            logger.warn("IR reader did not stop, closing the JoyCon without disabling the MCU");
+            joycon.close();
+        }
+    }
+
+    /**
+     * @return The number of frames dropped because the encoder could not keep up with the camera.
+     */
+    long getDroppedFrames() {
+        FrameRing ring = frameRing;
+        return ring != null ? ring.getDroppedFrames() : 0;
+    }
+
+    /**
+     * @return The number of assembled frames waiting to be encoded.
+     */
+    int getPendingFrames() {
+        FrameRing ring = frameRing;
+        return ring != null ? ring.getPendingFrames() : 0;
+    }
+
+    /**
+     * Encoder stage, converts the frames assembled by the reader and publishes them. Raw grayscale frames are
+     * published without conversion.
+     */
+    private void encodeFrames() {
+        boolean rawGray = output.getOutputMode() == JoyConImageOutput.OutputMode.RAW_GRAY;
+        if (!rawGray)
+            nu.pattern.OpenCV.loadShared();
+
+        while (doProcessing) {
+            FrameRing.Frame frame;
+            try {
+                frame = frameRing.take(ENCODER_POLL_TIMEOUT);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == null)
+                continue;
+
+            try {
+                if (rawGray)
+                    output.setRawData(frame.timestamp, frame.width, frame.height, frame.pixels);
+                else
+                    output.setData(frame.timestamp, frame.width, frame.height, encodeGameboyFrame(frame));
+            } catch (RuntimeException e) {
+                logger.error("Cannot encode IR frame", e);
+            } finally {
+                frameRing.release(frame);
+            }
+        }
+    }
+
+    /**
+     * Colors a raw frame with the Gameboy palette and JPEG-encodes it, with a single encode per frame.
+     * Only called from the encoder thread, which owns the conversion buffers.
+     */
+    private byte[] encodeGameboyFrame(FrameRing.Frame frame) {
+        int numPixels = frame.width * frame.height;
+        if (bgrBuffer == null || bgrBuffer.length != numPixels * 3) {
+            bgrBuffer = new byte[numPixels * 3];
+            bgrFrame = new Mat(frame.height, frame.width, CvType.CV_8UC3);
+        }
+        if (jpegBuffer == null)
+            jpegBuffer = new MatOfByte();
+
+        GameboyPalette.apply(frame.pixels, numPixels, bgrBuffer);
+        bgrFrame.put(0, 0, bgrBuffer);
+        Imgcodecs.imencode(".jpg", bgrFrame, jpegBuffer);
+        return jpegBuffer.toArray();
     }
 
     // ---------------------------------------------------------------------------------------------------------------//
 
     // Method to pick IR camera video resolution.
-    private void setResolution(int irResolution) {
-        if (irResolution == 240) { // I believe this is the native resolution of the sensor!
-            this.irImageWidth = 320;
-            this.irImageHeight = 240;
-            this.irMaxFragNo = 0xFF;
-            this.irResReg = 0x00; // Full pixel array.
-        } else if(irResolution == 120) {
-            this.irImageWidth = 160;
-            this.irImageHeight = 120;
-            this.irMaxFragNo = 0x3f;
-            this.irResReg = 0b01010000; // Sensor binning [2x2]
-        } else if(irResolution == 60) {
-            this.irImageWidth = 80;
-            this.irImageHeight = 60;
-            this.irMaxFragNo = 0x0f;
-            this.irResReg = 0b01100100; // Sensor binning [4x2] and skipping [1x2]
-        } else if(irResolution == 30) {
-            this.irImageWidth = 40;
-            this.irImageHeight = 30;
-            this.irMaxFragNo = 0x03;
-            this.irResReg = 0b01101001; // Sensor binning [4x2] and skipping [2x4]
-        }
+    private void setResolution(IRResolution resolution) {
+        this.irResolution = resolution;
+        this.irImageWidth = resolution.width;
+        this.irImageHeight = resolution.height;
+        this.irMaxFragNo = resolution.maxFragNo;
+        this.irResReg = resolution.register;
+    }
+
+    /**
+     * Switches the camera to another resolution while streaming. Only the IR mode and register steps are redone
+     * (steps 5, 7 and 8), as the fragment count is set in step 5 and register changes only apply once finalized
+     * in step 8. The MCU handshake is kept.
+     *
+     * @return {@code true} if the camera accepted the new resolution.
+     */
+    private boolean changeResolution(IRResolution resolution) throws IOException {
+        IRResolution previous = irResolution;
+        logger.info("Switching IR resolution from {}x{} to {}x{}", previous.width, previous.height,
+                resolution.width, resolution.height);
+
+        setResolution(resolution);
+        if (step5() && step7() && step8())
+            return true;
+
+        logger.warn("IR resolution change failed, restoring {}x{}", previous.width, previous.height);
+        setResolution(previous);
+        step5();
+        step7();
+        step8();
+        resolutionController.setResolution(previous);
+        return false;
+    }
+
+    /**
+     * @return The resolution of the IR images being received.
+     */
+    public IRResolution getResolution() {
+        return irResolution;
     }
 
     // Method to send HID packets to joycon.
     private int send(byte[] packet, byte reportId) throws HidException {
         // Send a packet to the joycon
-        return joycon.write(packet, packet.length, reportId);
+        return transport.send(packet, reportId);
     }
 
     // Method to receive HID packets from joycon.
     private int receive(byte[] buf, int timeoutMillis) throws HidException {
         // Receive a packet from the JoyCon.
-        Arrays.fill(buf, (byte) 0);
-        return joycon.read(buf, timeoutMillis);
+        return transport.receive(buf, timeoutMillis);
     }
 
     // CLAMP function for integer values.
@@ -227,46 +462,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     // Method to perform CRC8 Calculation.
     private byte mcuCrc8Calc(byte[] buf,int size, int start) {
-        byte crc8 = 0x00;
-        final byte[] mcuCrc8Table = new byte[] {
-                (byte)0x00, (byte)0x07, (byte)0x0E, (byte)0x09, (byte)0x1C, (byte)0x1B, (byte)0x12, (byte)0x15,
-                (byte)0x38, (byte)0x3F, (byte)0x36, (byte)0x31, (byte)0x24, (byte)0x23, (byte)0x2A, (byte)0x2D,
-                (byte)0x70, (byte)0x77, (byte)0x7E, (byte)0x79, (byte)0x6C, (byte)0x6B, (byte)0x62, (byte)0x65,
-                (byte)0x48, (byte)0x4F, (byte)0x46, (byte)0x41, (byte)0x54, (byte)0x53, (byte)0x5A, (byte)0x5D,
-                (byte)0xE0, (byte)0xE7, (byte)0xEE, (byte)0xE9, (byte)0xFC, (byte)0xFB, (byte)0xF2, (byte)0xF5,
-                (byte)0xD8, (byte)0xDF, (byte)0xD6, (byte)0xD1, (byte)0xC4, (byte)0xC3, (byte)0xCA, (byte)0xCD,
-                (byte)0x90, (byte)0x97, (byte)0x9E, (byte)0x99, (byte)0x8C, (byte)0x8B, (byte)0x82, (byte)0x85,
-                (byte)0xA8, (byte)0xAF, (byte)0xA6, (byte)0xA1, (byte)0xB4, (byte)0xB3, (byte)0xBA, (byte)0xBD,
-                (byte)0xC7, (byte)0xC0, (byte)0xC9, (byte)0xCE, (byte)0xDB, (byte)0xDC, (byte)0xD5, (byte)0xD2,
-                (byte)0xFF, (byte)0xF8, (byte)0xF1, (byte)0xF6, (byte)0xE3, (byte)0xE4, (byte)0xED, (byte)0xEA,
-                (byte)0xB7, (byte)0xB0, (byte)0xB9, (byte)0xBE, (byte)0xAB, (byte)0xAC, (byte)0xA5, (byte)0xA2,
-                (byte)0x8F, (byte)0x88, (byte)0x81, (byte)0x86, (byte)0x93, (byte)0x94, (byte)0x9D, (byte)0x9A,
-                (byte)0x27, (byte)0x20, (byte)0x29, (byte)0x2E, (byte)0x3B, (byte)0x3C, (byte)0x35, (byte)0x32,
-                (byte)0x1F, (byte)0x18, (byte)0x11, (byte)0x16, (byte)0x03, (byte)0x04, (byte)0x0D, (byte)0x0A,
-                (byte)0x57, (byte)0x50, (byte)0x59, (byte)0x5E, (byte)0x4B, (byte)0x4C, (byte)0x45, (byte)0x42,
-                (byte)0x6F, (byte)0x68, (byte)0x61, (byte)0x66, (byte)0x73, (byte)0x74, (byte)0x7D, (byte)0x7A,
-                (byte)0x89, (byte)0x8E, (byte)0x87, (byte)0x80, (byte)0x95, (byte)0x92, (byte)0x9B, (byte)0x9C,
-                (byte)0xB1, (byte)0xB6, (byte)0xBF, (byte)0xB8, (byte)0xAD, (byte)0xAA, (byte)0xA3, (byte)0xA4,
-                (byte)0xF9, (byte)0xFE, (byte)0xF7, (byte)0xF0, (byte)0xE5, (byte)0xE2, (byte)0xEB, (byte)0xEC,
-                (byte)0xC1, (byte)0xC6, (byte)0xCF, (byte)0xC8, (byte)0xDD, (byte)0xDA, (byte)0xD3, (byte)0xD4,
-                (byte)0x69, (byte)0x6E, (byte)0x67, (byte)0x60, (byte)0x75, (byte)0x72, (byte)0x7B, (byte)0x7C,
-                (byte)0x51, (byte)0x56, (byte)0x5F, (byte)0x58, (byte)0x4D, (byte)0x4A, (byte)0x43, (byte)0x44,
-                (byte)0x19, (byte)0x1E, (byte)0x17, (byte)0x10, (byte)0x05, (byte)0x02, (byte)0x0B, (byte)0x0C,
-                (byte)0x21, (byte)0x26, (byte)0x2F, (byte)0x28, (byte)0x3D, (byte)0x3A, (byte)0x33, (byte)0x34,
-                (byte)0x4E, (byte)0x49, (byte)0x40, (byte)0x47, (byte)0x52, (byte)0x55, (byte)0x5C, (byte)0x5B,
-                (byte)0x76, (byte)0x71, (byte)0x78, (byte)0x7F, (byte)0x6A, (byte)0x6D, (byte)0x64, (byte)0x63,
-                (byte)0x3E, (byte)0x39, (byte)0x30, (byte)0x37, (byte)0x22, (byte)0x25, (byte)0x2C, (byte)0x2B,
-                (byte)0x06, (byte)0x01, (byte)0x08, (byte)0x0F, (byte)0x1A, (byte)0x1D, (byte)0x14, (byte)0x13,
-                (byte)0xAE, (byte)0xA9, (byte)0xA0, (byte)0xA7, (byte)0xB2, (byte)0xB5, (byte)0xBC, (byte)0xBB,
-                (byte)0x96, (byte)0x91, (byte)0x98, (byte)0x9F, (byte)0x8A, (byte)0x8D, (byte)0x84, (byte)0x83,
-                (byte)0xDE, (byte)0xD9, (byte)0xD0, (byte)0xD7, (byte)0xC2, (byte)0xC5, (byte)0xCC, (byte)0xCB,
-                (byte)0xE6, (byte)0xE1, (byte)0xE8, (byte)0xEF, (byte)0xFA, (byte)0xFD, (byte)0xF4, (byte)0xF3
-        };
-
-        for (int i = start-1; i < size + start -1; i++) {
-            crc8 = mcuCrc8Table[(crc8 ^ buf[i]) & 0xff];
-        }
-        return crc8;
+        return JoyConTransport.crc8(buf, start - 1, size);
     }
 
     // Method to close the connection with the JoyCon.
@@ -279,108 +475,13 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     // ---------------------------------------------------------------------------------------------------------------//
 
-    private byte[] gameboyFilter(byte[] jpegImageBuf) {
-        // load opencv library
-        nu.pattern.OpenCV.loadShared();
-
-        // LUT to map grayscale values to 4 green gameboy colors!! (sourced gameboy color palette online)
-        Mat lut = new Mat(1, 256, CvType.CV_8UC3);
-        int[] gameboyPalette = {
-                15,  56, 15,    // Dark green
-                48,  8, 48,    // Medium green
-                139, 172, 15,  // Medium Light green
-                155, 188, 15   // Light green
-        };
-
-        int[] exposureValues = {32, 64, 96, 124, 160, 224, 240, 256};
-
-        for (int i = 0; i < 256; i++) {
-            int pIndex;
-            if (i < exposureValues[0]) pIndex = 3;
-            else if (i < exposureValues[1]) pIndex = 3;
-            else if (i < exposureValues[2]) pIndex = 6;
-            else if (i < exposureValues[3]) pIndex = 3;
-            else if (i < exposureValues[4]) pIndex = 6;
-            else if (i < exposureValues[5]) pIndex = 3;
-            else if (i < exposureValues[6]) pIndex = 6;
-            else pIndex = 9;
-
-            // backwards, opencv expects bgr
-            lut.put(0, i,
-                    gameboyPalette[pIndex + 2],
-                    gameboyPalette[pIndex + 1],
-                    gameboyPalette[pIndex]);
-        }
-
-
-        Mat grayImage = Imgcodecs.imdecode(new MatOfByte(jpegImageBuf), Imgcodecs.IMREAD_GRAYSCALE);
-        Mat invertedImage = new Mat();
-        Mat inputImage = new Mat();
-        Imgproc.cvtColor(grayImage, invertedImage, Imgproc.COLOR_GRAY2BGR);
-        Core.bitwise_not(invertedImage, inputImage);
-
-        Mat outputImage = new Mat();
-        Core.LUT(inputImage, lut, outputImage);
-        MatOfByte outputBuffer = new MatOfByte();
-        Imgcodecs.imencode(".jpg", outputImage, outputBuffer);
-
-        return outputBuffer.toArray();
-    }
-
-
-    private static byte[] convertRGBToJPEG(byte[] rgbBuffer, int width, int height) throws IOException {
-        // Create BufferedImage in TYPE_3BYTE_BGR (Blue, Green, Red)
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
-
-        // Get the underlying byte buffer of the BufferedImage
-        byte[] imageData = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
-
-        // Convert RGB to BGR (swap red and blue channels)
-        for (int i = 0; i < width * height; i++) {
-            int r = rgbBuffer[i * 3] & 0xFF;
-            int g = rgbBuffer[i * 3 + 1] & 0xFF;
-            int b = rgbBuffer[i * 3 + 2] & 0xFF;
-
-            imageData[i * 3]     = (byte) b; // B
-            imageData[i * 3 + 1] = (byte) g; // G
-            imageData[i * 3 + 2] = (byte) r; // R
-        }
-
-        // Encode the image to JPEG
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(image, "jpeg", outputStream);
-
-        return outputStream.toByteArray();
-    }
-
-
-    private byte[] grayscaleToRgb(byte[] grayscaleBuf) {
-        byte[] rgbBuf = new byte[grayscaleBuf.length * 3];
-
-        for (int i = 0; i < grayscaleBuf.length; i++) {
-            byte grayValue = grayscaleBuf[i];
-
-            // set RGB channels!
-            rgbBuf[i*3] = grayValue;
-            rgbBuf[(i*3) + 1] = grayValue;
-            rgbBuf[(i*3) + 2] = grayValue;
-        }
-        return rgbBuf;
-    }
-
     public void getRawIRImage() throws IOException {
-        byte[] packet = new byte[48];
-        byte[] bufImage = new byte[19*4096]; // 8bpp greyscale image.
-        byte[] reply = new byte[0x170];
-        byte[] bufImageRgb;
-        byte[] jpegBufRgb;
-        byte [] gameboyBuf;
+        byte[] bufImage = frameRing.writeBuffer(); // 8bpp greyscale image, assembled in place.
+        byte[] reply = transport.reply(); // Reused for every report, stale bytes are cleared by the transport.
 
         /*
         int badSignal = 0;
         int errorReading = 0;
-        float noiseLevel = 0.0f;
-        int averageIntensityPercent = 0;
          */
         int previousFragNo = 0;
         int gotFragNo = 0;
@@ -391,25 +492,19 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         int whitePixelsPercent = 0;
         boolean enableIRAutoExposure = true; // Remember the step in which we hardcoded this would always be true!
         int counter = 0;
+        int ackFragNo = 0; // Fragment number resent when an empty report comes in.
+        int frameRetransmits = 0; // Missed fragments requested for the frame being assembled.
 
-        Arrays.fill(packet, (byte) 0);
         Arrays.fill(bufImage, (byte) 0);
-        Arrays.fill(reply, (byte) 0);
-
-        byte reportId = 0x11;
-        packet[0] = (byte) (timingByte++ & 0xF);
-        packet[9] = 0x03;
-        packet[47] = (byte) 0xFF;
+        telemetry.frameAborted(); // Fragments of a previous session don't belong to the first frame.
 
+        // ACKs come from pre-built templates, only the timing byte, fragment number and CRC change.
         // first ack
-        packet[13] = 0x00;
-        packet[46] = mcuCrc8Calc(packet, 36, 11);
-        send(packet, reportId);
+        transport.sendAck(ackFragNo);
 
         // IR read/ack loop for fragmented data packets.
         // it also avoids requesting missed data fragments, we just skip it not to complicate things???
-        while (this.enableVideo || initialization != 0) {
-            Arrays.fill(reply, (byte) 0);
+        while (doProcessing && (this.enableVideo || initialization != 0)) {
             receive(reply, 200);
 
             // Check if new packet.
@@ -443,11 +538,10 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                     previousFragNo = gotFragNo;
 
                     // ack for fragment.
-                    packet[0] = (byte) (timingByte++ & 0xF);
-                    packet[13] = (byte) previousFragNo;
-                    packet[46] = mcuCrc8Calc(packet, 36, 11);
-                    send(packet, reportId);
+                    ackFragNo = previousFragNo;
+                    transport.sendAck(ackFragNo);
                     System.arraycopy(reply, 59, bufImage, 300 * gotFragNo, 300);
+                    telemetry.fragmentReceived();
 
                     // Auto exposure.
                     if (enableIRAutoExposure == true && initialization < 2 && gotFragNo == 0) {
@@ -459,29 +553,40 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
                     // Check if final fragment. Draw the frame..
                     if (gotFragNo == irMaxFragNo) {
-                        /*
-                        System.out.println("Went in 3");
-                        noiseLevel = (float) (((reply[57] & 0xFF) | ((reply[58] & 0xFF) << 8)))
-                                / ((float) (((reply[55] & 0xFF) | ((reply[56] & 0xFF) << 8))) + 1.0f);
-                        whitePixelsPercent = (int) ((whitePixels * 100.0f) / maxPixels);
-                        averageIntensityPercent = (int) ((reply[53] & 0xFF) * 100.0f / 255.0f);
-                        int whitePixels = (reply[55] & 0xFF) | ((reply[56] & 0xFF) << 8);
-                        String fileName = "frame_" + counter + ".png";
-                         */
-
-                        // Change 8bpp grayscale image buffer to a 24bpp rgb one.
-                        bufImageRgb = grayscaleToRgb(bufImage);
-                        jpegBufRgb = convertRGBToJPEG(bufImageRgb, irImageWidth, irImageHeight);
-                        gameboyBuf = gameboyFilter(jpegBufRgb);
-
-                        // Data collection and processing.
-                        output.setData(gameboyBuf);
+                        // Noise level and average intensity come with the last fragment.
+                        int whitePixels = (reply[55] & 0xFF) | ((reply[56] & 0xFF) << 8); // Little-endian u16
+                        float noiseLevel = (float) ((reply[57] & 0xFF) | ((reply[58] & 0xFF) << 8))
+                                / (whitePixels + 1.0f);
+                        float averageIntensityPercent = (reply[53] & 0xFF) * 100.0f / 255.0f;
+                        telemetry.frameCompleted(noiseLevel, averageIntensityPercent);
+
+                        // Hand the frame over to the encoder and carry on with the next one right away.
+                        frameRing.commit(System.currentTimeMillis(), irImageWidth, irImageHeight);
+                        bufImage = frameRing.writeBuffer();
+
+                        // Step the resolution down under fragment loss or encoder backlog, and back up once healthy.
+                        if (resolutionController != null) {
+                            IRResolution next = resolutionController.onFrame(irMaxFragNo + 1, frameRetransmits,
+                                    frameRing.getPendingFrames());
+                            frameRetransmits = 0;
+                            if (next != irResolution) {
+                                // Streaming starts over with the first ACK and fragment at the new resolution.
+                                changeResolution(next);
+                                Arrays.fill(bufImage, (byte) 0);
+                                previousFragNo = 0;
+                                missedPacketNo = 0;
+                                missedPacket = false;
+                                ackFragNo = 0;
+                                transport.sendAck(ackFragNo);
+                                continue;
+                            }
+                        }
 
                         // Debugging: saving raw buffer.
                         /*
                         if (counter == 0 || counter == 1) {
                             String path = "C:\\Users\\radio\\dev\\osh-node-dev-template\\debug.bin";
-                            Files.write(Path.of(path), bufImageRgb);
+                            Files.write(Path.of(path), bufImage);
                         }
                          */
 
@@ -501,10 +606,9 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                         // System.out.println("Went in 5");
 
                         // ACK for fragment
-                        packet[0] = (byte) (timingByte++ & 0xF);
-                        packet[13] = (byte) gotFragNo;
-                        packet[46] = mcuCrc8Calc(packet, 36, 11);
-                        send(packet, reportId);
+                        ackFragNo = gotFragNo;
+                        transport.sendAck(ackFragNo);
+                        telemetry.duplicateReceived();
 
                         missedPacket = false;
                     }
@@ -515,18 +619,14 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                             // System.out.println("Went in 7");
 
                             // Missed Packet
-                            packet[0] = (byte) (timingByte++ & 0xF);
                             // Request for missed packet.You send what the next fragment number will be, instead of the acutal missed packet.
-                            packet[11] = 0x01;
-                            packet[12] = (byte) (previousFragNo + 1);
-                            packet[13] = 0x00;
-                            packet[46] = mcuCrc8Calc(packet, 36, 11);
-                            send(packet, reportId);
-
-                            packet[11] = 0x00;
-                            packet[12] = 0x00;
+                            transport.sendMissedFragmentRequest(previousFragNo + 1);
+                            ackFragNo = 0;
+                            frameRetransmits++;
+                            telemetry.retransmitRequested();
 
                             System.arraycopy(reply, 59, bufImage, 300 * gotFragNo, 300);
+                            telemetry.fragmentReceived();
 
                             previousFragNo = gotFragNo;
                             missedPacketNo = gotFragNo - 1;
@@ -536,12 +636,11 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                         else {
                             // System.out.println("Went in 8");
                             // ack for fragment
-                            packet[0] = (byte) (timingByte++ & 0xF);
-                            packet[13] = (byte) gotFragNo;
-                            packet[46] = mcuCrc8Calc(packet, 36, 11);
-                            send(packet, reportId);
+                            ackFragNo = gotFragNo;
+                            transport.sendAck(ackFragNo);
 
                             System.arraycopy(reply, 59, bufImage, 300 * gotFragNo, 300);
+                            telemetry.fragmentReceived();
                             previousFragNo = gotFragNo;
                         }
                     }
@@ -549,12 +648,11 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                     else if (missedPacketNo == gotFragNo) {
                         // System.out.println("Went in 9");
                         // ack for fragment
-                        packet[0] = (byte) (timingByte++ & 0xF);
-                        packet[13] = (byte) gotFragNo;
-                        packet[46] = mcuCrc8Calc(packet, 36, 11);
-                        send(packet, reportId);
+                        ackFragNo = gotFragNo;
+                        transport.sendAck(ackFragNo);
 
                         System.arraycopy(reply, 59, bufImage, 300 * gotFragNo, 300);
+                        telemetry.fragmentReceived();
                         previousFragNo = gotFragNo;
                         missedPacket = false;
                     }
@@ -562,22 +660,20 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                     else {
                         // System.out.println("Went in 10");
                         // ack for fragment.
-                        packet[0] = (byte) (timingByte++ & 0xF);
-                        packet[13] = (byte) gotFragNo;
-                        packet[46] = mcuCrc8Calc(packet, 36, 11);
-                        send(packet, reportId);
+                        ackFragNo = gotFragNo;
+                        transport.sendAck(ackFragNo);
+                        telemetry.duplicateReceived();
                     }
                 }
 
                 // Streaming Start
                 else {
                     // System.out.println("Went in 11");
-                    packet[0] = (byte) (timingByte++ & 0xF);
-                    packet[13] = (byte) gotFragNo;
-                    packet[46] = mcuCrc8Calc(packet, 36, 11);
-                    send(packet, reportId);
+                    ackFragNo = gotFragNo;
+                    transport.sendAck(ackFragNo);
 
                     System.arraycopy(reply, 59, bufImage, 300 * gotFragNo, 300);
+                    telemetry.fragmentReceived();
                     previousFragNo = 0;
                 }
             }
@@ -586,7 +682,6 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             else if ((reply[0] & 0xFF) == 0x31) {
                 // System.out.println("Went in 12, sending ack again.");
                 // ack for fragment.
-                packet[0] = (byte) (timingByte++ & 0xF);
 
                 /*
                 // Send ack again or request missed frag
@@ -603,21 +698,45 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                 */
 
                 // System.out.println("Went in 15");
-                packet[46] = mcuCrc8Calc(packet, 36, 11);
-                send(packet, reportId);
+                transport.sendAck(ackFragNo);
+                telemetry.emptyReportReceived();
 
-                packet[11] = 0x00;
-                packet[12] = 0x00;
                 //debug
-                packet[13] = 0x00;
+                ackFragNo = 0;
+            }
+        }
+    }
+
+    // Reads the IR reports of the clustering mode and publishes their clusters.
+    public void getClusters() throws IOException {
+        byte[] reply = transport.reply();
+
+        // first ack
+        transport.sendAck(0);
+
+        while (this.enableVideo) {
+            receive(reply, 200);
+
+            if ((reply[0] & 0xFF) == 0x31 &&
+                    (reply[49] & 0xFF) == 0x03) {
+                // Each report is a single fragment, ACK it before publishing.
+                transport.sendAck(reply[52] & 0xFF);
+                telemetry.fragmentReceived();
+                telemetry.frameCompleted(Double.NaN, Double.NaN);
+                clusterOutput.setData(System.currentTimeMillis(), reply, 59);
+            }
+
+            // Empty IR Report. Send Ack again to stay in low latency mode.
+            else if ((reply[0] & 0xFF) == 0x31) {
+                transport.sendAck(0);
+                telemetry.emptyReportReceived();
             }
         }
     }
 
     public void irSensorAutoExposure(int whitePixelsPercent) throws IOException {
         int res;
-        byte[] packet = new byte[48];
-        Arrays.fill(packet, (byte) 0);
+        byte[] packet = transport.command();
         int newExposure = 0;
         int oldExposure = numericIRExposure;
 
@@ -632,7 +751,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         newExposure = oldExposure * 31200 / 1000;
 
         byte reportId = 0x01;
-        packet[0] = (byte) (timingByte++ & 0xF);
+        packet[0] = transport.nextTimingByte();
         packet[9] = 0x21;
 
         packet[10] = 0x23; // Write register cmd
@@ -657,17 +776,16 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     private int silenceInputReport() {
         int res;
-        byte[] packet = new byte[48];
-        Arrays.fill(packet, (byte) 0);
+        byte[] packet = transport.command();
 
         for (int error = 0; error < 6; error++) {
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x03;
             packet[10] = 0x3f;
             res = send(packet, reportId);
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[49];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[13] & 0xFF) == 0x80 &&
                         (reply[14] & 0xFF) == 0x03) {
@@ -680,12 +798,11 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     private int setLedBusy() {
         int res;
-        byte[] packet = new byte[48];
-        Arrays.fill(packet, (byte) 0);
-        byte[] reply = new byte[49];
+        byte[] packet = transport.command();
+        byte[] reply = transport.reply();
 
         byte reportId = 0x01;
-        packet[0] = (byte) (timingByte++ & 0xFF);
+        packet[0] = transport.nextTimingByte();
         packet[9] = 0x30;
         packet[10] = (byte) 0x81;
         res = send(packet, reportId);
@@ -693,9 +810,8 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
         // Set breathing HOME LED
         Arrays.fill(packet, (byte) 0);
-        Arrays.fill(reply, (byte) 0);
         byte reportId2 = 0x01;
-        packet[0] = (byte) (timingByte++ & 0xF);
+        packet[0] = transport.nextTimingByte();
         packet[9] = 0x38;
         packet[10] = 0x28;
         packet[11] = 0x20;
@@ -711,13 +827,13 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     private String getSn(byte byte2, byte byte1, int read_len) {
         int res;
-        byte[] packet = new byte[48];
+        byte[] packet = transport.command();
         String test = "";
 
         for (int error = 0; error < 21; error++) {
             Arrays.fill(packet, (byte) 0);
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x10;
             packet[10] = byte1;
             packet[11] = byte2;
@@ -725,7 +841,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             res = send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[49];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[13] & 0xFF) == 0x90 &&
                         (reply[14] & 0xFF) == 0x10) {
@@ -751,18 +867,18 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     private byte[] getDeviceInfo() {
         // Did not include test_buf, i dont think its necessary??
         int res;
-        byte[] packet = new byte[48];
+        byte[] packet = transport.command();
         byte[] deviceInfo = new byte[10];
 
         for (int error = 0; error < 21; error++) {
             Arrays.fill(packet, (byte) 0);
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x02;
             res = send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[49];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[13] & 0xFF) == 0x82 &&
                         (reply[14] & 0xFF) == 0x02) {
@@ -782,18 +898,18 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     private byte[] getBattery() {
         byte[] battInfo = new byte[3];
         Arrays.fill(battInfo, (byte) 0);
-        byte[] packet = new byte[48];
+        byte[] packet = transport.command();
         int res;
 
         for (int error = 0; error < 21; error++) {
             Arrays.fill(packet, (byte) 0);
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x50;
             res = send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply  = new byte[49];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[13] & 0xFF) == 0xD0 &&
                         (reply[14] & 0xFF) == 0x50) {
@@ -814,20 +930,20 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     private byte[] getTemperature() throws InterruptedException{
         byte[] tempInfo = new byte[2];
         int res;
-        byte[] packet = new byte[48];
+        byte[] packet = transport.command();
         boolean imuChanged = false;
 
         for (int error = 0; error < 21; error++) {
             Arrays.fill(packet, (byte) 0);
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x43;
             packet[10] = 0x10;
             packet[11] = 0x01;
             res = send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[49];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[13] & 0xFF) == 0xC0 &&
                         (reply[14] & 0xFF) == 0x43) {
@@ -835,7 +951,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                     if ((reply[0x11] >> 4) == 0x00) {
                         Arrays.fill(packet, (byte) 0);
                         reportId = 0x01;
-                        packet[0] = (byte) (timingByte++ & 0xF);
+                        packet[0] = transport.nextTimingByte();
                         packet[9] = 0x40;
                         packet[10] = 0x01;
                         res = send(packet, reportId);
@@ -849,7 +965,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                     for (int error2 = 0; error2 < 21; error2++) {
                         Arrays.fill(packet, (byte) 0);
                         reportId = 0x01;
-                        packet[0] = (byte) (timingByte++ & 0xF);
+                        packet[0] = transport.nextTimingByte();
                         packet[9] = 0x43;
                         packet[10] = 0x20;
                         packet[11] = 0x02;
@@ -866,7 +982,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
                                 if (imuChanged) {
                                     Arrays.fill(packet, (byte) 0);
                                     reportId = 0x01;
-                                    packet[0] = (byte) (timingByte++ & 0xF);
+                                    packet[0] = transport.nextTimingByte();
                                     packet[9] = 0x40;
                                     packet[10] = 0x00;
                                     res = send(packet, reportId);
@@ -887,12 +1003,12 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     private byte[] getSpiData(byte byte2, byte byte1, int readLen) {
         int res;
         byte[] spiColors = new byte[12];
-        byte[] packet = new byte[48];
+        byte[] packet = transport.command();
 
         for (int error = 0; error < 21; error++) {
             Arrays.fill(packet, (byte) 0);
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x10;
             packet[10] = byte1;
             packet[11] = byte2;
@@ -900,7 +1016,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             res = send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[49];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 int extractedOffset = (reply[15] & 0xFF) |
                         ((reply[16] & 0xFF) << 8) |
@@ -927,13 +1043,13 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
     private int sendRumble() throws InterruptedException{
         int res;
-        byte[] buf = new byte[48];
-        byte[] buf2 = new byte[49];
+        byte[] buf = transport.command();
+        byte[] buf2 = transport.reply();
 
         // Enable Vibration.
         Arrays.fill(buf, (byte) 0);
         byte reportId = 0x01;
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[9] = 0x48;
         buf[10] = 0x01;
         res = send(buf, reportId);
@@ -944,7 +1060,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         //Send confirmation
         Arrays.fill(buf, (byte) 0);
         reportId = 0x01;
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[1] = (byte) 0xC2;
         buf[2] = (byte) 0xC8;
         buf[3] = 0x03;
@@ -957,7 +1073,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         res = receive(buf2, 64);
 
         Thread.sleep(81);
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[1] = 0x00;
         buf[2] = 0x01;
         buf[3] = 0x40;
@@ -970,7 +1086,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         res = receive(buf2, 64);
 
         Thread.sleep(5);
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[1] = (byte) 0xC3;
         buf[2] = (byte) 0xC8;
         buf[3] = 0x60;
@@ -987,7 +1103,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         // Disable Vibration
         Arrays.fill(buf, (byte) 0);
         reportId = 0x01;
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[1] = 0x00;
         buf[2] = 0x01;
         buf[3] = 0x40;
@@ -1003,7 +1119,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
         Arrays.fill(buf, (byte) 0);
         reportId = 0x01;
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[9] = 0x30;
         buf[10] = 0x01;
         res = send(buf, reportId);
@@ -1012,7 +1128,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         // set HOME Led!! (the most exciting part :D)
         Arrays.fill(buf, (byte) 0);
         reportId = 0x01;
-        buf[0] = (byte) (timingByte++ & 0xF);
+        buf[0] = transport.nextTimingByte();
         buf[9] = 0x38;
         // Heartbeat style config!!
         buf[10] = (byte) 0xF1;
@@ -1035,11 +1151,10 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             int res;
 
             // Switches the Joycon into IR mode (by sending subcommand 0x03 with argument 0x31)
-            byte[] packet = new byte[48];  // Create 49 byte packet (standard joycon command size)
-            Arrays.fill(packet, (byte) 0); // Fill it with 0's
+            byte[] packet = transport.command();  // Create 49 byte packet (standard joycon command size)
 
             byte reportId = 0x01; // BCRM vendor command.
-            packet[0] = (byte) (timingByte++ & 0xF); // Remember that (byte) is used to cast int to byte.
+            packet[0] = transport.nextTimingByte(); // Remember that (byte) is used to cast int to byte.
             packet[9] = 0x03; // Subcommand 0x03 = switch mode.
             packet[10] = 0x31; // Mode: set Incident Report Mode.
             written = send(packet, reportId); // Send the packet to the JoyCon.
@@ -1052,7 +1167,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             Thread.sleep(50); // Letting joycon catch up
             for (int i = 0; i < 9; i++) {
                 // Try this 8 times to get a valid reply.
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
 
                 /* Debug
@@ -1083,18 +1198,17 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         for (int error = 0; error < 9; error++) {
             int res;
 
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             // Now we give subcommand 0x22 with argument 0x01 to enable the MCU.
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x22;  // Subcommand 0x22 = MCU control.
             packet[10] = 0x01;  // Argument 0x01 = Enable MCU.
             send(packet, reportId);
 
             for (int i = 0; i < 8; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[13] & 0xFF) == 0x80 &&
                         (reply[14] & 0xFF) == 0x22) {
@@ -1115,16 +1229,15 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
         // Repeatedly sends subcommand 0x11 and checks the return to see if the MCU is in standby mode.
         for (int error = 0; error <= 8; error++) {
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             byte reportId = 0x11; // Output report instead of subcommand report. Check notes to see the difference on them.
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x01; // Subcommand 0x01 = Get MCU status.
             send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if (reply[0] == 0x31 &&
                         reply[49] == 0x01 &&
@@ -1146,11 +1259,10 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         int res;
 
         for (int error = 0; error < 9; error++) {
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x21;
             packet[10] = 0x21; //set MCU mode cmd.
             packet[11] = 0x00; // set MCU mode cmd.
@@ -1159,7 +1271,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             send(packet, reportId);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 int mcuStatus = ((reply[25] & 0xFF) << 24) |
                         ((reply[24] & 0xFF) << 16) |
@@ -1184,16 +1296,15 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         int res;
 
         for (int error = 0 ; error < 8; error++) {
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             byte reportId = 0x11; // Remember!! 0x11 = output report.
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x01; // Get status
             send(packet, reportId);
 
             for (int i = 0; i < 9; i++){
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[0] & 0xFF) == 0x31 &&
                         (reply[49] & 0xFF) == 0x01 &&
@@ -1213,15 +1324,14 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         int res;
 
         for (int error = 0; error < 8; error++) {
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x21; // subcommand: set exposure/timing
             packet[10] = 0x23;
             packet[11] = 0x01; // set IR mode command.
-            packet[12] = 0x07; // IR Mode - 7: Image transfer. There are more modes!!
+            packet[12] = (byte) config.irMode.code; // IR Mode - 7: Image transfer, 6: Clustering. There are more modes!!
             packet[13] = (byte) irMaxFragNo;
             packet[14] = 0x00;
             packet[15] = 0x05; // setting IR MCU major
@@ -1231,7 +1341,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             send(packet, reportId);
 
             for (int i = 0; i < 8; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[0] & 0xFF) == 0x21 &&
                         (reply[15] & 0xFF) == 0x0B) {
@@ -1251,10 +1361,9 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
 
         for (int error = 0; error < 8; error++) {
             // debugging -- mistery packet!
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
             byte reportId0 = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x21;
             packet[10] = 0x23;
             packet[11] = 0x04;
@@ -1292,7 +1401,7 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             Arrays.fill(packet, (byte) 0);
 
             byte reportId = 0x11;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x03;
             packet[10] = 0x02;
             packet[46] = mcuCrc8Calc(packet, 36, 11);
@@ -1300,12 +1409,12 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             send(packet, reportId);
 
             for (int i = 0; i < 5; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[0] & 0xFF) == 0x31 &&
                         (reply[49] & 0xFF) == 0x13 &&
                         (reply[50] & 0xFF) == 0x00 &&
-                        (reply[51] & 0xFF) == 0x07) {
+                        (reply[51] & 0xFF) == config.irMode.code) {
                     System.out.println("Step 6 successful!");
                     return true;
                 }
@@ -1325,11 +1434,10 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         int irExposure = numericIRExposure * 31200 / 1000;
 
         for (int error = 0; error < 8; error++) {
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
             packet[9] = 0x21;
 
             packet[10] = 0x23; // Write register cmd
@@ -1378,12 +1486,11 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             packet[47] = mcuCrc8Calc(packet, 36, 12);
             send(packet, reportId);
 
-            // Check for IR mode status: Mode 7 - Image transfer mode.
-            byte[] packet2 = new byte[48];
-            Arrays.fill(packet2, (byte) 0);
+            // Check for IR mode status: Mode 7 - Image transfer mode, Mode 6 - Clustering mode.
+            byte[] packet2 = transport.command();
 
             byte reportId2 = 0x11;
-            packet2[0] = (byte) (timingByte++ & 0xF);
+            packet2[0] = transport.nextTimingByte();
 
             packet2[9] = 0x03;
             packet2[10] = 0x02;
@@ -1392,12 +1499,12 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             send(packet2, reportId2);
 
             for (int i = 0; i < 9; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[0] & 0xFF) == 0x21 &&
                         (reply[15] & 0xFF) == 0x13 &&
                         (reply[16] & 0xFF) == 0x00 &&
-                        (reply[17] & 0xFF) == 0x07) {
+                        (reply[17] & 0xFF) == config.irMode.code) {
                     System.out.println("Step 7 successful.:D");
                     return true;
                 }
@@ -1413,11 +1520,10 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
         int res;
 
         for (int error = 0; error < 8; error++) {
-            byte[] packet = new byte[48];
-            Arrays.fill(packet, (byte) 0);
+            byte[] packet = transport.command();
 
             byte reportId = 0x01;
-            packet[0] = (byte) (timingByte++ & 0xF);
+            packet[0] = transport.nextTimingByte();
 
             packet[9] = 0x21;
             packet[10] = 0x23; // Write register cmd.
@@ -1460,12 +1566,12 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
             send(packet, reportId);
 
             for (int i = 0; i < 8; i++) {
-                byte[] reply = new byte[0x170];
+                byte[] reply = transport.reply();
                 res = receive(reply, 64);
                 if ((reply[0] & 0xFF) == 0x21 &&
                         (reply[15] & 0xFF) == 0x13 &&
                         (reply[16] & 0xFF) == 0x00 &&
-                        (reply[17] & 0xFF) == 0x07) {
+                        (reply[17] & 0xFF) == config.irMode.code) {
                     System.out.println("Step 8 was successful.:D");
                     return true;
                 }
@@ -1480,7 +1586,10 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     public boolean step9(boolean onOff) throws IOException {
         if (onOff) {
             this.enableVideo = true; // Enable video streaming
-            getRawIRImage(); // Start streaming the video
+            if (clusterOutput != null)
+                getClusters(); // Start streaming the clusters
+            else
+                getRawIRImage(); // Start streaming the video
             System.out.println("Step 9 successful... Streaming Video :D");
             return true;
         }
@@ -1494,18 +1603,17 @@ public class JoyConImageSensor extends AbstractSensorModule<Config> {
     // STEP 10: Disable the MCU (to end the communication??)
     public boolean step10() throws IOException {
         int res;
-        byte[] packet = new byte[48];
-        Arrays.fill(packet, (byte) 0);
+        byte[] packet = transport.command();
 
         byte reportId = 0x01;
-        packet[0] = (byte) (timingByte++ & 0xF);
+        packet[0] = transport.nextTimingByte();
 
         packet[9] = 0x03;
         packet[10] = 0x3F;
         send(packet, reportId);
 
         for (int i = 0; i < 9; i++) {
-            byte[] reply = new byte[0x170];
+            byte[] reply = transport.reply();
             res = receive(reply, 64);
             if ((reply[13] & 0xFF) == 0x80 &&
                     (reply[14] & 0xFF) == 0x03) {
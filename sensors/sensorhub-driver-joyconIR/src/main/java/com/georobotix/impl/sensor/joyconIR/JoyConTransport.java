@@ -0,0 +1,213 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import java.util.Arrays;
+
+/**
+ * HID transport to the JoyCon, reusing its packet buffers so the IR streaming loop does not allocate per packet.
+ * <p>
+ * Commands are built in a single shared buffer returned by {@link #command()}, and replies are read into the shared
+ * buffer returned by {@link #reply()}. Fragment ACKs and missed fragment requests come from pre-built templates in
+ * which only the timing byte, the fragment number and the CRC change; the CRC of every fragment number is computed
+ * once when the template is built. A transport is used by one thread at a time, buffers are only valid until the
+ * next call.
+ */
+class JoyConTransport {
+    static final int COMMAND_SIZE = 48;
+    static final int REPLY_SIZE = 0x170;
+
+    // Output report carrying MCU requests, such as IR fragment ACKs
+    private static final byte MCU_REPORT = 0x11;
+
+    // CRC-8 with polynomial 0x07, as used by the MCU
+    private static final byte[] CRC8_TABLE = new byte[] {
+            (byte)0x00, (byte)0x07, (byte)0x0E, (byte)0x09, (byte)0x1C, (byte)0x1B, (byte)0x12, (byte)0x15,
+            (byte)0x38, (byte)0x3F, (byte)0x36, (byte)0x31, (byte)0x24, (byte)0x23, (byte)0x2A, (byte)0x2D,
+            (byte)0x70, (byte)0x77, (byte)0x7E, (byte)0x79, (byte)0x6C, (byte)0x6B, (byte)0x62, (byte)0x65,
+            (byte)0x48, (byte)0x4F, (byte)0x46, (byte)0x41, (byte)0x54, (byte)0x53, (byte)0x5A, (byte)0x5D,
+            (byte)0xE0, (byte)0xE7, (byte)0xEE, (byte)0xE9, (byte)0xFC, (byte)0xFB, (byte)0xF2, (byte)0xF5,
+            (byte)0xD8, (byte)0xDF, (byte)0xD6, (byte)0xD1, (byte)0xC4, (byte)0xC3, (byte)0xCA, (byte)0xCD,
+            (byte)0x90, (byte)0x97, (byte)0x9E, (byte)0x99, (byte)0x8C, (byte)0x8B, (byte)0x82, (byte)0x85,
+            (byte)0xA8, (byte)0xAF, (byte)0xA6, (byte)0xA1, (byte)0xB4, (byte)0xB3, (byte)0xBA, (byte)0xBD,
+            (byte)0xC7, (byte)0xC0, (byte)0xC9, (byte)0xCE, (byte)0xDB, (byte)0xDC, (byte)0xD5, (byte)0xD2,
+            (byte)0xFF, (byte)0xF8, (byte)0xF1, (byte)0xF6, (byte)0xE3, (byte)0xE4, (byte)0xED, (byte)0xEA,
+            (byte)0xB7, (byte)0xB0, (byte)0xB9, (byte)0xBE, (byte)0xAB, (byte)0xAC, (byte)0xA5, (byte)0xA2,
+            (byte)0x8F, (byte)0x88, (byte)0x81, (byte)0x86, (byte)0x93, (byte)0x94, (byte)0x9D, (byte)0x9A,
+            (byte)0x27, (byte)0x20, (byte)0x29, (byte)0x2E, (byte)0x3B, (byte)0x3C, (byte)0x35, (byte)0x32,
+            (byte)0x1F, (byte)0x18, (byte)0x11, (byte)0x16, (byte)0x03, (byte)0x04, (byte)0x0D, (byte)0x0A,
+            (byte)0x57, (byte)0x50, (byte)0x59, (byte)0x5E, (byte)0x4B, (byte)0x4C, (byte)0x45, (byte)0x42,
+            (byte)0x6F, (byte)0x68, (byte)0x61, (byte)0x66, (byte)0x73, (byte)0x74, (byte)0x7D, (byte)0x7A,
+            (byte)0x89, (byte)0x8E, (byte)0x87, (byte)0x80, (byte)0x95, (byte)0x92, (byte)0x9B, (byte)0x9C,
+            (byte)0xB1, (byte)0xB6, (byte)0xBF, (byte)0xB8, (byte)0xAD, (byte)0xAA, (byte)0xA3, (byte)0xA4,
+            (byte)0xF9, (byte)0xFE, (byte)0xF7, (byte)0xF0, (byte)0xE5, (byte)0xE2, (byte)0xEB, (byte)0xEC,
+            (byte)0xC1, (byte)0xC6, (byte)0xCF, (byte)0xC8, (byte)0xDD, (byte)0xDA, (byte)0xD3, (byte)0xD4,
+            (byte)0x69, (byte)0x6E, (byte)0x67, (byte)0x60, (byte)0x75, (byte)0x72, (byte)0x7B, (byte)0x7C,
+            (byte)0x51, (byte)0x56, (byte)0x5F, (byte)0x58, (byte)0x4D, (byte)0x4A, (byte)0x43, (byte)0x44,
+            (byte)0x19, (byte)0x1E, (byte)0x17, (byte)0x10, (byte)0x05, (byte)0x02, (byte)0x0B, (byte)0x0C,
+            (byte)0x21, (byte)0x26, (byte)0x2F, (byte)0x28, (byte)0x3D, (byte)0x3A, (byte)0x33, (byte)0x34,
+            (byte)0x4E, (byte)0x49, (byte)0x40, (byte)0x47, (byte)0x52, (byte)0x55, (byte)0x5C, (byte)0x5B,
+            (byte)0x76, (byte)0x71, (byte)0x78, (byte)0x7F, (byte)0x6A, (byte)0x6D, (byte)0x64, (byte)0x63,
+            (byte)0x3E, (byte)0x39, (byte)0x30, (byte)0x37, (byte)0x22, (byte)0x25, (byte)0x2C, (byte)0x2B,
+            (byte)0x06, (byte)0x01, (byte)0x08, (byte)0x0F, (byte)0x1A, (byte)0x1D, (byte)0x14, (byte)0x13,
+            (byte)0xAE, (byte)0xA9, (byte)0xA0, (byte)0xA7, (byte)0xB2, (byte)0xB5, (byte)0xBC, (byte)0xBB,
+            (byte)0x96, (byte)0x91, (byte)0x98, (byte)0x9F, (byte)0x8A, (byte)0x8D, (byte)0x84, (byte)0x83,
+            (byte)0xDE, (byte)0xD9, (byte)0xD0, (byte)0xD7, (byte)0xC2, (byte)0xC5, (byte)0xCC, (byte)0xCB,
+            (byte)0xE6, (byte)0xE1, (byte)0xE8, (byte)0xEF, (byte)0xFA, (byte)0xFD, (byte)0xF4, (byte)0xF3
+    };
+
+    private final HidEndpoint device;
+    private final byte[] command = new byte[COMMAND_SIZE];
+    private final byte[] reply = new byte[REPLY_SIZE];
+    private final AckTemplate ack = new AckTemplate(0);
+    private final AckTemplate missedRequest = new AckTemplate(1);
+    private int timingByte = 0;
+
+    // Number of bytes of the reply buffer filled by the last read
+    private int replyLength = REPLY_SIZE;
+
+    /**
+     * @param device Opened JoyCon, real or simulated.
+     */
+    JoyConTransport(HidEndpoint device) {
+        this.device = device;
+    }
+
+    /**
+     * Computes the CRC-8 of part of a packet.
+     *
+     * @param buf Packet.
+     * @param offset Index of the first byte.
+     * @param length Number of bytes.
+     * @return The CRC.
+     */
+    static byte crc8(byte[] buf, int offset, int length) {
+        byte crc8 = 0x00;
+        for (int i = offset; i < offset + length; i++)
+            crc8 = CRC8_TABLE[(crc8 ^ buf[i]) & 0xff];
+        return crc8;
+    }
+
+    /**
+     * @return The timing byte of the next packet, which cycles from 0 to 15.
+     */
+    byte nextTimingByte() {
+        return (byte) (timingByte++ & 0xF);
+    }
+
+    /**
+     * @return The shared command buffer, cleared.
+     */
+    byte[] command() {
+        Arrays.fill(command, (byte) 0);
+        return command;
+    }
+
+    /**
+     * @return The shared reply buffer, filled by {@link #receive(byte[], int)}.
+     */
+    byte[] reply() {
+        return reply;
+    }
+
+    /**
+     * Sends a packet to the JoyCon.
+     *
+     * @param packet Packet to send.
+     * @param reportId Output report ID.
+     * @return The number of bytes written, or -1 on error.
+     */
+    int send(byte[] packet, byte reportId) {
+        return device.write(packet, packet.length, reportId);
+    }
+
+    /**
+     * Reads the next input report from the JoyCon.
+     * <p>
+     * Bytes left over from an earlier, longer report are cleared so a short or timed out read never shows stale
+     * data. For the shared reply buffer only these bytes are cleared, other buffers are cleared entirely.
+     *
+     * @param buf Buffer receiving the report.
+     * @param timeoutMillis Time to wait for a report [ms].
+     * @return The number of bytes read, 0 on timeout, or -1 on error.
+     */
+    int receive(byte[] buf, int timeoutMillis) {
+        if (buf != reply)
+            Arrays.fill(buf, (byte) 0);
+
+        int res = device.read(buf, timeoutMillis);
+
+        if (buf == reply) {
+            int length = Math.max(0, Math.min(res, REPLY_SIZE));
+            if (length < replyLength)
+                Arrays.fill(reply, length, replyLength, (byte) 0);
+            replyLength = length;
+        }
+        return res;
+    }
+
+    /**
+     * Acknowledges an IR fragment.
+     *
+     * @param fragment Number of the fragment.
+     */
+    void sendAck(int fragment) {
+        send(ack.prepare(nextTimingByte(), fragment), MCU_REPORT);
+    }
+
+    /**
+     * Asks the MCU to send a missed IR fragment again.
+     *
+     * @param nextFragment Number of the fragment expected after the missed one.
+     */
+    void sendMissedFragmentRequest(int nextFragment) {
+        send(missedRequest.prepare(nextTimingByte(), nextFragment), MCU_REPORT);
+    }
+
+    /**
+     * IR fragment ACK packet, with the CRC of each fragment number computed up front.
+     */
+    static final class AckTemplate {
+        private static final int CRC_INDEX = 46;
+        private final byte[] packet = new byte[COMMAND_SIZE];
+        private final byte[] crcByFragment = new byte[256];
+        private final int fragmentIndex;
+
+        /**
+         * @param requestMissed 1 to request a missed fragment again, 0 to acknowledge one.
+         */
+        AckTemplate(int requestMissed) {
+            packet[9] = 0x03;
+            packet[11] = (byte) requestMissed;
+            packet[47] = (byte) 0xFF;
+
+            // ACKs carry the fragment number in byte 13, requests carry the next expected one in byte 12
+            fragmentIndex = requestMissed != 0 ? 12 : 13;
+            for (int f = 0; f < 256; f++) {
+                packet[fragmentIndex] = (byte) f;
+                crcByFragment[f] = crc8(packet, 10, 36);
+            }
+        }
+
+        /**
+         * @param timingByte Timing byte of the packet.
+         * @param fragment Fragment number to set.
+         * @return The packet, valid until the next call.
+         */
+        byte[] prepare(byte timingByte, int fragment) {
+            packet[0] = timingByte;
+            packet[fragmentIndex] = (byte) fragment;
+            packet[CRC_INDEX] = crcByFragment[fragment & 0xFF];
+            return packet;
+        }
+    }
+}
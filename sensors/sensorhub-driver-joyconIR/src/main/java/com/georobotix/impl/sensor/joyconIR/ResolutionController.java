@@ -0,0 +1,131 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+/**
+ * Picks the IR resolution from the health of the fragment stream.
+ * <p>
+ * Frames are evaluated in windows of {@link #WINDOW} frames. A window is congested when the share of fragments
+ * that had to be requested again exceeds the retransmit threshold, or when frames wait for the encoder in the
+ * frame ring, and the resolution then steps down one level. After enough consecutive healthy frames, it steps
+ * back up one level, never above the configured resolution. Every change starts a new window, so a step is only
+ * judged on frames received at the new resolution.
+ */
+class ResolutionController {
+    static final int WINDOW = 8;
+
+    private final IRResolution maxResolution;
+    private final double retransmitThreshold;
+    private final int backlogThreshold;
+    private final int recoveryFrames;
+    private IRResolution resolution;
+
+    // Current window
+    private int windowFrames;
+    private long windowFragments;
+    private long windowRetransmits;
+    private int maxPendingFrames;
+    private int healthyFrames;
+
+    // Statistics
+    private volatile long stepsDown;
+    private volatile long stepsUp;
+
+    /**
+     * @param maxResolution Configured resolution, the highest one used.
+     * @param retransmitThreshold Share of fragments requested again above which the stream is congested.
+     * @param backlogThreshold Number of frames waiting to be encoded from which the encoder is congested.
+     * @param recoveryFrames Number of consecutive healthy frames before stepping back up.
+     */
+    ResolutionController(IRResolution maxResolution, double retransmitThreshold, int backlogThreshold,
+                         int recoveryFrames) {
+        this.maxResolution = maxResolution;
+        this.retransmitThreshold = retransmitThreshold;
+        this.backlogThreshold = Math.max(1, backlogThreshold);
+        this.recoveryFrames = recoveryFrames;
+        this.resolution = maxResolution;
+    }
+
+    /**
+     * Accounts for a completed frame.
+     *
+     * @param fragments Number of fragments of the frame.
+     * @param retransmits Number of missed fragments requested again while receiving the frame.
+     * @param pendingFrames Number of frames waiting to be encoded.
+     * @return The resolution to use from now on.
+     */
+    IRResolution onFrame(int fragments, int retransmits, int pendingFrames) {
+        windowFrames++;
+        windowFragments += fragments;
+        windowRetransmits += retransmits;
+        maxPendingFrames = Math.max(maxPendingFrames, pendingFrames);
+        if (windowFrames < WINDOW)
+            return resolution;
+
+        boolean congested = windowRetransmits > retransmitThreshold * windowFragments
+                || maxPendingFrames >= backlogThreshold;
+        resetWindow();
+
+        if (congested) {
+            healthyFrames = 0;
+            if (resolution.lower() != resolution) {
+                resolution = resolution.lower();
+                stepsDown++;
+            }
+        }
+        else {
+            healthyFrames += WINDOW;
+            if (healthyFrames >= recoveryFrames && resolution != maxResolution) {
+                resolution = resolution.higher();
+                healthyFrames = 0;
+                stepsUp++;
+            }
+        }
+        return resolution;
+    }
+
+    /**
+     * Forces the current resolution, for instance when a change could not be applied.
+     *
+     * @param resolution Resolution in use.
+     */
+    void setResolution(IRResolution resolution) {
+        this.resolution = resolution;
+        this.healthyFrames = 0;
+        resetWindow();
+    }
+
+    IRResolution getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return The number of times the resolution was lowered.
+     */
+    long getStepsDown() {
+        return stepsDown;
+    }
+
+    /**
+     * @return The number of times the resolution was raised.
+     */
+    long getStepsUp() {
+        return stepsUp;
+    }
+
+    private void resetWindow() {
+        windowFrames = 0;
+        windowFragments = 0;
+        windowRetransmits = 0;
+        maxPendingFrames = 0;
+    }
+}
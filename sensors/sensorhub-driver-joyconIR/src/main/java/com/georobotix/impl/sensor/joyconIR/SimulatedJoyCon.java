@@ -0,0 +1,547 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Software stand-in for a right JoyCon and its IR camera MCU.
+ * <p>
+ * It answers the subcommands and MCU requests of the initialization sequence and of steps 0 to 10, and once the
+ * IR image mode is configured and the first fragment ACK is received, it streams 0x31 reports carrying 300-byte
+ * fragments of a synthetic image at the resolution set by the number of fragments per frame. Like the MCU, it only
+ * moves on to the next fragment once the current one is acknowledged, sends empty IR reports while waiting, and
+ * goes back to the requested fragment when asked for a missed one.
+ * <p>
+ * In clustering mode, each report carries the cluster of the bright spot of the synthetic image instead, in the
+ * layout decoded by {@link ClusterOutput}, at the resolution set by the resolution register.
+ * <p>
+ * Fragment loss, repeated fragments and report latency can be injected to exercise the recovery paths of the
+ * driver. The counters can be used to measure the frame rate and ACK latency reached by the driver without
+ * hardware.
+ */
+public class SimulatedJoyCon implements HidEndpoint {
+    static final int SUBCOMMAND_REPLY_SIZE = 49;
+    static final int IR_REPORT_SIZE = 362;
+    static final int FRAGMENT_SIZE = 300;
+    static final int FRAGMENT_OFFSET = 59;
+
+    private static final byte SUBCOMMAND_REPORT = 0x01;
+    private static final byte MCU_REPORT = 0x11;
+    private static final int MCU_STANDBY = 0x01;
+    private static final int MCU_IR = 0x05;
+    private static final int IR_CLUSTERING = 0x06;
+    private static final int IR_IMAGE_TRANSFER = 0x07;
+
+    private final double lossRate;
+    private final double repeatRate;
+    private final long latencyNanos;
+    private final Random random;
+
+    private final Queue<byte[]> replies = new ArrayDeque<>();
+    private final byte[] fragment = new byte[IR_REPORT_SIZE];
+    private boolean open = true;
+    private int timer;
+
+    // MCU state
+    private int mcuMode;
+    private int irMode;
+    private int maxFragNo;
+    private int resolutionRegister;
+    private int width = 320;
+    private int height = 240;
+
+    // Stream state
+    private boolean streaming;
+    private int nextFragNo;
+    private int lastSentFragNo = -1;
+    private int ackedFragNo = -1;
+    private long lastSentNanos;
+    private long frame;
+
+    // Counters
+    private volatile long framesSent;
+    private volatile long fragmentsSent;
+    private volatile long emptyReportsSent;
+    private volatile long lostFragments;
+    private volatile long repeatedFragments;
+    private volatile long retransmitRequests;
+    private volatile long acks;
+    private volatile double totalAckLatency;
+    private volatile double maxAckLatency;
+
+    /**
+     * Creates a simulator without loss, repeats or latency.
+     */
+    public SimulatedJoyCon() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * @param lossRate Probability that a fragment is skipped and has to be requested again, between 0 and 1.
+     * @param repeatRate Probability that a fragment is sent twice, between 0 and 1.
+     * @param latency Delay before each report is returned [ms].
+     * @param seed Seed of the random loss and repeats, so runs can be reproduced.
+     */
+    public SimulatedJoyCon(double lossRate, double repeatRate, long latency, long seed) {
+        this.lossRate = lossRate;
+        this.repeatRate = repeatRate;
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latency);
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public synchronized int write(byte[] packet, int length, byte reportId) {
+        if (!open)
+            return -1;
+
+        if (reportId == SUBCOMMAND_REPORT)
+            onSubcommand(packet);
+        else if (reportId == MCU_REPORT)
+            onMcuRequest(packet);
+        return length;
+    }
+
+    @Override
+    public int read(byte[] buf, int timeoutMillis) {
+        if (latencyNanos > 0)
+            LockSupport.parkNanos(latencyNanos);
+
+        synchronized (this) {
+            if (!open)
+                return -1;
+
+            byte[] report = replies.poll();
+            if (report == null && streaming)
+                report = nextIRReport();
+
+            if (report != null) {
+                int length = Math.min(report.length, buf.length);
+                System.arraycopy(report, 0, buf, 0, length);
+                return length;
+            }
+        }
+
+        // Nothing to send, like a quiet device
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        return 0;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+        streaming = false;
+    }
+
+    private void onSubcommand(byte[] packet) {
+        int subcmd = packet[9] & 0xFF;
+        byte[] reply = newSubcommandReply(0x80, subcmd);
+
+        switch (subcmd) {
+            case 0x03: // Set input report mode, 0x3F also ends IR streaming
+                if ((packet[10] & 0xFF) == 0x3F) {
+                    streaming = false;
+                    mcuMode = 0;
+                }
+                break;
+
+            case 0x02: // Device info: firmware 4.6, right JoyCon
+                reply[13] = (byte) 0x82;
+                reply[15] = 0x04;
+                reply[16] = 0x06;
+                reply[17] = 0x02;
+                break;
+
+            case 0x10: // SPI flash read, the requested address is echoed back
+                reply[13] = (byte) 0x90;
+                System.arraycopy(packet, 10, reply, 15, 5);
+                int readLen = Math.min(packet[14] & 0xFF, SUBCOMMAND_REPLY_SIZE - 0x14);
+                for (int k = 0; k < readLen; k++)
+                    reply[0x14 + k] = (byte) ('A' + k);
+                break;
+
+            case 0x22: // MCU power
+                mcuMode = packet[10] == 0x01 ? MCU_STANDBY : 0;
+                break;
+
+            case 0x21: // MCU configuration
+                reply[13] = (byte) 0xA0;
+                onMcuConfig(packet, reply);
+                break;
+
+            case 0x43: // IMU register read, reports the IMU as enabled
+                reply[13] = (byte) 0xC0;
+                reply[0x11] = 0x10;
+                reply[0x12] = 0x19;
+                break;
+
+            case 0x50: // Battery voltage
+                reply[13] = (byte) 0xD0;
+                reply[15] = 0x10;
+                reply[16] = 0x06;
+                break;
+
+            default:
+                break;
+        }
+        replies.add(reply);
+    }
+
+    private void onMcuConfig(byte[] packet, byte[] reply) {
+        int cmd = packet[10] & 0xFF;
+        int subcmd = packet[11] & 0xFF;
+        reply[0] = 0x21;
+
+        if (cmd == 0x21) {
+            // Set MCU mode
+            mcuMode = packet[12] & 0xFF;
+            reply[15] = 0x01;
+            reply[22] = 0x01;
+        }
+        else if (cmd == 0x23 && subcmd == 0x01) {
+            // Set IR mode and number of fragments per frame, a running stream restarts with the next ACK
+            irMode = packet[12] & 0xFF;
+            maxFragNo = packet[13] & 0xFF;
+            streaming = false;
+            updateResolution();
+            reply[15] = 0x0B;
+        }
+        else if (cmd == 0x23 && subcmd == 0x04) {
+            // Register writes, only the resolution is used
+            int numRegisters = Math.min(packet[12] & 0xFF, 9);
+            for (int k = 0; k < numRegisters; k++) {
+                int at = 13 + 3 * k;
+                if (packet[at] == 0x00 && packet[at + 1] == 0x2E)
+                    resolutionRegister = packet[at + 2] & 0xFF;
+            }
+            updateResolution();
+            reply[15] = 0x13;
+            reply[16] = 0x00;
+            reply[17] = (byte) irMode;
+        }
+    }
+
+    private void onMcuRequest(byte[] packet) {
+        int cmd = packet[9] & 0xFF;
+        if (cmd == 0x01) {
+            // MCU status
+            byte[] reply = newIRReport();
+            reply[49] = 0x01;
+            reply[56] = (byte) mcuMode;
+            replies.add(reply);
+        }
+        else if (cmd == 0x03 && packet[10] == 0x02) {
+            // IR mode status
+            byte[] reply = newIRReport();
+            reply[49] = 0x13;
+            reply[50] = 0x00;
+            reply[51] = (byte) irMode;
+            replies.add(reply);
+        }
+        else if (cmd == 0x03 && packet[10] == 0x00 && mcuMode == MCU_IR
+                && (irMode == IR_IMAGE_TRANSFER || irMode == IR_CLUSTERING)) {
+            onFragmentAck(packet);
+        }
+    }
+
+    private void onFragmentAck(byte[] packet) {
+        if (!streaming) {
+            // The first ACK starts the stream
+            streaming = true;
+            nextFragNo = 0;
+            lastSentFragNo = -1;
+            ackedFragNo = -1;
+            return;
+        }
+
+        if (packet[11] == 0x01) {
+            // Missed fragment request: go back to the requested fragment
+            retransmitRequests++;
+            nextFragNo = (packet[12] & 0xFF) % (maxFragNo + 1);
+            ackedFragNo = lastSentFragNo;
+        }
+        else {
+            int fragNo = packet[13] & 0xFF;
+            if (fragNo == lastSentFragNo && ackedFragNo != lastSentFragNo) {
+                double latency = (System.nanoTime() - lastSentNanos) / 1e6;
+                totalAckLatency += latency;
+                if (latency > maxAckLatency)
+                    maxAckLatency = latency;
+                acks++;
+            }
+            ackedFragNo = fragNo;
+        }
+    }
+
+    private byte[] nextIRReport() {
+        // Like the MCU, wait for the ACK of the last fragment before sending the next one
+        if (lastSentFragNo >= 0 && ackedFragNo != lastSentFragNo) {
+            byte[] empty = newIRReport();
+            empty[49] = (byte) 0xFF;
+            emptyReportsSent++;
+            return empty;
+        }
+
+        if (irMode == IR_CLUSTERING) {
+            fillClusters();
+            lastSentFragNo = 0;
+            ackedFragNo = -1;
+            lastSentNanos = System.nanoTime();
+            fragmentsSent++;
+            framesSent++;
+            frame++;
+            return fragment;
+        }
+
+        int fragNo;
+        if (lastSentFragNo >= 0 && random.nextDouble() < repeatRate) {
+            fragNo = lastSentFragNo;
+            repeatedFragments++;
+        }
+        else {
+            if (nextFragNo != 0 && nextFragNo < maxFragNo && random.nextDouble() < lossRate) {
+                // This fragment never makes it, the driver sees the next one
+                advance();
+                lostFragments++;
+            }
+            fragNo = nextFragNo;
+            advance();
+        }
+
+        fillFragment(fragNo);
+        lastSentFragNo = fragNo;
+        lastSentNanos = System.nanoTime();
+        fragmentsSent++;
+        return fragment;
+    }
+
+    private void advance() {
+        nextFragNo++;
+        if (nextFragNo > maxFragNo) {
+            nextFragNo = 0;
+            frame++;
+            framesSent++;
+        }
+    }
+
+    private void fillFragment(int fragNo) {
+        Arrays.fill(fragment, (byte) 0);
+        fragment[0] = 0x31;
+        fragment[1] = (byte) timer++;
+        fragment[49] = 0x03;
+        fragment[52] = (byte) fragNo;
+        fragment[53] = 0x40; // Average intensity
+        fragment[55] = 0x20; // White pixels, little-endian
+        fragment[57] = 0x02; // Noise level, little-endian
+
+        int cx = spotX(frame);
+        int cy = spotY(frame);
+        int first = fragNo * FRAGMENT_SIZE;
+        for (int k = 0; k < FRAGMENT_SIZE; k++) {
+            int i = first + k;
+            fragment[FRAGMENT_OFFSET + k] = pixel(i % width, i / width, cx, cy);
+        }
+    }
+
+    private void fillClusters() {
+        Arrays.fill(fragment, (byte) 0);
+        fragment[0] = 0x31;
+        fragment[1] = (byte) timer++;
+        fragment[49] = 0x03;
+
+        // The bright spot is the only cluster
+        int cx = spotX(frame);
+        int cy = spotY(frame);
+        int r = spotRadius();
+        int x0 = Math.max(0, cx - r);
+        int y0 = Math.max(0, cy - r);
+        int x1 = Math.min(width - 1, cx + r);
+        int y1 = Math.min(height - 1, cy + r);
+        int area = 0;
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                if ((x - cx) * (x - cx) + (y - cy) * (y - cy) <= r * r)
+                    area++;
+            }
+        }
+
+        int[] cluster = {0xF0, area, cx, cy, x0, y0, x1 - x0 + 1, y1 - y0 + 1};
+        for (int f = 0; f < cluster.length; f++) {
+            fragment[FRAGMENT_OFFSET + 2 * f] = (byte) cluster[f];
+            fragment[FRAGMENT_OFFSET + 2 * f + 1] = (byte) (cluster[f] >> 8);
+        }
+    }
+
+    /**
+     * Value of a pixel of the synthetic image: a dim gradient with a bright spot circling around the center.
+     *
+     * @param x Column of the pixel.
+     * @param y Row of the pixel.
+     * @param frame Number of the frame.
+     * @return The 8bpp grey value.
+     */
+    byte pixel(int x, int y, long frame) {
+        return pixel(x, y, spotX(frame), spotY(frame));
+    }
+
+    private byte pixel(int x, int y, int cx, int cy) {
+        int r = spotRadius();
+        int dx = x - cx;
+        int dy = y - cy;
+        if (dx * dx + dy * dy <= r * r)
+            return (byte) 0xF0;
+        return (byte) ((x + y) * 0x40 / (width + height));
+    }
+
+    private int spotRadius() {
+        return Math.max(2, width / 16);
+    }
+
+    /**
+     * @param frame Number of the frame.
+     * @return The column of the center of the bright spot.
+     */
+    int spotX(long frame) {
+        return (int) (width / 2 + width / 4 * Math.cos(frame * 0.1));
+    }
+
+    /**
+     * @param frame Number of the frame.
+     * @return The row of the center of the bright spot.
+     */
+    int spotY(long frame) {
+        return (int) (height / 2 + height / 4 * Math.sin(frame * 0.1));
+    }
+
+    private void updateResolution() {
+        int scale;
+        if (irMode == IR_CLUSTERING) {
+            // Binning and skipping set by the resolution register
+            switch (resolutionRegister) {
+                case 0b01010000: scale = 4; break;
+                case 0b01100100: scale = 2; break;
+                case 0b01101001: scale = 1; break;
+                default: scale = 8; break;
+            }
+        }
+        else {
+            // Each resolution is a multiple of 40x30 pixels, 4 fragments each
+            scale = (int) Math.round(Math.sqrt((maxFragNo + 1) / 4.0));
+        }
+        this.width = 40 * scale;
+        this.height = 30 * scale;
+    }
+
+    private byte[] newSubcommandReply(int ack, int subcmd) {
+        byte[] reply = new byte[SUBCOMMAND_REPLY_SIZE];
+        reply[0] = 0x21;
+        reply[1] = (byte) timer++;
+        reply[13] = (byte) ack;
+        reply[14] = (byte) subcmd;
+        return reply;
+    }
+
+    private byte[] newIRReport() {
+        byte[] report = new byte[IR_REPORT_SIZE];
+        report[0] = 0x31;
+        report[1] = (byte) timer++;
+        return report;
+    }
+
+    /**
+     * @return The width of the streamed images [pixels].
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the streamed images [pixels].
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of complete frames sent.
+     */
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * @return The number of fragments sent, including repeats and retransmissions.
+     */
+    public long getFragmentsSent() {
+        return fragmentsSent;
+    }
+
+    /**
+     * @return The number of empty IR reports sent while waiting for an ACK.
+     */
+    public long getEmptyReportsSent() {
+        return emptyReportsSent;
+    }
+
+    /**
+     * @return The number of fragments skipped by the injected loss.
+     */
+    public long getLostFragments() {
+        return lostFragments;
+    }
+
+    /**
+     * @return The number of fragments sent twice by the injected repeats.
+     */
+    public long getRepeatedFragments() {
+        return repeatedFragments;
+    }
+
+    /**
+     * @return The number of missed fragment requests received.
+     */
+    public long getRetransmitRequests() {
+        return retransmitRequests;
+    }
+
+    /**
+     * @return The number of fragments acknowledged.
+     */
+    public long getAcks() {
+        return acks;
+    }
+
+    /**
+     * @return The average time between sending a fragment and receiving its ACK [ms].
+     */
+    public double getMeanAckLatency() {
+        long n = acks;
+        return n > 0 ? totalAckLatency / n : 0;
+    }
+
+    /**
+     * @return The longest time between sending a fragment and receiving its ACK [ms].
+     */
+    public double getMaxAckLatency() {
+        return maxAckLatency;
+    }
+}
@@ -0,0 +1,211 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import com.georobotix.impl.sensor.helpers.RingStatistics;
+
+/**
+ * Fragment-level statistics of the IR stream, telling whether a slow stream comes from the radio link, the ACK
+ * loop or the encoder.
+ * <p>
+ * The reading thread reports every fragment, duplicate, missed-fragment request and empty report as it handles
+ * them, and each completed frame. Counters cover the whole session, while the distributions of the fragments per
+ * frame, frame assembly time and frame interval are computed on the latest {@link #CAPACITY} frames. A frame is
+ * assembled from its first fragment report to the report completing it. Recording is allocation-free and only
+ * done by the reading thread, statistics can be read from any thread.
+ */
+public class StreamTelemetry implements StreamTelemetryMBean {
+    public static final int CAPACITY = 128;
+
+    private final RingStatistics fragmentsPerFrame = new RingStatistics(CAPACITY);
+    private final RingStatistics assemblyTimes = new RingStatistics(CAPACITY);
+    private final RingStatistics frameIntervals = new RingStatistics(CAPACITY);
+
+    // Counters, written by the reading thread only
+    private volatile long fragments;
+    private volatile long retransmitRequests;
+    private volatile long duplicateFragments;
+    private volatile long emptyReports;
+    private volatile double noiseLevel = Double.NaN;
+    private volatile double averageIntensity = Double.NaN;
+
+    // Frame being assembled
+    private int frameFragments;
+    private long frameStartNanos;
+    private long lastFrameNanos = Long.MIN_VALUE;
+
+    /**
+     * Accounts for a fragment whose data was kept.
+     */
+    void fragmentReceived() {
+        countReport();
+        fragments++;
+    }
+
+    /**
+     * Accounts for a fragment received again after it was already kept.
+     */
+    void duplicateReceived() {
+        countReport();
+        duplicateFragments++;
+    }
+
+    /**
+     * Accounts for a request to send a missed fragment again.
+     */
+    void retransmitRequested() {
+        retransmitRequests++;
+    }
+
+    /**
+     * Accounts for an IR report carrying no fragment.
+     */
+    void emptyReportReceived() {
+        emptyReports++;
+    }
+
+    /**
+     * Accounts for a completed frame, after the report of its last fragment was counted.
+     *
+     * @param noiseLevel Noise level reported with the last fragment.
+     * @param averageIntensity Average intensity of the frame reported with the last fragment [%].
+     */
+    void frameCompleted(double noiseLevel, double averageIntensity) {
+        long now = System.nanoTime();
+        fragmentsPerFrame.record(frameFragments);
+        assemblyTimes.record(now - frameStartNanos);
+        if (lastFrameNanos != Long.MIN_VALUE)
+            frameIntervals.record(now - lastFrameNanos);
+        lastFrameNanos = now;
+        frameFragments = 0;
+
+        this.noiseLevel = noiseLevel;
+        this.averageIntensity = averageIntensity;
+    }
+
+    /**
+     * Drops the frame being assembled, for instance when the stream is restarted.
+     */
+    void frameAborted() {
+        frameFragments = 0;
+    }
+
+    private void countReport() {
+        if (frameFragments == 0)
+            frameStartNanos = System.nanoTime();
+        frameFragments++;
+    }
+
+    /**
+     * @return The number of frames completed.
+     */
+    @Override
+    public long getFrames() {
+        return fragmentsPerFrame.getCount();
+    }
+
+    /**
+     * @return The number of fragments kept, including those received after a missed-fragment request.
+     */
+    @Override
+    public long getFragments() {
+        return fragments;
+    }
+
+    /**
+     * @return The number of missed-fragment requests sent.
+     */
+    @Override
+    public long getRetransmitRequests() {
+        return retransmitRequests;
+    }
+
+    /**
+     * @return The number of fragments received again after they were kept.
+     */
+    @Override
+    public long getDuplicateFragments() {
+        return duplicateFragments;
+    }
+
+    /**
+     * @return The number of IR reports received without a fragment.
+     */
+    @Override
+    public long getEmptyReports() {
+        return emptyReports;
+    }
+
+    /**
+     * @return The number of frames completed per second over the latest frames [Hz], or NaN before the second frame.
+     */
+    @Override
+    public double getFrameRate() {
+        return 1e9 / frameIntervals.getAverage();
+    }
+
+    /**
+     * @return The average number of fragment reports, duplicates included, needed per frame.
+     */
+    @Override
+    public double getMeanFragmentsPerFrame() {
+        return fragmentsPerFrame.getAverage();
+    }
+
+    /**
+     * @return The 99th percentile of the number of fragment reports, duplicates included, needed per frame.
+     */
+    @Override
+    public double getP99FragmentsPerFrame() {
+        return fragmentsPerFrame.getPercentile(99);
+    }
+
+    /**
+     * @return The average time from the first fragment report of a frame to its completion [s].
+     */
+    @Override
+    public double getMeanAssemblyTime() {
+        return assemblyTimes.getAverage() / 1e9;
+    }
+
+    /**
+     * @return The 99th percentile of the time from the first fragment report of a frame to its completion [s].
+     */
+    @Override
+    public double getP99AssemblyTime() {
+        return assemblyTimes.getPercentile(99) / 1e9;
+    }
+
+    /**
+     * @return The longest time from the first fragment report of a frame to its completion [s].
+     */
+    @Override
+    public double getMaxAssemblyTime() {
+        return assemblyTimes.getMax() / 1e9;
+    }
+
+    /**
+     * @return The noise level reported with the latest frame, or NaN before the first frame.
+     */
+    @Override
+    public double getNoiseLevel() {
+        return noiseLevel;
+    }
+
+    /**
+     * @return The average intensity of the latest frame [%], or NaN before the first frame.
+     */
+    @Override
+    public double getAverageIntensity() {
+        return averageIntensity;
+    }
+}
@@ -0,0 +1,43 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+/**
+ * JMX view of the {@link StreamTelemetry} of a JoyCon IR stream.
+ */
+public interface StreamTelemetryMBean {
+    long getFrames();
+
+    long getFragments();
+
+    long getRetransmitRequests();
+
+    long getDuplicateFragments();
+
+    long getEmptyReports();
+
+    double getFrameRate();
+
+    double getMeanFragmentsPerFrame();
+
+    double getP99FragmentsPerFrame();
+
+    double getMeanAssemblyTime();
+
+    double getP99AssemblyTime();
+
+    double getMaxAssemblyTime();
+
+    double getNoiseLevel();
+
+    double getAverageIntensity();
+}
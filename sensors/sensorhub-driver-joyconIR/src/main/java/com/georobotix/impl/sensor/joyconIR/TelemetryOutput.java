@@ -0,0 +1,168 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2020-2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import com.georobotix.impl.sensor.helpers.PeriodicReportOutput;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import net.opengis.swe.v20.DataEncoding;
+import net.opengis.swe.v20.DataRecord;
+import org.sensorhub.api.data.DataEvent;
+import org.vast.swe.SWEHelper;
+
+/**
+ * Companion output periodically reporting the {@link StreamTelemetry} of the IR stream.
+ * <p>
+ * The frame rate is computed over the last report period, the other distributions over the latest frames.
+ * Counters are totals since the stream started.
+ */
+public class TelemetryOutput extends PeriodicReportOutput<JoyConImageSensor> {
+    static final String SENSOR_OUTPUT_NAME = "joyconIRTelemetry";
+    static final String SENSOR_OUTPUT_LABEL = "IR Stream Telemetry";
+    static final String SENSOR_OUTPUT_DESCRIPTION = "Fragment-level statistics of the IR stream of the JoyCon";
+
+    private final StreamTelemetry telemetry;
+
+    private DataRecord dataRecord;
+    private DataEncoding dataEncoding;
+
+    // Frame count of the previous report, used to compute the rate
+    private long lastFrames;
+
+    /**
+     * Creates a new output for the sensor driver.
+     *
+     * @param parentSensor Sensor driver providing this output.
+     * @param telemetry Statistics recorded by the reading thread.
+     */
+    TelemetryOutput(JoyConImageSensor parentSensor, StreamTelemetry telemetry) {
+        super(SENSOR_OUTPUT_NAME, parentSensor);
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Initializes the data structure for the output, defining the fields, their ordering, and data types.
+     */
+    void doInit() {
+        SWEHelper sweFactory = new SWEHelper();
+
+        dataRecord = sweFactory.createRecord()
+                .name(SENSOR_OUTPUT_NAME)
+                .label(SENSOR_OUTPUT_LABEL)
+                .description(SENSOR_OUTPUT_DESCRIPTION)
+                .addField("sampleTime", sweFactory.createTime()
+                        .asSamplingTimeIsoUTC()
+                        .label("Report Time"))
+                .addField("frameRate", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("FrameRate"))
+                        .label("Frame Rate")
+                        .description("Frames completed per second since the previous report.")
+                        .uomCode("Hz"))
+                .addField("frames", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("Frames"))
+                        .label("Frames")
+                        .description("Total number of frames completed."))
+                .addField("fragments", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("Fragments"))
+                        .label("Fragments")
+                        .description("Total number of fragments kept, retransmitted ones included."))
+                .addField("meanFragmentsPerFrame", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("MeanFragmentsPerFrame"))
+                        .label("Mean Fragments per Frame")
+                        .description("Average number of fragment reports, duplicates included, needed per frame.")
+                        .uomCode("1"))
+                .addField("p99FragmentsPerFrame", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("FragmentsPerFrameP99"))
+                        .label("99th Percentile Fragments per Frame")
+                        .uomCode("1"))
+                .addField("retransmitRequests", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("RetransmitRequests"))
+                        .label("Retransmit Requests")
+                        .description("Total number of missed-fragment requests sent."))
+                .addField("duplicateFragments", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("DuplicateFragments"))
+                        .label("Duplicate Fragments")
+                        .description("Total number of fragments received again after they were kept."))
+                .addField("emptyReports", sweFactory.createCount()
+                        .definition(sweFactory.getPropertyUri("EmptyReports"))
+                        .label("Empty Reports")
+                        .description("Total number of IR reports received without a fragment."))
+                .addField("meanAssemblyTime", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("MeanFrameAssemblyTime"))
+                        .label("Mean Assembly Time")
+                        .description("Average time from the first fragment report of a frame to its completion.")
+                        .uomCode("s"))
+                .addField("p99AssemblyTime", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("FrameAssemblyTimeP99"))
+                        .label("99th Percentile Assembly Time")
+                        .uomCode("s"))
+                .addField("maxAssemblyTime", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("MaxFrameAssemblyTime"))
+                        .label("Max Assembly Time")
+                        .uomCode("s"))
+                .addField("noiseLevel", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("NoiseLevel"))
+                        .label("Noise Level")
+                        .description("Noise level reported by the camera with the latest frame.")
+                        .uomCode("1"))
+                .addField("averageIntensity", sweFactory.createQuantity()
+                        .definition(sweFactory.getPropertyUri("AverageIntensity"))
+                        .label("Average Intensity")
+                        .description("Average intensity of the latest frame reported by the camera.")
+                        .uomCode("%"))
+                .build();
+
+        dataEncoding = sweFactory.newTextEncoding(",", "\n");
+    }
+
+    @Override
+    public DataComponent getRecordDescription() {
+        return dataRecord;
+    }
+
+    @Override
+    public DataEncoding getRecommendedEncoding() {
+        return dataEncoding;
+    }
+
+    @Override
+    protected void resetReport() {
+        lastFrames = telemetry.getFrames();
+    }
+
+    @Override
+    protected void publishReport(long timestamp, double elapsed) {
+        long frames = telemetry.getFrames();
+        double rate = elapsed > 0 ? (frames - lastFrames) / elapsed : Double.NaN;
+        lastFrames = frames;
+
+        DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
+        dataBlock.setDoubleValue(0, timestamp / 1000d);
+        dataBlock.setDoubleValue(1, rate);
+        dataBlock.setLongValue(2, frames);
+        dataBlock.setLongValue(3, telemetry.getFragments());
+        dataBlock.setDoubleValue(4, telemetry.getMeanFragmentsPerFrame());
+        dataBlock.setDoubleValue(5, telemetry.getP99FragmentsPerFrame());
+        dataBlock.setLongValue(6, telemetry.getRetransmitRequests());
+        dataBlock.setLongValue(7, telemetry.getDuplicateFragments());
+        dataBlock.setLongValue(8, telemetry.getEmptyReports());
+        dataBlock.setDoubleValue(9, telemetry.getMeanAssemblyTime());
+        dataBlock.setDoubleValue(10, telemetry.getP99AssemblyTime());
+        dataBlock.setDoubleValue(11, telemetry.getMaxAssemblyTime());
+        dataBlock.setDoubleValue(12, telemetry.getNoiseLevel());
+        dataBlock.setDoubleValue(13, telemetry.getAverageIntensity());
+
+        latestRecord = dataBlock;
+        latestRecordTime = timestamp;
+        eventHandler.publish(new DataEvent(latestRecordTime, TelemetryOutput.this, dataBlock));
+    }
+}
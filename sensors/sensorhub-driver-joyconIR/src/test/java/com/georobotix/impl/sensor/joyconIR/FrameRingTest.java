@@ -0,0 +1,66 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class FrameRingTest {
+    @Test
+    public void framesAreTakenInCaptureOrder() throws InterruptedException {
+        FrameRing ring = new FrameRing(4, 16);
+        for (int k = 0; k < 3; k++) {
+            ring.writeBuffer()[0] = (byte) k;
+            ring.commit(k, 4, 4);
+        }
+
+        for (int k = 0; k < 3; k++) {
+            FrameRing.Frame frame = ring.take(0);
+            assertEquals(k, frame.timestamp);
+            assertEquals(k, frame.pixels[0]);
+            ring.release(frame);
+        }
+        assertNull(ring.take(0));
+        assertEquals(0, ring.getDroppedFrames());
+    }
+
+    @Test
+    public void readerOverwritesOldestFrameWhenEncoderIsBehind() throws InterruptedException {
+        FrameRing ring = new FrameRing(3, 16);
+        FrameRing.Frame encoding = null;
+        for (int k = 0; k < 6; k++) {
+            ring.commit(k, 4, 4);
+            // The encoder takes the first frame and keeps it
+            if (k == 0)
+                encoding = ring.take(0);
+        }
+
+        // 3 buffers: one being encoded, one assembling, only the latest frame is left waiting
+        assertEquals(0, encoding.timestamp);
+        assertEquals(6, ring.getCommittedFrames());
+        assertEquals(4, ring.getDroppedFrames());
+        assertEquals(1, ring.getPendingFrames());
+        assertEquals(5, ring.take(0).timestamp);
+    }
+
+    @Test
+    public void writeBufferChangesOnCommit() {
+        FrameRing ring = new FrameRing(3, 16);
+        byte[] first = ring.writeBuffer();
+        ring.commit(0, 4, 4);
+
+        assertNotSame(first, ring.writeBuffer());
+    }
+}
@@ -0,0 +1,58 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameboyPaletteTest {
+    private static final int[] PALETTE = {15, 56, 15, 48, 8, 48, 139, 172, 15, 155, 188, 15};
+
+    @Test
+    public void matchesInvertThenLookupOfOriginalFilter() {
+        byte[] grey = new byte[256];
+        for (int k = 0; k < 256; k++)
+            grey[k] = (byte) k;
+        byte[] bgr = new byte[256 * 3];
+
+        GameboyPalette.apply(grey, 256, bgr);
+
+        for (int k = 0; k < 256; k++) {
+            int p = originalPaletteIndex(255 - k);
+            assertEquals("B of " + k, PALETTE[p + 2], bgr[k * 3] & 0xFF);
+            assertEquals("G of " + k, PALETTE[p + 1], bgr[k * 3 + 1] & 0xFF);
+            assertEquals("R of " + k, PALETTE[p], bgr[k * 3 + 2] & 0xFF);
+        }
+    }
+
+    @Test
+    public void onlyRequestedPixelsAreWritten() {
+        byte[] bgr = new byte[9];
+        GameboyPalette.apply(new byte[3], 2, bgr);
+
+        assertEquals(0, bgr[6]);
+        assertEquals(0, bgr[8]);
+    }
+
+    // Band selection of the OpenCV lookup table previously built for every frame
+    private static int originalPaletteIndex(int i) {
+        if (i < 32) return 3;
+        else if (i < 64) return 3;
+        else if (i < 96) return 6;
+        else if (i < 124) return 3;
+        else if (i < 160) return 6;
+        else if (i < 224) return 3;
+        else if (i < 240) return 6;
+        else return 9;
+    }
+}
@@ -0,0 +1,77 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JoyConTransportTest {
+    @Test
+    public void crcMatchesBitwiseCrc8() {
+        byte[] buf = new byte[64];
+        for (int k = 0; k < buf.length; k++)
+            buf[k] = (byte) (k * 37 + 11);
+
+        for (int offset = 0; offset < 8; offset++)
+            assertEquals(bitwiseCrc8(buf, offset, 36), JoyConTransport.crc8(buf, offset, 36));
+    }
+
+    @Test
+    public void ackTemplateMatchesPacketBuiltFromScratch() {
+        JoyConTransport.AckTemplate ack = new JoyConTransport.AckTemplate(0);
+        for (int f = 0; f < 256; f++) {
+            byte[] expected = new byte[JoyConTransport.COMMAND_SIZE];
+            expected[0] = (byte) (f & 0xF);
+            expected[9] = 0x03;
+            expected[13] = (byte) f;
+            expected[46] = bitwiseCrc8(expected, 10, 36);
+            expected[47] = (byte) 0xFF;
+
+            assertPacketEquals(expected, ack.prepare((byte) (f & 0xF), f));
+        }
+    }
+
+    @Test
+    public void missedFragmentTemplateMatchesPacketBuiltFromScratch() {
+        JoyConTransport.AckTemplate request = new JoyConTransport.AckTemplate(1);
+        for (int f = 0; f < 256; f++) {
+            byte[] expected = new byte[JoyConTransport.COMMAND_SIZE];
+            expected[0] = 0x05;
+            expected[9] = 0x03;
+            expected[11] = 0x01;
+            expected[12] = (byte) f;
+            expected[46] = bitwiseCrc8(expected, 10, 36);
+            expected[47] = (byte) 0xFF;
+
+            assertPacketEquals(expected, request.prepare((byte) 0x05, f));
+        }
+    }
+
+    private static void assertPacketEquals(byte[] expected, byte[] packet) {
+        assertEquals(expected.length, packet.length);
+        for (int k = 0; k < expected.length; k++)
+            assertEquals("byte " + k, expected[k], packet[k]);
+    }
+
+    // CRC-8 with polynomial 0x07, computed bit by bit
+    private static byte bitwiseCrc8(byte[] buf, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc ^= buf[i] & 0xFF;
+            for (int b = 0; b < 8; b++)
+                crc = (crc & 0x80) != 0 ? (crc << 1) ^ 0x07 : crc << 1;
+            crc &= 0xFF;
+        }
+        return (byte) crc;
+    }
+}
@@ -0,0 +1,87 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResolutionControllerTest {
+    private static IRResolution feed(ResolutionController controller, int frames, int fragments, int retransmits,
+                                     int pendingFrames) {
+        IRResolution resolution = controller.getResolution();
+        for (int k = 0; k < frames; k++)
+            resolution = controller.onFrame(fragments, retransmits, pendingFrames);
+        return resolution;
+    }
+
+    @Test
+    public void stepsDownAfterCongestedWindow() {
+        ResolutionController controller = new ResolutionController(IRResolution.R120, 0.05, 2, 64);
+
+        // A few retransmits stay under the threshold
+        assertEquals(IRResolution.R120, feed(controller, ResolutionController.WINDOW, 64, 2, 0));
+
+        // 10% of the fragments requested again
+        assertEquals(IRResolution.R120, feed(controller, ResolutionController.WINDOW - 1, 64, 7, 0));
+        assertEquals(IRResolution.R60, controller.onFrame(64, 7, 0));
+        assertEquals(1, controller.getStepsDown());
+
+        // Frames waiting for the encoder
+        assertEquals(IRResolution.R30, feed(controller, ResolutionController.WINDOW, 16, 0, 2));
+    }
+
+    @Test
+    public void neverGoesBelowLowestResolution() {
+        ResolutionController controller = new ResolutionController(IRResolution.R60, 0.05, 2, 64);
+        assertEquals(IRResolution.R30, feed(controller, 10 * ResolutionController.WINDOW, 16, 16, 0));
+        assertEquals(1, controller.getStepsDown());
+    }
+
+    @Test
+    public void stepsBackUpAfterRecoveryUpToConfiguredResolution() {
+        ResolutionController controller = new ResolutionController(IRResolution.R120, 0.05, 2, 32);
+        feed(controller, 2 * ResolutionController.WINDOW, 64, 32, 0);
+        assertEquals(IRResolution.R30, controller.getResolution());
+
+        // One step up every 32 healthy frames
+        assertEquals(IRResolution.R30, feed(controller, 31, 4, 0, 0));
+        assertEquals(IRResolution.R60, feed(controller, 1, 4, 0, 0));
+        assertEquals(IRResolution.R120, feed(controller, 32, 16, 0, 0));
+        assertEquals(IRResolution.R120, feed(controller, 256, 64, 0, 0));
+        assertEquals(2, controller.getStepsUp());
+    }
+
+    @Test
+    public void congestionResetsRecovery() {
+        ResolutionController controller = new ResolutionController(IRResolution.R120, 0.05, 2, 32);
+        feed(controller, ResolutionController.WINDOW, 64, 32, 0);
+        assertEquals(IRResolution.R60, controller.getResolution());
+
+        feed(controller, 24, 16, 0, 0);
+        feed(controller, ResolutionController.WINDOW, 16, 0, 3);
+        assertEquals(IRResolution.R30, controller.getResolution());
+        assertEquals(IRResolution.R30, feed(controller, 24, 4, 0, 0));
+        assertEquals(0, controller.getStepsUp());
+    }
+
+    @Test
+    public void setResolutionStartsNewWindow() {
+        ResolutionController controller = new ResolutionController(IRResolution.R240, 0.05, 2, 64);
+        feed(controller, ResolutionController.WINDOW - 1, 256, 128, 0);
+
+        // The failed change is reverted, the frames seen so far no longer count
+        controller.setResolution(IRResolution.R240);
+        assertEquals(IRResolution.R240, feed(controller, ResolutionController.WINDOW - 1, 256, 0, 0));
+        assertEquals(IRResolution.R240, controller.onFrame(256, 0, 0));
+    }
+}
@@ -0,0 +1,226 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedJoyConTest {
+    private static final int[] MAX_FRAG_NO = {0xFF, 0x3F, 0x0F, 0x03};
+    private static final int[] WIDTH = {320, 160, 80, 40};
+    private static final int[] HEIGHT = {240, 120, 60, 30};
+
+    @Test
+    public void answersHandshakeSteps() {
+        SimulatedJoyCon joycon = new SimulatedJoyCon();
+        JoyConTransport transport = new JoyConTransport(joycon);
+        byte[] reply = transport.reply();
+
+        // Step 1: enable the MCU
+        byte[] packet = transport.command();
+        packet[9] = 0x22;
+        packet[10] = 0x01;
+        transport.send(packet, (byte) 0x01);
+        transport.receive(reply, 64);
+        assertEquals(0x80, reply[13] & 0xFF);
+        assertEquals(0x22, reply[14] & 0xFF);
+
+        // Step 2: MCU in standby
+        packet = transport.command();
+        packet[9] = 0x01;
+        transport.send(packet, (byte) 0x11);
+        transport.receive(reply, 64);
+        assertEquals(0x31, reply[0]);
+        assertEquals(0x01, reply[56]);
+
+        configureImageMode(transport, 0x3F);
+        assertEquals(160, joycon.getWidth());
+        assertEquals(120, joycon.getHeight());
+
+        // Step 6: IR mode status
+        packet = transport.command();
+        packet[9] = 0x03;
+        packet[10] = 0x02;
+        transport.send(packet, (byte) 0x11);
+        transport.receive(reply, 64);
+        assertEquals(0x13, reply[49]);
+        assertEquals(0x07, reply[51]);
+    }
+
+    @Test
+    public void streamsEveryResolution() {
+        for (int k = 0; k < MAX_FRAG_NO.length; k++) {
+            SimulatedJoyCon joycon = new SimulatedJoyCon();
+            JoyConTransport transport = new JoyConTransport(joycon);
+            configureImageMode(transport, MAX_FRAG_NO[k]);
+
+            List<byte[]> frames = stream(transport, MAX_FRAG_NO[k], 2);
+            assertEquals(WIDTH[k], joycon.getWidth());
+            assertEquals(HEIGHT[k], joycon.getHeight());
+            assertFrame(joycon, frames.get(0), 0);
+            assertFrame(joycon, frames.get(1), 1);
+            assertEquals(2 * (MAX_FRAG_NO[k] + 1), joycon.getAcks());
+        }
+    }
+
+    @Test
+    public void recoversLostAndRepeatedFragments() {
+        SimulatedJoyCon joycon = new SimulatedJoyCon(0.05, 0.05, 0, 42);
+        JoyConTransport transport = new JoyConTransport(joycon);
+        configureImageMode(transport, 0x3F);
+
+        List<byte[]> frames = stream(transport, 0x3F, 5);
+        for (int f = 0; f < frames.size(); f++)
+            assertFrame(joycon, frames.get(f), f);
+
+        assertTrue(joycon.getLostFragments() > 0);
+        assertEquals(joycon.getLostFragments(), joycon.getRetransmitRequests());
+        assertTrue(joycon.getRepeatedFragments() > 0);
+    }
+
+    @Test
+    public void replaysRecordedCapture() throws IOException {
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        HidCaptureRecorder recorder = new HidCaptureRecorder(new SimulatedJoyCon(), capture);
+        JoyConTransport transport = new JoyConTransport(recorder);
+        configureImageMode(transport, 0x03);
+        List<byte[]> recorded = stream(transport, 0x03, 3);
+        recorder.close();
+
+        HidCaptureReplay replay = HidCaptureReplay.load(new ByteArrayInputStream(capture.toByteArray()), false);
+        List<byte[]> replayed = stream(new JoyConTransport(replay), 0x03, 3);
+
+        assertEquals(recorded.size(), replayed.size());
+        for (int f = 0; f < recorded.size(); f++)
+            assertArrayEquals(recorded.get(f), replayed.get(f));
+        assertEquals(replay.getInputReports(), replay.getPosition());
+        assertTrue(replay.getOutputReports() > 0);
+    }
+
+    @Test
+    public void reportsSpotAsClusterInClusteringMode() {
+        SimulatedJoyCon joycon = new SimulatedJoyCon();
+        JoyConTransport transport = new JoyConTransport(joycon);
+        configureMode(transport, 0x06, 0x00);
+
+        // Step 7: resolution register set to 160x120
+        byte[] packet = transport.command();
+        packet[9] = 0x21;
+        packet[10] = 0x23;
+        packet[11] = 0x04;
+        packet[12] = 0x01;
+        packet[14] = 0x2E;
+        packet[15] = 0b01010000;
+        transport.send(packet, (byte) 0x01);
+        transport.receive(transport.reply(), 64);
+        assertEquals(160, joycon.getWidth());
+
+        byte[] reply = transport.reply();
+        transport.sendAck(0);
+        for (int frame = 0; frame < 3; frame++) {
+            transport.receive(reply, 64);
+            assertEquals(0x03, reply[49]);
+            transport.sendAck(0);
+
+            int offset = SimulatedJoyCon.FRAGMENT_OFFSET;
+            assertTrue(readU16(reply, offset + 2) > 0);
+            assertEquals(joycon.spotX(frame), readU16(reply, offset + 4));
+            assertEquals(joycon.spotY(frame), readU16(reply, offset + 6));
+            assertEquals(0, readU16(reply, offset + ClusterOutput.CLUSTER_SIZE + 2));
+        }
+        assertEquals(3, joycon.getAcks());
+    }
+
+    private static int readU16(byte[] buf, int index) {
+        return (buf[index] & 0xFF) | ((buf[index + 1] & 0xFF) << 8);
+    }
+
+    private static void configureImageMode(JoyConTransport transport, int maxFragNo) {
+        configureMode(transport, 0x07, maxFragNo);
+    }
+
+    // Steps 3 and 5: MCU in IR mode, image transfer with the given number of fragments
+    private static void configureMode(JoyConTransport transport, int irMode, int maxFragNo) {
+        byte[] packet = transport.command();
+        packet[9] = 0x21;
+        packet[10] = 0x21;
+        packet[12] = 0x05;
+        transport.send(packet, (byte) 0x01);
+        transport.receive(transport.reply(), 64);
+
+        packet = transport.command();
+        packet[9] = 0x21;
+        packet[10] = 0x23;
+        packet[11] = 0x01;
+        packet[12] = (byte) irMode;
+        packet[13] = (byte) maxFragNo;
+        transport.send(packet, (byte) 0x01);
+        transport.receive(transport.reply(), 64);
+        assertEquals(0x0B, transport.reply()[15]);
+    }
+
+    // Minimal version of the fragment state machine of the driver
+    private static List<byte[]> stream(JoyConTransport transport, int maxFragNo, int numFrames) {
+        List<byte[]> frames = new ArrayList<>();
+        byte[] image = new byte[(maxFragNo + 1) * SimulatedJoyCon.FRAGMENT_SIZE];
+        byte[] reply = transport.reply();
+        int previousFragNo = -1;
+
+        transport.sendAck(0);
+        while (frames.size() < numFrames) {
+            int res = transport.receive(reply, 64);
+            if (res == 0)
+                break;
+            if (reply[0] != 0x31)
+                continue;
+
+            if (reply[49] != 0x03) {
+                transport.sendAck(Math.max(previousFragNo, 0));
+                continue;
+            }
+
+            int fragNo = reply[52] & 0xFF;
+            int expected = (previousFragNo + 1) % (maxFragNo + 1);
+            if (fragNo == expected) {
+                transport.sendAck(fragNo);
+                System.arraycopy(reply, SimulatedJoyCon.FRAGMENT_OFFSET, image, fragNo * SimulatedJoyCon.FRAGMENT_SIZE,
+                        SimulatedJoyCon.FRAGMENT_SIZE);
+                previousFragNo = fragNo;
+                if (fragNo == maxFragNo)
+                    frames.add(Arrays.copyOf(image, image.length));
+            }
+            else if (fragNo == previousFragNo) {
+                transport.sendAck(fragNo);
+            }
+            else {
+                transport.sendMissedFragmentRequest(expected);
+            }
+        }
+        return frames;
+    }
+
+    private static void assertFrame(SimulatedJoyCon joycon, byte[] image, int frame) {
+        int width = joycon.getWidth();
+        for (int i = 0; i < image.length; i++)
+            assertEquals("pixel " + i + " of frame " + frame, joycon.pixel(i % width, i / width, frame), image[i]);
+    }
+}
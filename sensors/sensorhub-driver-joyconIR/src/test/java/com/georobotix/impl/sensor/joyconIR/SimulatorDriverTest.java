@@ -0,0 +1,159 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import net.opengis.swe.v20.DataBlock;
+import org.junit.After;
+import org.junit.Test;
+import org.vast.data.DataBlockMixed;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the whole driver against the simulated JoyCon: handshake, fragment reassembly with lost and repeated
+ * fragments, and publishing on the outputs.
+ */
+public class SimulatorDriverTest {
+    private static final long TIMEOUT = 20000;
+    private static final int NUM_FRAMES = 20;
+    private static final double MAX_ACK_LATENCY = 50; // [ms]
+
+    JoyConImageSensor sensor;
+
+    @After
+    public void cleanup() throws Exception {
+        if (null != sensor) {
+            sensor.stop();
+        }
+    }
+
+    @Test
+    public void publishesSimulatedFramesDespiteLosses() throws Exception {
+        Config config = newConfig();
+        config.outputMode = JoyConImageOutput.OutputMode.RAW_GRAY;
+        config.simulatedLossRate = 0.05;
+        config.simulatedRepeatRate = 0.05;
+        start(config);
+
+        SimulatedJoyCon joycon = (SimulatedJoyCon) sensor.joycon;
+        JoyConImageOutput output = sensor.output;
+        int width = IRResolution.R120.width;
+        int height = IRResolution.R120.height;
+
+        long startNanos = System.nanoTime();
+        waitFor(() -> sensor.telemetry.getFrames() >= NUM_FRAMES);
+        double frameRate = sensor.telemetry.getFrames() / ((System.nanoTime() - startNanos) / 1e9);
+
+        // The latest frame matches one of the frames sent by the simulator, pixel for pixel
+        DataBlock record = output.getLatestRecord();
+        assertNotNull(record);
+        assertEquals(width, record.getIntValue(1));
+        assertEquals(height, record.getIntValue(2));
+        byte[] pixels = (byte[]) ((DataBlockMixed) record).getUnderlyingObject()[3].getUnderlyingObject();
+        assertEquals(width * height, pixels.length);
+        assertTrue("Published frame differs from the simulated frames", matchesFrame(joycon, pixels, width));
+
+        assertTrue(joycon.getLostFragments() > 0);
+        assertTrue(joycon.getRepeatedFragments() > 0);
+        assertTrue(sensor.telemetry.getRetransmitRequests() > 0);
+        assertTrue(sensor.telemetry.getDuplicateFragments() > 0);
+
+        assertTrue("Frame rate " + frameRate + " Hz", frameRate >= 1);
+
+        // Without simulated latency, fragments are acknowledged as soon as the reader gets them
+        assertTrue(joycon.getAcks() > 0);
+        double ackLatency = joycon.getMeanAckLatency();
+        assertTrue("Mean ACK latency " + ackLatency + " ms", ackLatency < MAX_ACK_LATENCY);
+    }
+
+    @Test
+    public void publishesSimulatedClusters() throws Exception {
+        Config config = newConfig();
+        config.irMode = JoyConImageSensor.IRMode.CLUSTERING;
+        start(config);
+
+        SimulatedJoyCon joycon = (SimulatedJoyCon) sensor.joycon;
+        ClusterOutput output = sensor.clusterOutput;
+        waitFor(() -> output.getPublishStatistics().getPublishCount() >= NUM_FRAMES);
+
+        // The bright spot of the simulator is the only cluster
+        DataBlock record = output.getLatestRecord();
+        assertEquals(1, record.getIntValue(1));
+        int centroidX = record.getIntValue(4);
+        int centroidY = record.getIntValue(5);
+        boolean found = false;
+        for (long f = 0; f <= joycon.getFramesSent() && !found; f++)
+            found = joycon.spotX(f) == centroidX && joycon.spotY(f) == centroidY;
+        assertTrue("Published cluster is not the simulated spot", found);
+    }
+
+    @Test
+    public void lowersResolutionOnLossyLink() throws Exception {
+        Config config = newConfig();
+        config.outputMode = JoyConImageOutput.OutputMode.RAW_GRAY;
+        config.adaptiveResolution = true;
+        config.simulatedLossRate = 0.2;
+        start(config);
+
+        // The loss rate stays above the threshold, so the resolution may keep stepping down
+        waitFor(() -> sensor.getResolution() != IRResolution.R120);
+        assertTrue(sensor.getResolution().ordinal() > IRResolution.R120.ordinal());
+
+        // Frames keep coming at the lower resolution, scaled up to the size of the output
+        long frames = sensor.telemetry.getFrames();
+        waitFor(() -> sensor.telemetry.getFrames() >= frames + NUM_FRAMES);
+        DataBlock record = sensor.output.getLatestRecord();
+        assertEquals(IRResolution.R120.width, record.getIntValue(1));
+        assertEquals(IRResolution.R120.height, record.getIntValue(2));
+    }
+
+    private static Config newConfig() {
+        Config config = new Config();
+        config.serialNumber = "123456789";
+        config.name = "Simulated JoyCon";
+        config.device = HidEndpoint.Source.SIMULATOR;
+        config.irResolution = IRResolution.R120;
+        return config;
+    }
+
+    private void start(Config config) throws Exception {
+        sensor = new JoyConImageSensor();
+        sensor.init(config);
+        sensor.start();
+        assertTrue(sensor.isConnected());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Timed out waiting for the simulated stream");
+            Thread.sleep(10);
+        }
+    }
+
+    private static boolean matchesFrame(SimulatedJoyCon joycon, byte[] pixels, int width) {
+        for (long f = 0; f <= joycon.getFramesSent(); f++) {
+            boolean match = true;
+            for (int i = 0; i < pixels.length && match; i++)
+                match = pixels[i] == joycon.pixel(i % width, i / width, f);
+            if (match)
+                return true;
+        }
+        return false;
+    }
+}
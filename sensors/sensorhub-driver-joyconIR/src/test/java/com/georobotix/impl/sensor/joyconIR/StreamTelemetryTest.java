@@ -0,0 +1,101 @@
+/***************************** BEGIN LICENSE BLOCK ***************************
+ The contents of this file are subject to the Mozilla Public License, v. 2.0.
+ If a copy of the MPL was not distributed with this file, You can obtain one
+ at http://mozilla.org/MPL/2.0/.
+
+ Software distributed under the License is distributed on an "AS IS" basis,
+ WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ for the specific language governing rights and limitations under the License.
+
+ Copyright (C) 2025 Botts Innovative Research, Inc. All Rights Reserved.
+ ******************************* END LICENSE BLOCK ***************************/
+package com.georobotix.impl.sensor.joyconIR;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamTelemetryTest {
+    @Test
+    public void countsFragmentsPerFrame() {
+        StreamTelemetry telemetry = new StreamTelemetry();
+
+        // A clean frame of 4 fragments
+        for (int k = 0; k < 4; k++)
+            telemetry.fragmentReceived();
+        telemetry.frameCompleted(0.5, 40);
+
+        // A frame with a missed fragment requested again, a duplicate and an empty report
+        telemetry.fragmentReceived();
+        telemetry.retransmitRequested();
+        telemetry.fragmentReceived();
+        telemetry.fragmentReceived();
+        telemetry.duplicateReceived();
+        telemetry.emptyReportReceived();
+        telemetry.fragmentReceived();
+        telemetry.fragmentReceived();
+        telemetry.frameCompleted(0.25, 60);
+
+        assertEquals(2, telemetry.getFrames());
+        assertEquals(9, telemetry.getFragments());
+        assertEquals(1, telemetry.getRetransmitRequests());
+        assertEquals(1, telemetry.getDuplicateFragments());
+        assertEquals(1, telemetry.getEmptyReports());
+        assertEquals(5, telemetry.getMeanFragmentsPerFrame(), 0);
+        assertEquals(6, telemetry.getP99FragmentsPerFrame(), 0);
+        assertEquals(0.25, telemetry.getNoiseLevel(), 0);
+        assertEquals(60, telemetry.getAverageIntensity(), 0);
+        assertTrue(telemetry.getMaxAssemblyTime() >= telemetry.getMeanAssemblyTime());
+    }
+
+    @Test
+    public void abortedFrameIsNotCounted() {
+        StreamTelemetry telemetry = new StreamTelemetry();
+        telemetry.fragmentReceived();
+        telemetry.fragmentReceived();
+        telemetry.frameAborted();
+
+        telemetry.fragmentReceived();
+        telemetry.frameCompleted(0, 0);
+        assertEquals(1, telemetry.getFrames());
+        assertEquals(1, telemetry.getMeanFragmentsPerFrame(), 0);
+    }
+
+    @Test
+    public void frameRateNeedsTwoFrames() throws InterruptedException {
+        StreamTelemetry telemetry = new StreamTelemetry();
+        assertTrue(Double.isNaN(telemetry.getFrameRate()));
+        assertTrue(Double.isNaN(telemetry.getNoiseLevel()));
+
+        telemetry.fragmentReceived();
+        telemetry.frameCompleted(0, 0);
+        assertTrue(Double.isNaN(telemetry.getFrameRate()));
+
+        Thread.sleep(20);
+        telemetry.fragmentReceived();
+        telemetry.frameCompleted(0, 0);
+        double rate = telemetry.getFrameRate();
+        assertTrue(rate > 0 && rate <= 50);
+    }
+
+    @Test
+    public void isReadableThroughJmx() throws Exception {
+        StreamTelemetry telemetry = new StreamTelemetry();
+        telemetry.emptyReportReceived();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.georobotix.impl.sensor.joyconIR:type=StreamTelemetry,id=test");
+        server.registerMBean(telemetry, name);
+        try {
+            assertEquals(1L, server.getAttribute(name, "EmptyReports"));
+            assertEquals(0L, server.getAttribute(name, "Frames"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
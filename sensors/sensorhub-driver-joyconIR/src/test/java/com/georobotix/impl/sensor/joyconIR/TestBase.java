@@ -27,6 +27,7 @@ public class TestBase {
         config.serialNumber = "123456789";
         config.name = "Sensor Template";
         config.description = "Description of the sensor";
+        config.device = HidEndpoint.Source.SIMULATOR;
         sensor = new JoyConImageSensor();
         sensor.init(config);
         sensor.start();
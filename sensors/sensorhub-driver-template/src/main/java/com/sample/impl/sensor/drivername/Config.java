@@ -11,6 +11,7 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.sample.impl.sensor.drivername;
 
+import com.georobotix.impl.sensor.helpers.PeriodicAcquisition;
 import org.sensorhub.api.config.DisplayInfo;
 import org.sensorhub.api.sensor.SensorConfig;
 
@@ -34,4 +35,46 @@ public class Config extends SensorConfig {
     @DisplayInfo.Required
     @DisplayInfo(desc = "Serial number or unique identifier")
     public String serialNumber = "sensor001";
+
+    /**
+     * Time between two samples.
+     */
+    @DisplayInfo(label = "Sampling Period", desc = "Time between two samples in milliseconds.")
+    public int samplingPeriod = 100;
+
+    /**
+     * What to do when producing a sample takes longer than the sampling period.
+     */
+    @DisplayInfo(label = "Overrun Policy", desc = "SKIP drops the samples whose time has passed, "
+            + "CATCH_UP produces them late, back to back.")
+    public PeriodicAcquisition.OverrunPolicy overrunPolicy = PeriodicAcquisition.OverrunPolicy.SKIP;
+
+    /**
+     * Whether the acquisition loop runs on a virtual thread.
+     */
+    @DisplayInfo(label = "Use Virtual Threads", desc = "Run the acquisition loop on a virtual thread when the runtime "
+            + "supports them (Java 21 or later), otherwise on a platform thread.")
+    public boolean useVirtualThreads = false;
+
+    /**
+     * Time between two reports of the health outputs.
+     */
+    @DisplayInfo(label = "Health Report Period", desc = "Time between two reports of the publish rate, latency "
+            + "and drop counters of each output, and of the deadline misses and jitter of the acquisition loop, "
+            + "in seconds. 0 disables the health outputs.")
+    public int healthReportPeriod = 0;
+
+    /**
+     * Maximum number of records published together.
+     */
+    @DisplayInfo(label = "Batch Size", desc = "Maximum number of records published in a single event. "
+            + "1 publishes every record on its own.")
+    public int batchSize = 1;
+
+    /**
+     * Maximum time a record waits for its batch to be published.
+     */
+    @DisplayInfo(label = "Batch Max Delay", desc = "Time after which a batch is published even if not full, "
+            + "in milliseconds.")
+    public int batchMaxDelay = 100;
 }
@@ -11,6 +11,9 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.sample.impl.sensor.drivername;
 
+import com.georobotix.impl.sensor.helpers.MonitoredOutput;
+import com.georobotix.impl.sensor.helpers.PublishStatistics;
+import com.georobotix.impl.sensor.helpers.RecordBatcher;
 import net.opengis.swe.v20.DataBlock;
 import net.opengis.swe.v20.DataComponent;
 import net.opengis.swe.v20.DataEncoding;
@@ -19,24 +22,23 @@ import org.sensorhub.api.data.DataEvent;
 import org.sensorhub.impl.sensor.AbstractSensorOutput;
 import org.vast.swe.helper.GeoPosHelper;
 
-import java.util.ArrayList;
-
 /**
  * Output specification and provider for {@link Sensor}.
+ * <p>
+ * When a batch size is configured, records are published several at a time in a single {@link DataEvent},
+ * which subscribers and storage still see as individual observations.
  */
-public class Output extends AbstractSensorOutput<Sensor> {
+public class Output extends AbstractSensorOutput<Sensor> implements MonitoredOutput {
     static final String SENSOR_OUTPUT_NAME = "SensorOutput";
     static final String SENSOR_OUTPUT_LABEL = "Sensor Output";
     static final String SENSOR_OUTPUT_DESCRIPTION = "Sensor output data";
 
-    private static final int MAX_NUM_TIMING_SAMPLES = 10;
-
-    private final ArrayList<Double> intervalHistogram = new ArrayList<>(MAX_NUM_TIMING_SAMPLES);
-    private final Object histogramLock = new Object();
+    private final PublishStatistics publishStats = new PublishStatistics();
     private final Object processingLock = new Object();
 
     private DataRecord dataRecord;
     private DataEncoding dataEncoding;
+    private RecordBatcher<DataBlock> batcher;
 
     /**
      * Creates a new output for the sensor driver.
@@ -68,6 +70,11 @@ public class Output extends AbstractSensorOutput<Sensor> {
                 .build();
 
         dataEncoding = sweFactory.newTextEncoding(",", "\n");
+
+        Config config = parentSensor.getConfiguration();
+        if (config.batchSize > 1)
+            batcher = new RecordBatcher<>(config.batchSize, config.batchMaxDelay, DataBlock[]::new,
+                    this::publishBatch);
     }
 
     @Override
@@ -82,13 +89,12 @@ public class Output extends AbstractSensorOutput<Sensor> {
 
     @Override
     public double getAverageSamplingPeriod() {
-        synchronized (histogramLock) {
-            double sum = 0;
-            for (double sample : intervalHistogram)
-                sum += sample;
+        return publishStats.getAverageSamplingPeriod();
+    }
 
-            return sum / intervalHistogram.size();
-        }
+    @Override
+    public PublishStatistics getPublishStatistics() {
+        return publishStats;
     }
 
     /**
@@ -96,10 +102,9 @@ public class Output extends AbstractSensorOutput<Sensor> {
      */
     public void setData(long timestamp, String data) {
         synchronized (processingLock) {
+            long startNanos = System.nanoTime();
             DataBlock dataBlock = latestRecord == null ? dataRecord.createDataBlock() : latestRecord.renew();
 
-            updateIntervalHistogram();
-
             // Populate the data block
             dataBlock.setDoubleValue(0, timestamp / 1000d);
             dataBlock.setStringValue(1, data);
@@ -107,24 +112,42 @@ public class Output extends AbstractSensorOutput<Sensor> {
             // Publish the data block
             latestRecord = dataBlock;
             latestRecordTime = timestamp;
-            eventHandler.publish(new DataEvent(latestRecordTime, Output.this, dataBlock));
+            if (batcher != null) {
+                batcher.add(dataBlock, startNanos);
+            }
+            else {
+                eventHandler.publish(new DataEvent(latestRecordTime, Output.this, dataBlock));
+                publishStats.recordPublish(startNanos);
+            }
         }
     }
 
     /**
-     * Updates the interval histogram with the time between the latest record and the current time
-     * for calculating the average sampling period.
+     * Starts publishing partial batches once their max delay expires, even if the source stalls.
      */
-    private void updateIntervalHistogram() {
-        synchronized (histogramLock) {
-            if (latestRecord != null && latestRecordTime != Long.MIN_VALUE) {
-                long interval = System.currentTimeMillis() - latestRecordTime;
-                intervalHistogram.add(interval / 1000d);
-
-                if (intervalHistogram.size() > MAX_NUM_TIMING_SAMPLES) {
-                    intervalHistogram.remove(0);
-                }
-            }
+    void start() {
+        if (batcher != null)
+            batcher.startDeadlineCheck(parentSensor.getUniqueIdentifier() + "/" + getName() + "/batcher",
+                    processingLock);
+    }
+
+    /**
+     * Stops the batch deadline check and publishes the records of the batch in progress, if any.
+     */
+    void stop() {
+        if (batcher == null)
+            return;
+
+        batcher.stopDeadlineCheck();
+        synchronized (processingLock) {
+            batcher.flush();
         }
     }
+
+    private void publishBatch(DataBlock[] records, long[] startNanos) {
+        // The event bus is crossed once, each record still becomes its own observation
+        eventHandler.publish(new DataEvent(latestRecordTime, Output.this, records));
+        for (long start : startNanos)
+            publishStats.recordPublish(start);
+    }
 }
@@ -11,6 +11,8 @@
  ******************************* END LICENSE BLOCK ***************************/
 package com.sample.impl.sensor.drivername;
 
+import com.georobotix.impl.sensor.helpers.HealthOutput;
+import com.georobotix.impl.sensor.helpers.PeriodicAcquisition;
 import org.sensorhub.api.common.SensorHubException;
 import org.sensorhub.impl.sensor.AbstractSensorModule;
 import org.slf4j.Logger;
@@ -29,8 +31,8 @@ public class Sensor extends AbstractSensorModule<Config> {
     private static final Logger logger = LoggerFactory.getLogger(Sensor.class);
 
     Output output;
-    Thread processingThread;
-    volatile boolean doProcessing = true;
+    HealthOutput<Sensor> healthOutput;
+    volatile PeriodicAcquisition acquisition;
 
     @Override
     public void doInit() throws SensorHubException {
@@ -44,6 +46,13 @@ public class Sensor extends AbstractSensorModule<Config> {
         output = new Output(this);
         addOutput(output, false);
         output.doInit();
+
+        // Optional companion output reporting how the output is publishing and how acquisition keeps up
+        if (config.healthReportPeriod > 0) {
+            healthOutput = new HealthOutput<>(this, output, () -> acquisition);
+            addOutput(healthOutput, false);
+            healthOutput.doInit();
+        }
     }
 
     @Override
@@ -60,37 +69,35 @@ public class Sensor extends AbstractSensorModule<Config> {
 
     @Override
     public boolean isConnected() {
-        return processingThread != null && processingThread.isAlive();
+        return acquisition != null && acquisition.isRunning();
     }
 
     /**
      * Starts the data processing thread.
      * <p>
-     * This method simulates sensor data collection and processing by generating data samples at regular intervals.
+     * This method simulates sensor data collection and processing by generating data samples at a fixed rate.
      */
     public void startProcessing() {
-        doProcessing = true;
-
-        processingThread = new Thread(() -> {
-            while (doProcessing) {
+        output.start();
+        acquisition = new PeriodicAcquisition(getUniqueIdentifier(), config.samplingPeriod, config.overrunPolicy,
+                config.useVirtualThreads,
                 // Simulate data collection and processing
-                output.setData(System.currentTimeMillis(), "Sample Data");
-
-                // Simulate a delay between data samples
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-        });
-        processingThread.start();
+                sampleTime -> output.setData(sampleTime, "Sample Data"));
+        acquisition.start();
+
+        if (healthOutput != null)
+            healthOutput.start(config.healthReportPeriod * 1000L);
     }
 
     /**
-     * Signals the processing thread to stop.
+     * Stops the processing thread and waits for it to end.
      */
     public void stopProcessing() {
-        doProcessing = false;
+        if (acquisition != null)
+            acquisition.stop();
+        output.stop();
+
+        if (healthOutput != null)
+            healthOutput.stop();
     }
 }